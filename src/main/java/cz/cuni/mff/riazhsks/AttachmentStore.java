@@ -0,0 +1,567 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for UI, image and audio decoding,
+ * file handling, hashing and database access.
+ */
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import javax.swing.ImageIcon;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+
+/**
+ * Stores image and audio files attached to flashcards and displays them.
+ *
+ * Attachments are kept in a content-addressed file store next to the database:
+ * every file is saved once under the SHA-256 hash of its content, and flashcards
+ * refer to it by that hash. The attachments table records the type and size of
+ * each stored file. Files are always streamed, never read into memory as a whole.
+ *
+ * Images are decoded only for the visible flashcard and the next few ones, and
+ * only at the resolution they are shown in. Thumbnails are kept behind soft
+ * references, and the larger images opened by clicking a thumbnail are kept in
+ * a cache bounded by their size in bytes. Flashcards without an attachment
+ * never touch the store.
+ */
+public class AttachmentStore {
+
+    /** The default directory holding the attached files, next to the database. */
+    static final Path DEFAULT_ROOT = Path.of("attachments");
+
+    /** The directory holding the attached files. */
+    private static volatile Path root = DEFAULT_ROOT;
+
+    /** Largest width or height of a thumbnail, in pixels. */
+    static final int THUMBNAIL_SIZE = 240;
+
+    /** Largest width or height of an opened image, in pixels. */
+    static final int VIEW_SIZE = 1600;
+
+    /** Largest total size of the opened images kept in memory, in bytes. */
+    static final long IMAGE_CACHE_BYTES = 64L << 20;
+
+    /** Client property of the label holding the hash it is displaying. */
+    private static final String SHOWN_HASH = "attachmentHash";
+
+    /** Thumbnails by hash, released by the garbage collector under memory pressure. */
+    private static final Map<String, SoftReference<ImageIcon>> thumbnails = new ConcurrentHashMap<>();
+
+    /** Opened images by hash, least recently used first. */
+    private static final LinkedHashMap<String, BufferedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size of the opened images in the cache, in bytes. */
+    private static long imageBytes;
+
+    /** Types of the stored files by hash. */
+    private static final Map<String, String> types = new ConcurrentHashMap<>();
+
+    /** Executor decoding thumbnails in the background. */
+    private static final ExecutorService decoder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "attachment-decoder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Creates the attachments table if it does not exist.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the table cannot be created
+     */
+    public static void createTable(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS attachments (" +
+                    "hash TEXT PRIMARY KEY, " +
+                    "type TEXT NOT NULL, " +
+                    "size INTEGER NOT NULL)");
+        }
+    }
+
+    /**
+     * Changes the directory holding the attached files, for example
+     * to keep the attachments of a test database apart.
+     *
+     * @param directory the new directory
+     */
+    static void useRoot(Path directory) {
+        root = directory;
+        types.clear();
+        thumbnails.clear();
+        synchronized (images) {
+            images.clear();
+            imageBytes = 0;
+        }
+    }
+
+    /**
+     * Copies a file into the store. A file with the same content is stored only once.
+     *
+     * @param file the image or audio file
+     * @return the content hash identifying the attachment
+     * @throws IOException if the file cannot be copied
+     * @throws SQLException if the attachment cannot be recorded
+     */
+    public static String store(Path file) throws IOException, SQLException {
+        return store(DBconnection.getConnection(), file);
+    }
+
+    /**
+     * Copies a file into the store, recording it with the given connection.
+     *
+     * @param c the connection to use
+     * @param file the image or audio file
+     * @return the content hash identifying the attachment
+     * @throws IOException if the file cannot be copied
+     * @throws SQLException if the attachment cannot be recorded
+     */
+    static String store(Connection c, Path file) throws IOException, SQLException {
+        Files.createDirectories(root);
+        Path temp = Files.createTempFile(root, "incoming", ".tmp");
+        String hash;
+        long size;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = in.transferTo(out);
+            }
+            hash = HexFormat.of().formatHex(digest.digest());
+            Path target = pathOf(hash);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                Files.delete(temp);
+            } else {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (NoSuchAlgorithmException e) {
+            Files.deleteIfExists(temp);
+            throw new IOException(e);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        String type = Files.probeContentType(file);
+        if (type == null) {
+            type = "application/octet-stream";
+        }
+        try (PreparedStatement s = c.prepareStatement(
+                "INSERT OR IGNORE INTO attachments (hash, type, size) VALUES (?, ?, ?)")) {
+            s.setString(1, hash);
+            s.setString(2, type);
+            s.setLong(3, size);
+            s.executeUpdate();
+        }
+        types.put(hash, type);
+        return hash;
+    }
+
+    /**
+     * Deletes the stored files no flashcard refers to any more.
+     * Called by the compactor after removed flashcards have been purged.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the attachments cannot be read
+     */
+    static void purgeUnreferenced(Connection c) throws SQLException {
+        List<String> unused = new ArrayList<>();
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT hash FROM attachments WHERE hash NOT IN " +
+                     "(SELECT attachment FROM " + DBconnection.deckTable() + " WHERE attachment IS NOT NULL)")) {
+            while (set.next()) {
+                unused.add(set.getString(1));
+            }
+        }
+        try (PreparedStatement s = c.prepareStatement("DELETE FROM attachments WHERE hash = ?")) {
+            for (String hash : unused) {
+                try {
+                    Files.deleteIfExists(pathOf(hash));
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                    continue;
+                }
+                s.setString(1, hash);
+                s.executeUpdate();
+                types.remove(hash);
+                thumbnails.remove(hash);
+            }
+        }
+    }
+
+    /**
+     * Returns the location of a stored file.
+     *
+     * @param hash the content hash
+     * @return the path of the file
+     */
+    public static Path pathOf(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Returns the media type of a stored file, such as "image/png" or "audio/wav".
+     *
+     * @param hash the content hash
+     * @return the media type
+     */
+    public static String typeOf(String hash) {
+        return typeOf(DBconnection.getConnection(), hash);
+    }
+
+    /**
+     * Returns the media type of a stored file, looked up with the given connection
+     * if it is not cached, so threads other than the event dispatch thread do
+     * not use the connection of the application.
+     *
+     * @param c the connection to use
+     * @param hash the content hash
+     * @return the media type
+     */
+    static String typeOf(Connection c, String hash) {
+        String type = types.get(hash);
+        if (type != null) {
+            return type;
+        }
+        try (PreparedStatement s = c.prepareStatement(
+                "SELECT type FROM attachments WHERE hash = ?")) {
+            s.setString(1, hash);
+            try (ResultSet set = s.executeQuery()) {
+                type = set.next() ? set.getString(1) : "application/octet-stream";
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            return "application/octet-stream";
+        }
+        types.put(hash, type);
+        return type;
+    }
+
+    /**
+     * Shows the attachment of a flashcard in a label. The thumbnails of the
+     * following flashcards are prepared by CardPrefetcher. The label is hidden
+     * for flashcards without an attachment. Clicking the label opens the image or plays the audio.
+     *
+     * @param label the label next to the card area
+     * @param cards the flashcards of the deck
+     * @param index the index of the visible flashcard
+     */
+    public static void show(JLabel label, List<Flashcard> cards, int index) {
+        String hash = index < cards.size() ? cards.get(index).getAttachment() : null;
+        label.putClientProperty(SHOWN_HASH, hash);
+        if (hash == null) {
+            label.setIcon(null);
+            label.setText(null);
+            label.setVisible(false);
+        } else {
+            label.setVisible(true);
+            if (!typeOf(hash).startsWith("image/")) {
+                label.setIcon(null);
+                label.setText("Play audio");
+            } else {
+                ImageIcon cached = cachedThumbnail(hash);
+                if (cached != null) {
+                    label.setText(null);
+                    label.setIcon(cached);
+                } else {
+                    label.setIcon(null);
+                    label.setText("Loading...");
+                    decoder.submit(() -> {
+                        ImageIcon icon = thumbnail(hash);
+                        SwingUtilities.invokeLater(() -> {
+                            if (hash.equals(label.getClientProperty(SHOWN_HASH))) {
+                                label.setText(icon == null ? "Image not available" : null);
+                                label.setIcon(icon);
+                            }
+                        });
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * Prepares an attachment for showing: looks up its type and decodes the
+     * thumbnail of an image, on the calling thread.
+     *
+     * @param c the connection of the calling thread
+     * @param hash the content hash
+     */
+    static void warm(Connection c, String hash) {
+        if (typeOf(c, hash).startsWith("image/")) {
+            thumbnail(hash);
+        }
+    }
+
+    /**
+     * Makes a label open the attachment it displays when clicked.
+     *
+     * @param label the attachment label
+     */
+    public static void installOpenOnClick(JLabel label) {
+        label.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                Object hash = label.getClientProperty(SHOWN_HASH);
+                if (hash != null) {
+                    open((String) hash);
+                }
+            }
+        });
+    }
+
+    /**
+     * Opens an image attachment in a dialog, or plays an audio attachment.
+     *
+     * @param hash the content hash
+     */
+    public static void open(String hash) {
+        if (typeOf(hash).startsWith("audio/")) {
+            decoder.submit(() -> play(hash));
+            return;
+        }
+        BufferedImage image = image(hash);
+        if (image == null) {
+            return;
+        }
+        JDialog dialog = new JDialog();
+        dialog.setTitle("Attachment");
+        dialog.add(new JScrollPane(new JLabel(new ImageIcon(image))));
+        dialog.setSize(Math.min(image.getWidth() + 40, 1000), Math.min(image.getHeight() + 60, 800));
+        dialog.setLocationRelativeTo(null);
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Returns the cached thumbnail of an attachment.
+     */
+    private static ImageIcon cachedThumbnail(String hash) {
+        SoftReference<ImageIcon> ref = thumbnails.get(hash);
+        return ref == null ? null : ref.get();
+    }
+
+    /**
+     * Returns the thumbnail of an image attachment, decoding it if needed.
+     *
+     * @param hash the content hash
+     * @return the thumbnail, or null if the image cannot be decoded
+     */
+    static ImageIcon thumbnail(String hash) {
+        ImageIcon icon = cachedThumbnail(hash);
+        if (icon == null) {
+            BufferedImage image = decode(hash, THUMBNAIL_SIZE);
+            if (image == null) {
+                return null;
+            }
+            icon = new ImageIcon(scale(image, THUMBNAIL_SIZE));
+            thumbnails.put(hash, new SoftReference<>(icon));
+        }
+        return icon;
+    }
+
+    /**
+     * Returns an image attachment at viewing size from the size-bounded cache,
+     * decoding it if needed.
+     *
+     * @param hash the content hash
+     * @return the image, or null if it cannot be decoded
+     */
+    static BufferedImage image(String hash) {
+        synchronized (images) {
+            BufferedImage image = images.get(hash);
+            if (image != null) {
+                return image;
+            }
+        }
+        BufferedImage image = decode(hash, VIEW_SIZE);
+        if (image == null) {
+            return null;
+        }
+        synchronized (images) {
+            if (images.put(hash, image) == null) {
+                imageBytes += bytesOf(image);
+            }
+            Iterator<Map.Entry<String, BufferedImage>> it = images.entrySet().iterator();
+            while (imageBytes > IMAGE_CACHE_BYTES && images.size() > 1 && it.hasNext()) {
+                Map.Entry<String, BufferedImage> eldest = it.next();
+                imageBytes -= bytesOf(eldest.getValue());
+                it.remove();
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Checks whether an opened image is in the size-bounded cache.
+     *
+     * @param hash the content hash
+     * @return true if the image is cached
+     */
+    static boolean isImageCached(String hash) {
+        synchronized (images) {
+            return images.containsKey(hash);
+        }
+    }
+
+    /**
+     * Returns the total size of the opened images in the cache.
+     *
+     * @return the size in bytes
+     */
+    static long cachedImageBytes() {
+        synchronized (images) {
+            return imageBytes;
+        }
+    }
+
+    /**
+     * Checks whether the thumbnail of an attachment has been decoded and
+     * not yet released.
+     *
+     * @param hash the content hash
+     * @return true if the thumbnail is cached
+     */
+    static boolean isThumbnailCached(String hash) {
+        return cachedThumbnail(hash) != null;
+    }
+
+    /**
+     * Returns the approximate memory used by a decoded image.
+     */
+    private static long bytesOf(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Decodes an image, reading only every n-th pixel of images much larger
+     * than the requested size, so that large files never have to be decoded
+     * at full resolution.
+     *
+     * @param hash the content hash
+     * @param maxSize the largest width or height needed
+     * @return the decoded image, or null if it cannot be decoded
+     */
+    private static BufferedImage decode(String hash, int maxSize) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(pathOf(hash).toFile())) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int larger = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, larger / maxSize);
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Scales an image down so that it fits into a square of the given size.
+     */
+    private static Image scale(BufferedImage image, int size) {
+        int larger = Math.max(image.getWidth(), image.getHeight());
+        if (larger <= size) {
+            return image;
+        }
+        int width = image.getWidth() * size / larger;
+        int height = image.getHeight() * size / larger;
+        BufferedImage scaled = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.drawImage(image.getScaledInstance(width, height, Image.SCALE_SMOOTH), 0, 0, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Plays an audio attachment, streaming it to the sound card in small blocks.
+     *
+     * @param hash the content hash
+     */
+    private static void play(String hash) {
+        try (AudioInputStream in = AudioSystem.getAudioInputStream(
+                new BufferedInputStream(Files.newInputStream(pathOf(hash))))) {
+            AudioFormat format = in.getFormat();
+            try (SourceDataLine line = AudioSystem.getSourceDataLine(format)) {
+                line.open(format);
+                line.start();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    line.write(buffer, 0, read);
+                }
+                line.drain();
+            }
+        } catch (Exception e) {
+            System.out.println("Cannot play attachment: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for file access, database access
+ * and parallel processing.
+ */
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Grades written exams offline: the answers of many students to flashcards of the deck.
+ *
+ * An exam file has one answer per line in the form "student;flashcard number;answer".
+ * The file is read in chunks, and the lines of a chunk are parsed and graded in
+ * parallel on a fork/join pool while the next chunk is read. All threads share one
+ * answer key, read from the deck before grading and never changed. Answers are
+ * compared the way the quiz compares them (Flashcard.answersMatch). Only the counts per student are kept, so
+ * the memory does not depend on the number of answers. The results file gets one
+ * line per student, ordered by name: "student;correct;graded;unknown", where unknown
+ * counts answers to flashcard numbers not in the deck.
+ */
+public class BatchGrader {
+
+    /** Number of exam lines read and graded together. */
+    private static final int CHUNK_SIZE = 1 << 15;
+
+    /**
+     * The correct answers of the deck by flashcard number, immutable once built.
+     */
+    public static class AnswerKey {
+
+        /** Flashcard numbers in ascending order. */
+        private final int[] numbers;
+
+        /** The correct answers, in the order of the numbers. */
+        private final String[] answers;
+
+        private AnswerKey(int[] numbers, String[] answers) {
+            this.numbers = numbers;
+            this.answers = answers;
+        }
+
+        /**
+         * Reads the answers of the flashcards that are not removed.
+         *
+         * @param c the connection to use
+         * @return the answer key
+         * @throws SQLException if the deck cannot be read
+         */
+        public static AnswerKey load(Connection c) throws SQLException {
+            List<Flashcard> cards = new ArrayList<>();
+            try (DeckCursor cursor = DBconnection.openCursor(c, DeckCursor.Projection.ANSWERS,
+                    DeckCursor.DEFAULT_FETCH_SIZE)) {
+                while (cursor.next()) {
+                    cards.add(new Flashcard(null, cursor.getAnswer(), cursor.getNumber(), null));
+                }
+            }
+            return of(cards);
+        }
+
+        /**
+         * Creates the answer key of flashcards.
+         *
+         * @param cards the flashcards, in any order
+         * @return the answer key
+         */
+        public static AnswerKey of(List<Flashcard> cards) {
+            Flashcard[] sorted = cards.toArray(new Flashcard[0]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare(a.getNumber(), b.getNumber()));
+            int[] numbers = new int[sorted.length];
+            String[] answers = new String[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                numbers[i] = sorted[i].getNumber();
+                answers[i] = sorted[i].getAnswer().trim();
+            }
+            return new AnswerKey(numbers, answers);
+        }
+
+        /**
+         * Returns the correct answer of a flashcard.
+         *
+         * @param number the flashcard number
+         * @return the answer, or null if the deck has no flashcard with the number
+         */
+        public String answer(int number) {
+            int i = Arrays.binarySearch(numbers, number);
+            return i >= 0 ? answers[i] : null;
+        }
+    }
+
+    /**
+     * The counts of one student, updated concurrently.
+     */
+    private static class Score {
+
+        /** Number of correct answers. */
+        final LongAdder correct = new LongAdder();
+
+        /** Number of graded answers. */
+        final LongAdder graded = new LongAdder();
+
+        /** Number of answers to flashcards not in the deck. */
+        final LongAdder unknown = new LongAdder();
+    }
+
+    /**
+     * Totals of a graded exam.
+     */
+    public static class Summary {
+
+        /** Number of graded answers. */
+        private final long graded;
+
+        /** Number of lines that are not in the exam format. */
+        private final long malformed;
+
+        /** Number of students. */
+        private final int students;
+
+        Summary(long graded, long malformed, int students) {
+            this.graded = graded;
+            this.malformed = malformed;
+            this.students = students;
+        }
+
+        /**
+         * Returns the number of graded answers.
+         *
+         * @return the number of answers
+         */
+        public long getGraded() {
+            return graded;
+        }
+
+        /**
+         * Returns the number of lines that are not in the exam format.
+         *
+         * @return the number of lines
+         */
+        public long getMalformed() {
+            return malformed;
+        }
+
+        /**
+         * Returns the number of students.
+         *
+         * @return the number of students
+         */
+        public int getStudents() {
+            return students;
+        }
+
+        @Override
+        public String toString() {
+            return graded + " answers of " + students + " students graded"
+                    + (malformed > 0 ? ", " + malformed + " malformed lines skipped" : "");
+        }
+    }
+
+    /**
+     * Grades an exam file against the deck of a database.
+     *
+     * @param c the connection to the database
+     * @param exam the exam file
+     * @param results the results file to write
+     * @return the totals
+     * @throws IOException if a file cannot be read or written
+     * @throws SQLException if the deck cannot be read
+     */
+    public static Summary grade(Connection c, Path exam, Path results) throws IOException, SQLException {
+        if (c == null) {
+            throw new SQLException("Connection is not available");
+        }
+        AnswerKey key = AnswerKey.load(c);
+        try (BufferedReader in = Files.newBufferedReader(exam, StandardCharsets.UTF_8);
+             Writer out = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+            return grade(key, in, out, ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * Grades the exam lines read from a reader and writes the results.
+     *
+     * @param key the answer key
+     * @param in the exam lines
+     * @param out the results
+     * @param pool the pool grading the lines in parallel
+     * @return the totals
+     * @throws IOException if the exam cannot be read or the results written
+     */
+    public static Summary grade(AnswerKey key, BufferedReader in, Writer out, ForkJoinPool pool) throws IOException {
+        Map<String, Score> scores = new ConcurrentHashMap<>();
+        LongAdder malformed = new LongAdder();
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        ForkJoinTask<?> grading = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            chunk.add(line);
+            if (chunk.size() == CHUNK_SIZE) {
+                await(grading);
+                grading = submit(key, chunk, scores, malformed, pool);
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        await(grading);
+        await(submit(key, chunk, scores, malformed, pool));
+
+        long graded = 0;
+        for (Map.Entry<String, Score> entry : new TreeMap<>(scores).entrySet()) {
+            Score score = entry.getValue();
+            graded += score.graded.sum();
+            out.write(entry.getKey() + ";" + score.correct.sum() + ";" + score.graded.sum() + ";"
+                    + score.unknown.sum() + "\n");
+        }
+        return new Summary(graded, malformed.sum(), scores.size());
+    }
+
+    /**
+     * Starts grading the lines of a chunk in parallel.
+     */
+    private static ForkJoinTask<?> submit(AnswerKey key, List<String> chunk, Map<String, Score> scores,
+                                          LongAdder malformed, ForkJoinPool pool) {
+        return pool.submit(() -> chunk.parallelStream().forEach(line -> {
+            String[] fields = line.split(";", 3);
+            int number;
+            try {
+                number = fields.length == 3 ? Integer.parseInt(fields[1].trim()) : -1;
+            } catch (NumberFormatException e) {
+                number = -1;
+            }
+            String student = fields[0].trim();
+            if (number < 0 || student.isEmpty()) {
+                if (!line.isBlank()) {
+                    malformed.increment();
+                }
+                return;
+            }
+            Score score = scores.get(student);
+            if (score == null) {
+                score = scores.computeIfAbsent(student, k -> new Score());
+            }
+            String correctAnswer = key.answer(number);
+            if (correctAnswer == null) {
+                score.unknown.increment();
+                return;
+            }
+            score.graded.increment();
+            if (Flashcard.answersMatch(fields[2], correctAnswer)) {
+                score.correct.increment();
+            }
+        }));
+    }
+
+    /**
+     * Waits until a chunk is graded.
+     */
+    private static void await(ForkJoinTask<?> grading) throws IOException {
+        if (grading == null) {
+            return;
+        }
+        try {
+            grading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while grading");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+}
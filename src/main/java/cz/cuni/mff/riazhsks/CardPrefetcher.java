@@ -0,0 +1,266 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for the cache and background work.
+ */
+import java.awt.Color;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Prepares the flashcards the user is about to see, so that Next, Previous and
+ * Flip only copy finished text into the card area.
+ *
+ * A prefetcher follows one way of moving through the deck: the study mode moves
+ * through the deck in order, the quiz mode through its quiz sequence. Every move
+ * tells the prefetcher the new position; it keeps the direction of the last move
+ * and prepares the next flashcards in that direction, and the one behind, on a
+ * background thread. Preparing a flashcard decodes its compressed text page,
+ * renders both of its sides and decodes the thumbnail of its attachment. The type
+ * of an attachment is looked up with a read connection of the background thread,
+ * never with the connection the event dispatch thread uses for its transactions.
+ *
+ * Each move starts a new generation of work, and the work of older generations
+ * stops at the next flashcard, so jumping elsewhere never waits for flashcards
+ * that will not be shown. Rendered flashcards are kept in a cache bounded by
+ * the number of entries and shared by all prefetchers.
+ */
+public class CardPrefetcher {
+
+    /** Number of flashcards prepared ahead in the direction of movement. */
+    public static final int AHEAD = 8;
+
+    /** Number of rendered flashcards kept. */
+    private static final int CACHE_SIZE = 128;
+
+    /** Rendered flashcards, least recently used first. Flashcards are compared by identity. */
+    private static final LinkedHashMap<Flashcard, Rendered> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Flashcard, Rendered> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** Executor preparing flashcards in the background. */
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "card-prefetcher");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    /** Read connection of the background thread, opened on first use and kept for the run. */
+    private static Connection reader;
+
+    /** Generation of the latest move; work of older generations is stale. */
+    private final AtomicLong generation = new AtomicLong();
+
+    /** The position of the last move, or -1 before the first one. */
+    private int lastPosition = -1;
+
+    /** Direction of the last move, 1 forward and -1 backward. */
+    private int direction = 1;
+
+    /** The work of the latest move. */
+    private Future<?> pending;
+
+    /**
+     * Both sides of a flashcard as they are shown in the card area.
+     */
+    public static class Rendered {
+
+        /** The text of the question side. */
+        private final String question;
+
+        /** The text of the answer side. */
+        private final String answer;
+
+        /** The background color. */
+        private final Color background;
+
+        /** The text color readable on the background. */
+        private final Color foreground;
+
+        Rendered(Flashcard card) {
+            question = " Flashcard number " + card.getNumber() + "\n\n Question:\n\n " + card.getQuestion();
+            answer = " Flashcard number " + card.getNumber() + "\n\n Answer:\n\n " + card.getAnswer();
+            background = card.getColor();
+            int brightness = (int) (0.299 * background.getRed() +
+                                    0.587 * background.getGreen() +
+                                    0.114 * background.getBlue());
+            foreground = brightness < 128 ? Color.WHITE : Color.BLACK;
+        }
+
+        /**
+         * Returns the text of a side.
+         *
+         * @param question true for the question side, false for the answer side
+         * @return the text
+         */
+        public String getText(boolean question) {
+            return question ? this.question : answer;
+        }
+
+        /**
+         * Returns the background color.
+         *
+         * @return the color of the flashcard
+         */
+        public Color getBackground() {
+            return background;
+        }
+
+        /**
+         * Returns the text color.
+         *
+         * @return white on dark flashcards, black on light ones
+         */
+        public Color getForeground() {
+            return foreground;
+        }
+    }
+
+    /**
+     * Returns a flashcard rendered for the card area, rendering it now if it
+     * was not prepared.
+     *
+     * @param card the flashcard
+     * @return the rendered flashcard
+     */
+    public static Rendered rendered(Flashcard card) {
+        synchronized (cache) {
+            Rendered rendered = cache.get(card);
+            if (rendered != null) {
+                return rendered;
+            }
+        }
+        Rendered rendered = new Rendered(card);
+        synchronized (cache) {
+            cache.put(card, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Records a move and starts preparing the flashcards around the new
+     * position. The flashcards are picked on the calling thread, so the list
+     * they come from does not have to be thread-safe.
+     *
+     * @param position the new position
+     * @param size the number of positions
+     * @param cardAt returns the flashcard at a position
+     */
+    public void moved(int position, int size, IntFunction<Flashcard> cardAt) {
+        if (lastPosition >= 0 && position != lastPosition) {
+            direction = position > lastPosition ? 1 : -1;
+        }
+        lastPosition = position;
+        long current = generation.incrementAndGet();
+        List<Flashcard> upcoming = new ArrayList<>(AHEAD + 1);
+        for (int i = 1; i <= AHEAD; i++) {
+            int next = position + i * direction;
+            if (next < 0 || next >= size) {
+                break;
+            }
+            upcoming.add(cardAt.apply(next));
+        }
+        int behind = position - direction;
+        if (behind >= 0 && behind < size) {
+            upcoming.add(cardAt.apply(behind));
+        }
+        if (upcoming.isEmpty()) {
+            return;
+        }
+        pending = worker.submit(() -> {
+            for (Flashcard card : upcoming) {
+                if (generation.get() != current) {
+                    return;
+                }
+                prepare(card);
+            }
+        });
+    }
+
+    /**
+     * Stops the work of earlier moves, for example when the quiz is closed.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        lastPosition = -1;
+        direction = 1;
+    }
+
+    /**
+     * Waits until the flashcards of the latest move are prepared.
+     */
+    void awaitPrepared() throws Exception {
+        if (pending != null) {
+            pending.get();
+        }
+    }
+
+    /**
+     * Returns whether a flashcard is rendered and cached, for tests.
+     */
+    static boolean isCached(Flashcard card) {
+        synchronized (cache) {
+            return cache.containsKey(card);
+        }
+    }
+
+    /**
+     * Decodes, renders and caches a flashcard and its attachment.
+     */
+    private static void prepare(Flashcard card) {
+        try {
+            rendered(card);
+            if (card.getAttachment() != null && reader() != null) {
+                AttachmentStore.warm(reader, card.getAttachment());
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Prefetching flashcard " + card.getNumber() + " failed: " + e);
+        }
+    }
+
+    /**
+     * Returns the read connection of the background thread, opening it if needed.
+     *
+     * @return the connection, or null if it cannot be opened
+     */
+    private static Connection reader() {
+        if (reader == null) {
+            try {
+                reader = DBconnection.openConnection();
+            } catch (SQLException e) {
+                System.out.println("Prefetching attachments is not available: " + e.getMessage());
+            }
+        }
+        return reader;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for database access.
+ */
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * Records every change of the flashcards table in an append-only change log,
+ * from which DeckSync exchanges changes between copies of the database.
+ *
+ * Every copy of the database (replica) has a random id and numbers its own changes
+ * with a sequence number. Each change also carries a Lamport clock, which orders
+ * the changes of all replicas when they conflict. Changes are recorded in the same
+ * transaction as the change itself.
+ *
+ * Change log schema:
+ * - seq INTEGER PRIMARY KEY AUTOINCREMENT (order in this replica's log)
+ * - replica TEXT NOT NULL (replica where the change was made)
+ * - replica_seq INTEGER NOT NULL (sequence number of the change in that replica)
+ * - clock INTEGER NOT NULL (Lamport clock of the change)
+ * - op TEXT NOT NULL ("UPSERT", "CLEAR" or "RENUMBER")
+ * - uid, question, answer, number, color, deleted, attachment (state of the flashcard after an UPSERT)
+ */
+public class ChangeLog {
+
+    /** Change setting the whole state of one flashcard, including its deleted flag. */
+    public static final String UPSERT = "UPSERT";
+
+    /** Change removing all flashcards. */
+    public static final String CLEAR = "CLEAR";
+
+    /**
+     * Marks a renumbering pass of the compactor. The new numbers themselves are
+     * recorded as UPSERT changes of the renumbered flashcards.
+     */
+    public static final String RENUMBER = "RENUMBER";
+
+    /**
+     * Creates the change log and the replica table if they do not exist.
+     * The flashcards existing before are recorded by the backfill of the migration.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the tables cannot be created
+     */
+    public static void createTables(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS sync_replica (" +
+                    "id TEXT NOT NULL, " +
+                    "seq INTEGER NOT NULL, " +
+                    "clock INTEGER NOT NULL)");
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS changelog (" +
+                    "seq INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "replica TEXT NOT NULL, " +
+                    "replica_seq INTEGER NOT NULL, " +
+                    "clock INTEGER NOT NULL, " +
+                    "op TEXT NOT NULL, " +
+                    "uid TEXT, " +
+                    "question TEXT, " +
+                    "answer TEXT, " +
+                    "number INTEGER, " +
+                    "color INTEGER, " +
+                    "deleted INTEGER, " +
+                    "attachment TEXT, " +
+                    "UNIQUE (replica, replica_seq))");
+            s.executeUpdate("CREATE INDEX IF NOT EXISTS changelog_uid ON changelog (uid, clock)");
+        }
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT COUNT(*) FROM sync_replica")) {
+            if (set.next() && set.getInt(1) == 0) {
+                try (PreparedStatement p = c.prepareStatement(
+                        "INSERT INTO sync_replica (id, seq, clock) VALUES (?, 0, 0)")) {
+                    p.setString(1, UUID.randomUUID().toString());
+                    p.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the id of the replica stored in the database.
+     *
+     * @param c the connection to use
+     * @return the replica id
+     * @throws SQLException if the id cannot be read
+     */
+    public static String replicaId(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT id FROM sync_replica")) {
+            if (!set.next()) {
+                throw new SQLException("Replica is not initialized");
+            }
+            return set.getString(1);
+        }
+    }
+
+    /**
+     * Records the current state of the flashcards matching a condition as
+     * UPSERT changes, with a single set-based statement.
+     *
+     * @param c the connection to use, inside the transaction of the change
+     * @param where the SQL condition on the flashcards table
+     * @param params the parameters of the condition
+     * @return the number of recorded changes
+     * @throws SQLException if the changes cannot be recorded
+     */
+    public static int recordCards(Connection c, String where, Object... params) throws SQLException {
+        long[] counters = counters(c);
+        String q = "INSERT INTO changelog " +
+                "(replica, replica_seq, clock, op, uid, question, answer, number, color, deleted, attachment) " +
+                "SELECT ?, ? + ROW_NUMBER() OVER (ORDER BY id), ?, '" + UPSERT + "', " +
+                "uid, question, answer, number, color, deleted, attachment " +
+                "FROM flashcards WHERE " + where;
+        int recorded;
+        try (PreparedStatement s = c.prepareStatement(q)) {
+            s.setString(1, replicaId(c));
+            s.setLong(2, counters[0]);
+            s.setLong(3, counters[1] + 1);
+            for (int i = 0; i < params.length; i++) {
+                s.setObject(i + 4, params[i]);
+            }
+            recorded = s.executeUpdate();
+        }
+        if (recorded > 0) {
+            advance(c, recorded, counters[1] + 1);
+        }
+        return recorded;
+    }
+
+    /**
+     * Records a change without flashcard state, such as CLEAR or RENUMBER.
+     *
+     * @param c the connection to use, inside the transaction of the change
+     * @param op the kind of the change
+     * @throws SQLException if the change cannot be recorded
+     */
+    public static void record(Connection c, String op) throws SQLException {
+        long[] counters = counters(c);
+        try (PreparedStatement s = c.prepareStatement(
+                "INSERT INTO changelog (replica, replica_seq, clock, op) VALUES (?, ?, ?, ?)")) {
+            s.setString(1, replicaId(c));
+            s.setLong(2, counters[0] + 1);
+            s.setLong(3, counters[1] + 1);
+            s.setString(4, op);
+            s.executeUpdate();
+        }
+        advance(c, 1, counters[1] + 1);
+    }
+
+    /**
+     * Moves the Lamport clock of the replica past a clock seen in another replica.
+     *
+     * @param c the connection to use
+     * @param clock the clock of a received change
+     * @throws SQLException if the clock cannot be updated
+     */
+    static void observe(Connection c, long clock) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement("UPDATE sync_replica SET clock = MAX(clock, ?)")) {
+            s.setLong(1, clock);
+            s.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the last sequence number and the clock of the replica.
+     */
+    private static long[] counters(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT seq, clock FROM sync_replica")) {
+            if (!set.next()) {
+                throw new SQLException("Replica is not initialized");
+            }
+            return new long[] {set.getLong(1), set.getLong(2)};
+        }
+    }
+
+    /**
+     * Advances the sequence number and the clock of the replica after recording changes.
+     */
+    private static void advance(Connection c, int changes, long clock) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement("UPDATE sync_replica SET seq = seq + ?, clock = ?")) {
+            s.setInt(1, changes);
+            s.setLong(2, clock);
+            s.executeUpdate();
+        }
+    }
+}
@@ -18,29 +18,41 @@
 package cz.cuni.mff.riazhsks;
 
 /**
- * Import necessary Java libraries for UI, database connection, 
+ * Import necessary Java libraries for colors, database connection, 
  * and other utilities.
  */
-import java.awt.*;
-import java.awt.event.*;
+import java.awt.Color;
 import java.sql.*;
 import java.util.ArrayList;
-import javax.swing.*;
+import java.util.List;
+import java.util.UUID;
 
 
 /**
  * Handles communication with an SQLite database that stores flashcard information.
  * Provides methods for database initialization, table creation, 
- * adding, removing, and loading flashcards.
+ * adding, editing, removing, and loading flashcards.
  */
 public class DBconnection {
 
     /** Connection to the SQLite database. */
     private static Connection connection;
 
-    /** Counter used for unit testing purposes. */
+    /** Counter used for unit testing purposes, changed only through addCount. */
     public static int count;
 
+    /** JDBC URL of the flashcards database. */
+    public static final String DB_URL = "jdbc:sqlite:flashcards.db";
+
+    /** How long a connection waits for a lock held by another connection, in milliseconds. */
+    private static final int BUSY_TIMEOUT = 5000;
+
+    /** The most recently removed flashcard, kept so the removal can be undone. */
+    private static Flashcard lastRemoved;
+
+    /** The shards of the database, or null if sharding is disabled. */
+    private static ShardedStore shards;
+
     /**
      * Establishes a connection to the flashcards.db database.
      * If the database does not exist, it will be created.
@@ -51,13 +63,48 @@ public class DBconnection {
     public static void initializeDatabase() {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:flashcards.db");
+            shards = ShardedStore.fromSystemProperty();
+            connection = openConnection();
             createTable();
+            Migrations.startBackfills();
         } catch (ClassNotFoundException | SQLException e) {
             System.out.println(e.getMessage());
         }
     }
 
+    /**
+     * Opens a new connection to the flashcards.db database.
+     * Background tasks use their own connections, so that their transactions
+     * do not interleave with the ones of the user interface.
+     * When sharding is enabled, the shards are attached to the connection.
+     *
+     * @return the new connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public static Connection openConnection() throws SQLException {
+        Connection c = openConnection(DB_URL);
+        if (shards != null) {
+            shards.attach(c);
+        }
+        return c;
+    }
+
+    /**
+     * Opens a new connection to the database with the given JDBC URL,
+     * for example another copy of the flashcards database.
+     *
+     * @param url the JDBC URL of the database
+     * @return the new connection
+     * @throws SQLException if the connection cannot be opened
+     */
+    public static Connection openConnection(String url) throws SQLException {
+        Connection c = DriverManager.getConnection(url);
+        try (Statement s = c.createStatement()) {
+            s.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT);
+        }
+        return c;
+    }
+
     /**
      * Returnes the database connection.
      *
@@ -68,28 +115,211 @@ public class DBconnection {
     }
 
     /**
-     * Creates the flashcards table in the database if it does not already exist.
-     * The table includes columns for an ID, question, answer, number, and color.
+     * Returns the shards of the database.
+     *
+     * @return the shards, or null if sharding is disabled
+     */
+    public static ShardedStore getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the name of the table or view holding the whole deck in
+     * connections opened by openConnection: the flashcards table, or the
+     * view over all shards when sharding is enabled.
+     *
+     * @return the table name
+     */
+    public static String deckTable() {
+        return shards != null ? ShardedStore.VIEW : "flashcards";
+    }
+
+    /**
+     * Brings the schema of the database up to date, see Migrations.
+     * Backfills of existing rows are left to the background.
      *  Database Schema:
      * - id INTEGER PRIMARY KEY AUTOINCREMENT
      * - question TEXT NOT NULL
      * - answer TEXT NOT NULL
      * - number INTEGER NOT NULL
      * - color INTEGER NOT NULL
+     * - deleted INTEGER NOT NULL DEFAULT 0 (tombstone flag of removed flashcards)
+     * - attachment TEXT (content hash of an attached file, see AttachmentStore)
+     * - uid TEXT (identifier shared by all copies of the database, see ChangeLog)
+     *
+     * New databases use incremental auto-vacuum, so that the space freed
+     * by the compactor can be returned to the file system in small steps.
      */
     public static void createTable() {
-        try (PreparedStatement s = connection.prepareStatement(
-                "CREATE TABLE IF NOT EXISTS flashcards (" +
+        try {
+            Migrations.migrate(connection);
+            TextCodec.start(connection);
+            if (shards != null) {
+                shards.createView(connection);
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Brings the schema of the database up to date using the given connection,
+     * including the backfills of existing rows.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the schema cannot be updated
+     */
+    public static void createTable(Connection c) throws SQLException {
+        Migrations.migrate(c);
+        Migrations.runBackfills(c);
+        TextCodec.load(c);
+    }
+
+    /**
+     * Creates the flashcards table with the current schema if it does not exist.
+     * Used by the first migration and to replace the table when all flashcards are removed.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the table cannot be created
+     */
+    static void createFlashcardsTable(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'flashcards'")) {
+            if (set.next()) {
+                return;
+            }
+        }
+        try (PreparedStatement s = c.prepareStatement(
+                "CREATE TABLE flashcards (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "question TEXT NOT NULL, " +
                 "answer TEXT NOT NULL, " +
                 "number INTEGER NOT NULL, " +
-                "color INTEGER NOT NULL)")) 
+                "color INTEGER NOT NULL, " +
+                "deleted INTEGER NOT NULL DEFAULT 0, " +
+                "attachment TEXT, " +
+                "uid TEXT)")) 
             {
             s.executeUpdate();
-            s.close();
-        } catch (Exception e) {
+        }
+        createIndexIfMissing(c, "uid", true);
+        createIndexIfMissing(c, "deleted, number, uid", false);
+    }
+
+    /**
+     * Creates an index on columns of the flashcards table if the table has none.
+     * Removing all flashcards swaps the table together with its indexes for an empty
+     * one, so index names are made unique instead of relying on IF NOT EXISTS.
+     *
+     * @param c the connection to use
+     * @param column the indexed column, or columns separated by ", "
+     * @param unique if true the index is unique
+     * @throws SQLException if the index cannot be created
+     */
+    static void createIndexIfMissing(Connection c, String column, boolean unique) throws SQLException {
+        if (indexOn(c, column) != null) {
+            return;
+        }
+        String name = "flashcards_" + column.replace(", ", "_") + "_" + Long.toHexString(System.nanoTime());
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name + " ON flashcards (" + column + ")");
+        }
+    }
+
+    /**
+     * Drops the index on columns of the flashcards table, if there is one.
+     *
+     * @param c the connection to use
+     * @param column the indexed column, or columns separated by ", "
+     * @throws SQLException if the index cannot be dropped
+     */
+    static void dropIndexIfPresent(Connection c, String column) throws SQLException {
+        String name = indexOn(c, column);
+        if (name != null) {
+            try (Statement s = c.createStatement()) {
+                s.executeUpdate("DROP INDEX \"" + name + "\"");
+            }
+        }
+    }
+
+    /**
+     * Finds the index on exactly the given columns of the flashcards table.
+     *
+     * @param c the connection to use
+     * @param column the indexed column, or columns separated by ", "
+     * @return the name of the index, or null if there is none
+     * @throws SQLException if the indexes cannot be listed
+     */
+    private static String indexOn(Connection c, String column) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("PRAGMA index_list(flashcards)")) {
+            while (set.next()) {
+                indexes.add(set.getString("name"));
+            }
+        }
+        for (String index : indexes) {
+            try (Statement s = c.createStatement();
+                 ResultSet set = s.executeQuery("PRAGMA index_info(\"" + index + "\")")) {
+                List<String> columns = new ArrayList<>();
+                while (set.next()) {
+                    columns.add(set.getString("name"));
+                }
+                if (String.join(", ", columns).equals(column)) {
+                    return index;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a new random flashcard uid.
+     *
+     * @return the uid
+     */
+    public static String newUid() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * Adds a column to the flashcards table of a database created
+     * before the column existed. Used by the migrations.
+     *
+     * @param c the connection to use
+     * @param column the name of the column
+     * @param definition the type and constraints of the column
+     * @throws SQLException if the table cannot be altered
+     */
+    static void addColumnIfMissing(Connection c, String column, String definition) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("PRAGMA table_info(flashcards)")) {
+            while (set.next()) {
+                if (set.getString("name").equals(column)) {
+                    return;
+                }
+            }
+        }
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("ALTER TABLE flashcards ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    /**
+     * Returns the number for a new flashcard appended to the deck.
+     * Removed flashcards keep their numbers until the compactor renumbers the deck,
+     * so the next number is derived from the highest number in use rather than
+     * from the number of flashcards.
+     *
+     * @return the next free flashcard number
+     */
+    public static int nextNumber() {
+        try {
+            return nextNumber(connection);
+        } catch (SQLException e) {
             System.out.println(e.getMessage());
+            return MainApp.flashcards.size() + 1;
         }
     }
 
@@ -102,177 +332,508 @@ public class DBconnection {
      * @param color the color associated with the flashcard
      */
     public static void addFlashcard(String question, String answer, int number, Color color) {
+        addFlashcard(question, answer, number, color, null);
+    }
+
+    /**
+     * Adds a new flashcard with an attachment to the database.
+     *
+     * @param question the text of the question
+     * @param answer the text of the answer
+     * @param number the id of the flashcard
+     * @param color the color associated with the flashcard
+     * @param attachment the content hash of the attachment, or null
+     */
+    public static void addFlashcard(String question, String answer, int number, Color color, String attachment) {
+        String uid = newUid();
+        Flashcard flashcard = new Flashcard(question, answer, number, color, attachment, uid);
+        if (shards != null) {
+            if (addFlashcards(List.of(flashcard))) {
+                DeckEvents.publish(new DeckEvents.CardAdded(flashcard));
+            }
+            return;
+        }
         try {
-            String q = "INSERT INTO flashcards (question, answer, number, color) VALUES (?, ?, ?, ?)";
+            connection.setAutoCommit(false);
+            String q = "INSERT INTO flashcards (question, answer, number, color, attachment, uid) VALUES (?, ?, ?, ?, ?, ?)";
             PreparedStatement s = connection.prepareStatement(q);
-            s.setString(1, question);
-            s.setString(2, answer);
+            TextCodec.bind(s, 1, question);
+            TextCodec.bind(s, 2, answer);
             s.setInt(3, number);
             s.setInt(4, color.getRGB());
+            s.setString(5, attachment);
+            s.setString(6, uid);
             s.executeUpdate();
-            count++;
             s.close();
+            ChangeLog.recordCards(connection, "uid = ?", uid);
+            connection.commit();
+            addCount(1);
         } catch (SQLException e) {
+            rollback();
             System.out.println(e.getMessage());
+            return;
+        } finally {
+            endTransaction();
+        }
+        DeckEvents.publish(new DeckEvents.CardAdded(flashcard));
+    }
+
+    /**
+     * Rolls back the current transaction of the connection, reporting failures.
+     */
+    private static void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Switches the connection back to auto-commit mode after a transaction.
+     */
+    private static void endTransaction() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the counter of flashcards. Flashcards are added from several
+     * threads, e.g. by the watch-folder importer.
+     *
+     * @param delta the number of added flashcards, negative for removed ones
+     */
+    static synchronized void addCount(int delta) {
+        count += delta;
+    }
+
+    /**
+     * Adds a batch of flashcards in one transaction, or in one transaction
+     * per shard written in parallel when sharding is enabled.
+     *
+     * @param flashcards the flashcards to add, with their numbers assigned
+     * @return true if all flashcards were added
+     */
+    public static boolean addFlashcards(List<Flashcard> flashcards) {
+        try {
+            if (shards != null) {
+                shards.addAll(flashcards);
+                addCount(flashcards.size());
+                return true;
+            }
+            connection.setAutoCommit(false);
+            addFlashcards(connection, flashcards);
+            connection.commit();
+            addCount(flashcards.size());
+            return true;
+        } catch (SQLException e) {
+            if (shards == null) {
+                rollback();
+            }
+            System.out.println(e.getMessage());
+            return false;
+        } finally {
+            if (shards == null) {
+                endTransaction();
+            }
+        }
+    }
+
+    /**
+     * Adds a batch of flashcards using the given connection. The caller
+     * controls the transaction, so the batch can be committed together
+     * with other changes, and counts the flashcards (see addCount) once
+     * it has committed. Flashcards without a uid are given a new one.
+     *
+     * @param c the connection to use
+     * @param flashcards the flashcards to add
+     * @throws SQLException if the flashcards cannot be added
+     */
+    public static void addFlashcards(Connection c, List<Flashcard> flashcards) throws SQLException {
+        long lastId;
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT COALESCE(MAX(id), 0) FROM flashcards")) {
+            lastId = set.next() ? set.getLong(1) : 0;
+        }
+        String q = "INSERT INTO flashcards (question, answer, number, color, attachment, uid) VALUES (?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement s = c.prepareStatement(q)) {
+            for (Flashcard flashcard : flashcards) {
+                TextCodec.bind(s, 1, flashcard.getQuestion());
+                TextCodec.bind(s, 2, flashcard.getAnswer());
+                s.setInt(3, flashcard.getNumber());
+                s.setInt(4, flashcard.getColor().getRGB());
+                s.setString(5, flashcard.getAttachment());
+                s.setString(6, flashcard.getUid() != null ? flashcard.getUid() : newUid());
+                s.addBatch();
+            }
+            s.executeBatch();
+        }
+        ChangeLog.recordCards(c, "id > ?", lastId);
+    }
+
+    /**
+     * Returns the number for a new flashcard appended to the deck,
+     * read through the given connection.
+     *
+     * @param c the connection to use
+     * @return the next free flashcard number
+     * @throws SQLException if the number cannot be read
+     */
+    public static int nextNumber(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT COALESCE(MAX(number), 0) + 1 FROM " + deckTable())) {
+            return set.next() ? set.getInt(1) : 1;
         }
     }
 
     /**
-     * Opens a confirmation dialog and removes a flashcard from the database.
+     * Marks a flashcard as removed. The row itself and the renumbering of the
+     * following flashcards are left to the compactor.
      *
      * @param flashcard the flashcard to remove
      */
     public static void removeFlashcard(Flashcard flashcard) {
-        JDialog dialog = new JDialog();
-        JPanel textPanel = new JPanel(new GridBagLayout());
-        JTextArea label = new JTextArea("Do you want to remove this question?");
-        label.setFont(new Font("Arial", Font.BOLD, 18));
-        label.setWrapStyleWord(true);
-        label.setLineWrap(true);
-        label.setOpaque(false); 
-        label.setEditable(false);
-        label.setFocusable(false);
-        label.setBorder(BorderFactory.createEmptyBorder(60, 40,60,10));
-        textPanel.add(label);
-
-        JPanel buttonPanel = new JPanel();
-        JButton yesButton = new JButton("Yes");
-        JButton noButton = new JButton("No");
-        buttonPanel.setLayout(new FlowLayout()); 
-        buttonPanel.add(yesButton);
-        buttonPanel.add(noButton);
-
-        dialog.setSize(400, 300);
-        dialog.setLocationRelativeTo(null);
-        dialog.setTitle("Confirm removal");
-        dialog.getContentPane().add(label, BorderLayout.CENTER);
-        dialog.getContentPane().add(buttonPanel, BorderLayout.SOUTH); 
-        dialog.setVisible(true);
-
-        /**
-         * Behaviour when the "Yes" button is clicked - delete the question 
-         * from the database, update the card text area.
-         */
-        yesButton.addActionListener((ActionEvent e) -> {
-            try {
-                connection.setAutoCommit(false); 
-
-                String deleteQuery = "DELETE FROM flashcards WHERE question = ? AND answer = ?";
-                PreparedStatement deleteStatement = connection.prepareStatement(deleteQuery);
-                deleteStatement.setString(1, flashcard.getQuestion());
-                deleteStatement.setString(2, flashcard.getAnswer());
-                deleteStatement.executeUpdate();
-                deleteStatement.close();
-     
-                String updateQuery = "UPDATE flashcards SET number = number - 1 WHERE number > ?";
-                PreparedStatement updateStatement = connection.prepareStatement(updateQuery);
-                updateStatement.setInt(1, flashcard.getNumber()); 
-                updateStatement.executeUpdate();
-                updateStatement.close();
-        
-                connection.commit();
-                connection.setAutoCommit(true);
-        
-                loadFlashcards();
-                if (MainApp.currentCardIndex >= MainApp.flashcards.size()) {
-                    MainApp.currentCardIndex = MainApp.flashcards.size() - 1;
+        try {
+            if (setDeleted(flashcard, true)) {
+                lastRemoved = flashcard;
+                addCount(-1);
+                DeckEvents.publish(new DeckEvents.CardRemoved(flashcard));
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Restores the most recently removed flashcard, if the compactor
+     * has not purged it yet.
+     *
+     * @return the restored flashcard, or null if there was nothing to restore
+     */
+    public static Flashcard undoRemove() {
+        if (lastRemoved == null) {
+            return null;
+        }
+        try {
+            Flashcard restored = setDeleted(lastRemoved, false) ? lastRemoved : null;
+            lastRemoved = null;
+            if (restored != null) {
+                addCount(1);
+                DeckEvents.publish(new DeckEvents.CardAdded(restored, true));
+            }
+            return restored;
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Sets or clears the deleted flag of a flashcard and records the change,
+     * in one transaction. With sharding, the shard the uid hashes to is tried
+     * first, then the others, since imported files may place flashcards in the main file.
+     *
+     * @param flashcard the flashcard
+     * @param deleted the new value of the flag
+     * @return true if the flag was changed
+     * @throws SQLException if the flag cannot be changed
+     */
+    private static boolean setDeleted(Flashcard flashcard, boolean deleted) throws SQLException {
+        if (flashcard.getUid() == null) {
+            throw new SQLException("The flashcard is still being upgraded, try again in a moment");
+        }
+        int shardCount = shards != null ? shards.size() : 1;
+        int first = shards != null ? shards.shardOf(flashcard.getUid()) : 0;
+        try {
+            connection.setAutoCommit(false);
+            boolean changed = false;
+            for (int i = 0; i < shardCount && !changed; i++) {
+                String schema = ShardedStore.schema((first + i) % shardCount);
+                String q = "UPDATE " + schema + ".flashcards SET deleted = ? WHERE uid = ? AND deleted = ?";
+                try (PreparedStatement s = connection.prepareStatement(q)) {
+                    s.setInt(1, deleted ? 1 : 0);
+                    s.setString(2, flashcard.getUid());
+                    s.setInt(3, deleted ? 0 : 1);
+                    changed = s.executeUpdate() > 0;
+                }
+            }
+            if (changed) {
+                ChangeLog.recordCards(connection, "uid = ?", flashcard.getUid());
+            }
+            connection.commit();
+            return changed;
+        } catch (SQLException e) {
+            rollback();
+            throw e;
+        } finally {
+            endTransaction();
+        }
+    }
+
+    /**
+     * Changes the question and answer of a flashcard, found by its uid, see editFlashcards.
+     *
+     * @param flashcard the flashcard
+     * @param question the new question
+     * @param answer the new answer
+     * @return the updated flashcard, or null if it could not be updated
+     */
+    public static Flashcard updateFlashcard(Flashcard flashcard, String question, String answer) {
+        List<Flashcard> updated = editFlashcards(List.of(flashcard.withText(question, answer)));
+        return updated.isEmpty() ? null : updated.get(0);
+    }
+
+    /**
+     * Changes the questions and answers of flashcards in one transaction. The edits
+     * are written into a temporary table in one batch and applied with one UPDATE
+     * per table, and the changes are recorded with one statement, so the cost does
+     * not grow with round trips. The edited flashcards are published as CardsUpdated.
+     *
+     * Flashcards are found by their uids, which the compactor and merged changes
+     * do not change. An edit without a uid is resolved by its number in the same
+     * transaction; the whole edit fails if such a number is shared by several
+     * flashcards.
+     *
+     * @param edits flashcards with the uids (or numbers) of the flashcards to change and their new question and answer
+     * @return the updated flashcards in number order, empty if nothing was updated
+     */
+    public static List<Flashcard> editFlashcards(List<Flashcard> edits) {
+        List<Flashcard> updated = new ArrayList<>();
+        if (edits.isEmpty()) {
+            return updated;
+        }
+        String edited = "deleted = 0 AND uid IN (SELECT uid FROM temp.card_edits)";
+        try (Statement s = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            s.executeUpdate("CREATE TEMP TABLE IF NOT EXISTS card_edits (uid TEXT UNIQUE, number INTEGER, question, answer)");
+            s.executeUpdate("DELETE FROM temp.card_edits");
+            try (PreparedStatement p = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO temp.card_edits (uid, number, question, answer) VALUES (?, ?, ?, ?)")) {
+                for (Flashcard edit : edits) {
+                    p.setString(1, edit.getUid());
+                    p.setInt(2, edit.getNumber());
+                    TextCodec.bind(p, 3, edit.getQuestion());
+                    TextCodec.bind(p, 4, edit.getAnswer());
+                    p.addBatch();
                 }
-                MainApp.currentCardIndex = Math.max(0, MainApp.currentCardIndex - 1);
-                MainApp.updateCard(MainApp.cardTextArea);
-                dialog.dispose();
-                count--;
-            } catch (SQLException ex) {
-                try {
-                    connection.rollback(); 
-                } catch (SQLException rollbackEx) {
-                    System.out.println(rollbackEx.getMessage());
+                p.executeBatch();
+            }
+            try (ResultSet set = s.executeQuery("SELECT e.number FROM temp.card_edits e JOIN " + deckTable()
+                    + " f ON f.number = e.number AND f.deleted = 0 WHERE e.uid IS NULL"
+                    + " GROUP BY e.rowid HAVING COUNT(*) > 1 LIMIT 1")) {
+                if (set.next()) {
+                    throw new SQLException("Flashcard number " + set.getInt(1)
+                            + " is shared by several flashcards, edit them by their uids");
                 }
-               System.out.println(ex.getMessage());
             }
-        });
-
-        /**
-         * Behaviour when the "No" button is clicked - cancel deletion,
-         * just close the dialog window.
-         */
-        noButton.addActionListener((ActionEvent e) -> {
-            dialog.dispose();
-        });
-    }
-
-    /**
-     * Opens a confirmation dialog and removes all flashcards from the database.
-     *
-     * @param force if true deletion is executed without user confirmation
-     * (used for clearing the database if needed before initializing UI)
-     */
-    public static void removeAll(boolean force) {
-        JDialog dialog = new JDialog();
-        JPanel textPanel = new JPanel(new GridBagLayout());
-        JTextArea label = new JTextArea("Do you want to remove everything?");
-        label.setFont(new Font("Arial", Font.BOLD, 18));
-        label.setWrapStyleWord(true);
-        label.setLineWrap(true);
-        label.setOpaque(false); 
-        label.setEditable(false);
-        label.setFocusable(false);
-        label.setBorder(BorderFactory.createEmptyBorder(60, 40,60,20)); 
-        textPanel.add(label);
-
-        JPanel buttonPanel = new JPanel();
-        JButton yesButton = new JButton("Yes");
-        JButton noButton = new JButton("No");
-        buttonPanel.setLayout(new FlowLayout()); 
-        buttonPanel.add(yesButton);
-        buttonPanel.add(noButton);
-        dialog.setSize(400, 300);
-        dialog.setLocationRelativeTo(null);
-        dialog.setTitle("Confirm removal");
-        dialog.getContentPane().add(label, BorderLayout.CENTER);
-        dialog.getContentPane().add(buttonPanel, BorderLayout.SOUTH); 
-        dialog.setVisible(true);
-
-         /**
-         * Behaviour when the "Yes" button is clicked - delete everything 
-         * from the database, update the card text area.
-         */
-        yesButton.addActionListener((ActionEvent e) -> {
-            String q = "DELETE FROM flashcards"; 
-            try (Statement s = connection.createStatement()) {
-                s.executeUpdate(q); 
-                s.close();
-                MainApp.flashcards = new ArrayList<>();
-                MainApp.currentCardIndex = 0;
-                MainApp.updateCard(MainApp.cardTextArea);
-                dialog.dispose();
-                
-            } catch (Exception ex) {
-                System.out.println(ex.getMessage());
+            s.executeUpdate("UPDATE OR REPLACE temp.card_edits SET uid = (SELECT f.uid FROM " + deckTable()
+                    + " f WHERE f.number = card_edits.number AND f.deleted = 0) WHERE uid IS NULL");
+            for (String table : deckTables()) {
+                s.executeUpdate("UPDATE " + table + " SET (question, answer) = "
+                        + "(SELECT e.question, e.answer FROM temp.card_edits e WHERE e.uid = flashcards.uid) "
+                        + "WHERE " + edited);
+            }
+            ChangeLog.recordCards(connection, edited);
+            TextCodec.PageBuilder pages = new TextCodec.PageBuilder();
+            try (ResultSet set = s.executeQuery("SELECT question, answer, number, color, attachment, uid FROM "
+                    + deckTable() + " WHERE " + edited + " ORDER BY number")) {
+                while (set.next()) {
+                    updated.add(pages.add(TextCodec.raw(set, 1), TextCodec.raw(set, 2), set.getInt(3),
+                            new Color(set.getInt(4)), set.getString(5), set.getString(6)));
+                }
             }
-            count = 0;
-        });
+            s.executeUpdate("DELETE FROM temp.card_edits");
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            System.out.println(e.getMessage());
+            return new ArrayList<>();
+        } finally {
+            endTransaction();
+        }
+        if (!updated.isEmpty()) {
+            DeckEvents.publish(new DeckEvents.CardsUpdated(updated));
+        }
+        return updated;
+    }
 
-        /**
-         * Behaviour when the "No" button is clicked - cancel deletion,
-         * just close the dialog window.
-         */
-        noButton.addActionListener((ActionEvent e) -> {
-            dialog.dispose();
-        });
+    /**
+     * Gives all flashcards numbered in a range one color, with one UPDATE per table
+     * in one transaction.
+     *
+     * @param fromNumber the first number of the range
+     * @param toNumber the last number of the range
+     * @param color the new color
+     * @return the number of recolored flashcards
+     */
+    public static int recolor(int fromNumber, int toNumber, Color color) {
+        String range = "deleted = 0 AND number BETWEEN ? AND ?";
+        int changed = 0;
+        try {
+            connection.setAutoCommit(false);
+            for (String table : deckTables()) {
+                try (PreparedStatement s = connection.prepareStatement(
+                        "UPDATE " + table + " SET color = ? WHERE " + range)) {
+                    s.setInt(1, color.getRGB());
+                    s.setInt(2, fromNumber);
+                    s.setInt(3, toNumber);
+                    changed += s.executeUpdate();
+                }
+            }
+            ChangeLog.recordCards(connection, range, fromNumber, toNumber);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            System.out.println(e.getMessage());
+            return 0;
+        } finally {
+            endTransaction();
+        }
+        if (changed > 0) {
+            DeckEvents.publish(new DeckEvents.RangeRecolored(fromNumber, toNumber, color));
+        }
+        return changed;
+    }
+
+    /**
+     * Moves the flashcards numbered in a range so that the first of them gets the
+     * target number, keeping their order. The flashcards between the old and the new
+     * place shift by the length of the range to make room. The whole deck keeps its
+     * numbers unique, since the numbers of the affected interval are only rotated.
+     * This is one UPDATE per table and one statement recording the changes, in one
+     * transaction, however many flashcards move. Removed flashcards move with their
+     * neighbours, so they are restored at the same place.
+     *
+     * @param fromNumber the first number of the range
+     * @param toNumber the last number of the range
+     * @param target the new number of the first flashcard of the range
+     * @return the number of renumbered rows
+     */
+    public static int moveRange(int fromNumber, int toNumber, int target) {
+        if (fromNumber > toNumber || target < 1) {
+            System.out.println("Invalid range to move");
+            return 0;
+        }
+        int delta = target - fromNumber;
+        if (delta == 0) {
+            return 0;
+        }
+        int length = toNumber - fromNumber + 1;
+        int low = delta > 0 ? fromNumber : target;
+        int high = delta > 0 ? toNumber + delta : toNumber;
+        int changed = 0;
+        try {
+            connection.setAutoCommit(false);
+            for (String table : deckTables()) {
+                try (PreparedStatement s = connection.prepareStatement("UPDATE " + table + " SET number = "
+                        + "CASE WHEN number BETWEEN ? AND ? THEN number + ? ELSE number + ? END "
+                        + "WHERE number BETWEEN ? AND ?")) {
+                    s.setInt(1, fromNumber);
+                    s.setInt(2, toNumber);
+                    s.setInt(3, delta);
+                    s.setInt(4, delta > 0 ? -length : length);
+                    s.setInt(5, low);
+                    s.setInt(6, high);
+                    changed += s.executeUpdate();
+                }
+            }
+            ChangeLog.recordCards(connection, "number BETWEEN ? AND ?", low, high);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            System.out.println(e.getMessage());
+            return 0;
+        } finally {
+            endTransaction();
+        }
+        if (changed > 0) {
+            DeckEvents.publish(new DeckEvents.RangeMoved(fromNumber, toNumber, target));
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the number a flashcard gets when a range is moved, see moveRange.
+     *
+     * @param number the number of the flashcard
+     * @param fromNumber the first number of the moved range
+     * @param toNumber the last number of the moved range
+     * @param target the new number of the first flashcard of the range
+     * @return the new number of the flashcard
+     */
+    public static int movedNumber(int number, int fromNumber, int toNumber, int target) {
+        int delta = target - fromNumber;
+        int length = toNumber - fromNumber + 1;
+        if (number >= fromNumber && number <= toNumber) {
+            return number + delta;
+        }
+        if (delta > 0 && number > toNumber && number <= toNumber + delta) {
+            return number - length;
+        }
+        if (delta < 0 && number >= target && number < fromNumber) {
+            return number + length;
+        }
+        return number;
+    }
 
-        /**
-         * In case there is a need to delete a database, but the user interface is not active yet
-         * and the user cannot confirm the deletion, force the deletion.
-         * This situation happens when the user chooses to work with a new database, instead of
-         * continue working with the latest created one.
-         */
-        if (force) {
-            yesButton.doClick();
+    /**
+     * Returns the tables holding flashcards in the connection: the flashcards
+     * table, or the flashcards table of every shard.
+     */
+    private static List<String> deckTables() {
+        List<String> tables = new ArrayList<>();
+        if (shards == null) {
+            tables.add("flashcards");
+        } else {
+            for (int i = 0; i < shards.size(); i++) {
+                tables.add(ShardedStore.schema(i) + ".flashcards");
+            }
         }
+        return tables;
     }
 
     /**
-     * Loads all flashcards from the database into the application's flashcard list.
+     * Removes all flashcards from the database. The table is swapped for an
+     * empty one and the old table is dropped later by the compactor, so the
+     * removal does not depend on the size of the deck.
+     */
+    public static void removeAll() {
+        String q = "ALTER TABLE flashcards RENAME TO " + DeckCompactor.TRASH_PREFIX + System.nanoTime(); 
+        try (Statement s = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            s.executeUpdate(q); 
+            createFlashcardsTable(connection);
+            if (shards != null) {
+                for (int i = 1; i < shards.size(); i++) {
+                    s.executeUpdate("UPDATE " + ShardedStore.schema(i) + ".flashcards SET deleted = 1 WHERE deleted = 0");
+                }
+                shards.createView(connection);
+            }
+            ChangeLog.record(connection, ChangeLog.CLEAR);
+            connection.commit();
+            connection.setAutoCommit(true);
+            lastRemoved = null;
+            synchronized (DBconnection.class) {
+                count = 0;
+            }
+            DeckEvents.publish(new DeckEvents.DeckCleared());
+        } catch (Exception ex) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException rollbackEx) {
+                System.out.println(rollbackEx.getMessage());
+            }
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * Loads all flashcards that are not marked as removed from the database
+     * into the application's flashcard list.
      */
     public static void loadFlashcards() {
         if (connection == null) {
@@ -280,18 +841,103 @@ public class DBconnection {
             return;
         }
         MainApp.flashcards.clear();
-        try (PreparedStatement s = connection.prepareStatement("SELECT * FROM flashcards")) {
-            ResultSet set = s.executeQuery();
-            while (set.next()) {
-                String question = set.getString("question");
-                String answer = set.getString("answer");
-                int number = set.getInt("number");
-                int rgb = set.getInt("color"); 
-                Color color = new Color(rgb);
-                MainApp.flashcards.add(new Flashcard(question, answer, number, color));
-            }
-        } catch (Exception e) {
+        try {
+            MainApp.flashcards.addAll(readDeck(connection));
+        } catch (SQLException e) {
             System.out.println(e.getMessage());
         }
     }
+
+    /**
+     * Reads all flashcards that are not marked as removed, ordered by their
+     * numbers, without touching the application's flashcard list, so the deck
+     * can be read on a background thread with its own connection.
+     *
+     * @param c the connection to use
+     * @return the flashcards
+     * @throws SQLException if the deck cannot be read
+     */
+    public static List<Flashcard> readDeck(Connection c) throws SQLException {
+        if (shards != null) {
+            return shards.load(c);
+        }
+        List<Flashcard> deck = new ArrayList<>();
+        try (DeckCursor cursor = openCursor(c, DeckCursor.Projection.FULL, DeckCursor.DEFAULT_FETCH_SIZE)) {
+            while (cursor.next()) {
+                deck.add(cursor.get());
+            }
+        }
+        return deck;
+    }
+
+    /**
+     * Opens a forward-only cursor over all flashcards that are not removed,
+     * ordered by their numbers and uids.
+     *
+     * @param c the connection to use
+     * @param projection the columns to read
+     * @param fetchSize the number of rows fetched from the database at once
+     * @return the cursor, to be closed by the caller
+     * @throws SQLException if the query fails
+     */
+    public static DeckCursor openCursor(Connection c, DeckCursor.Projection projection,
+                                        int fetchSize) throws SQLException {
+        return openCursor(c, projection, Integer.MIN_VALUE, "", fetchSize);
+    }
+
+    /**
+     * Opens a forward-only cursor over the flashcards that are not removed,
+     * ordered by their numbers and uids, starting after the given flashcard.
+     *
+     * @param c the connection to use
+     * @param projection the columns to read
+     * @param afterNumber the number of the flashcard the cursor starts after
+     * @param afterUid the uid of the flashcard the cursor starts after
+     * @param fetchSize the number of rows fetched from the database at once
+     * @return the cursor, to be closed by the caller
+     * @throws SQLException if the query fails
+     */
+    public static DeckCursor openCursor(Connection c, DeckCursor.Projection projection, int afterNumber,
+                                        String afterUid, int fetchSize) throws SQLException {
+        return new DeckCursor(c, projection, afterNumber, afterUid, 0, fetchSize);
+    }
+
+    /**
+     * Reads the first page of the flashcards that are not removed, see readPage.
+     *
+     * @param c the connection to use
+     * @param projection the columns to read
+     * @param limit the maximum number of flashcards in the page
+     * @return the flashcards of the page
+     * @throws SQLException if the query fails
+     */
+    public static List<Flashcard> readPage(Connection c, DeckCursor.Projection projection,
+                                           int limit) throws SQLException {
+        return readPage(c, projection, Integer.MIN_VALUE, "", limit);
+    }
+
+    /**
+     * Reads one page of the flashcards that are not removed, ordered by their
+     * numbers and uids (keyset pagination). The next page starts after the
+     * number and uid of the last flashcard of this one, so flashcards sharing
+     * a number are neither skipped nor repeated at a page boundary.
+     *
+     * @param c the connection to use
+     * @param projection the columns to read
+     * @param afterNumber the number of the flashcard the page starts after
+     * @param afterUid the uid of the flashcard the page starts after
+     * @param limit the maximum number of flashcards in the page
+     * @return the flashcards of the page, empty after the last page
+     * @throws SQLException if the query fails
+     */
+    public static List<Flashcard> readPage(Connection c, DeckCursor.Projection projection, int afterNumber,
+                                           String afterUid, int limit) throws SQLException {
+        List<Flashcard> page = new ArrayList<>(Math.min(limit, DeckCursor.DEFAULT_FETCH_SIZE));
+        try (DeckCursor cursor = new DeckCursor(c, projection, afterNumber, afterUid, limit, limit)) {
+            while (cursor.next()) {
+                page.add(cursor.get());
+            }
+        }
+        return page;
+    }
 }
@@ -0,0 +1,313 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for database access and scheduling.
+ */
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cleans up the flashcards database in the background while the application is idle.
+ *
+ * Removing a flashcard only marks it as deleted, and removing all flashcards only
+ * swaps the table for an empty one. The compactor later drops the swapped-out tables,
+ * purges the marked rows together with the attachments and statistics no flashcard
+ * refers to any more, renumbers the remaining flashcards and returns the freed pages
+ * to the file system.
+ * Every step works in small chunks on its own connection and stops as soon as the
+ * user becomes active again. The deck is renumbered only once no removed flashcard
+ * is left, so a live flashcard never takes the number of a removed one that could
+ * still be restored. With sharding every shard is purged and vacuumed, and
+ * the deck is not renumbered, since numbers only need to stay unique across the shards.
+ */
+public class DeckCompactor {
+
+    /** Name prefix of the tables swapped out by DBconnection.removeAll. */
+    public static final String TRASH_PREFIX = "flashcards_trash_";
+
+    /** Time without user input after which the application counts as idle, in milliseconds. */
+    private static final long IDLE_MILLIS = 30_000;
+
+    /** Interval between idle checks, in milliseconds. */
+    private static final long CHECK_MILLIS = 10_000;
+
+    /** Number of rows purged or renumbered per transaction. */
+    private static final int CHUNK_SIZE = 500;
+
+    /** Number of free pages returned per incremental vacuum step. */
+    private static final int VACUUM_PAGES = 256;
+
+    /** Time of the last user input. */
+    private static volatile long lastActivity = System.currentTimeMillis();
+
+    /** Executor running the compaction passes. */
+    private static ScheduledExecutorService executor;
+
+    /**
+     * Starts the periodic compaction in a background daemon thread.
+     */
+    public static synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "deck-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            if (isIdle()) {
+                compact();
+            }
+        }, CHECK_MILLIS, CHECK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic compaction.
+     */
+    public static synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Records user activity, postponing the compaction.
+     */
+    public static void touch() {
+        lastActivity = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns whether the user has been inactive long enough to compact.
+     *
+     * @return true if the application is idle
+     */
+    private static boolean isIdle() {
+        return System.currentTimeMillis() - lastActivity >= IDLE_MILLIS;
+    }
+
+    /**
+     * Runs one compaction pass and publishes a DeckChanged event if the
+     * numbers of the flashcards have changed.
+     */
+    public static void compact() {
+        try (Connection c = DBconnection.openConnection()) {
+            compact(c, DeckCompactor::isIdle);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one compaction pass on the given connection.
+     *
+     * @param c the connection to use
+     * @param proceed checked before every step and chunk, the pass stops when it returns false
+     * @throws SQLException if the database cannot be compacted
+     */
+    static void compact(Connection c, BooleanSupplier proceed) throws SQLException {
+        ShardedStore shards = DBconnection.getShards();
+        int shardCount = shards != null ? shards.size() : 1;
+        dropTrashTables(c, proceed);
+        long purged = 0;
+        for (int i = 0; i < shardCount; i++) {
+            purged += purgeTombstones(c, ShardedStore.schema(i), proceed);
+        }
+        if (purged > 0) {
+            AttachmentStore.purgeUnreferenced(c);
+            StudyStats.purgeUnreferenced(c);
+        }
+        long renumbered = 0;
+        if (shards == null && !hasTombstones(c)) {
+            renumbered = renumber(c, proceed);
+            if (renumbered > 0) {
+                ChangeLog.record(c, ChangeLog.RENUMBER);
+            }
+        }
+        for (int i = 0; i < shardCount; i++) {
+            vacuum(c, ShardedStore.schema(i), proceed);
+        }
+        if (purged > 0 || renumbered > 0) {
+            DeckEvents.publish(new DeckEvents.DeckChanged());
+        }
+    }
+
+    /**
+     * Drops the tables swapped out by removing all flashcards.
+     */
+    private static void dropTrashTables(Connection c, BooleanSupplier proceed) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (PreparedStatement s = c.prepareStatement(
+                "SELECT name FROM sqlite_master WHERE type = 'table' AND name LIKE ?")) {
+            s.setString(1, TRASH_PREFIX + "%");
+            try (ResultSet set = s.executeQuery()) {
+                while (set.next()) {
+                    tables.add(set.getString(1));
+                }
+            }
+        }
+        for (String table : tables) {
+            if (!proceed.getAsBoolean()) {
+                return;
+            }
+            try (Statement s = c.createStatement()) {
+                s.executeUpdate("DROP TABLE \"" + table + "\"");
+            }
+        }
+    }
+
+    /**
+     * Deletes the rows of removed flashcards of one shard, one chunk per transaction.
+     *
+     * @param schema the schema of the shard, "main" without sharding
+     * @return the number of deleted rows
+     */
+    private static long purgeTombstones(Connection c, String schema, BooleanSupplier proceed) throws SQLException {
+        long purged = 0;
+        String q = "DELETE FROM " + schema + ".flashcards WHERE id IN "
+                + "(SELECT id FROM " + schema + ".flashcards WHERE deleted = 1 LIMIT ?)";
+        try (PreparedStatement s = c.prepareStatement(q)) {
+            s.setInt(1, CHUNK_SIZE);
+            int deleted = CHUNK_SIZE;
+            while (deleted == CHUNK_SIZE && proceed.getAsBoolean()) {
+                deleted = s.executeUpdate();
+                purged += deleted;
+            }
+        }
+        return purged;
+    }
+
+    /**
+     * Returns whether rows of removed flashcards are left, e.g. because
+     * purging them was interrupted.
+     */
+    private static boolean hasTombstones(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT EXISTS (SELECT 1 FROM flashcards WHERE deleted = 1)")) {
+            return set.next() && set.getInt(1) == 1;
+        }
+    }
+
+    /**
+     * Renumbers the flashcards so that their numbers are 1..n again.
+     * The deck is walked in number order with a keyset on (number, uid),
+     * which orders the flashcards the same way in every copy of the database;
+     * renumbering only lowers numbers, so rows already processed never
+     * reappear after the keyset. The new numbers of every chunk are recorded
+     * in the change log in the same transaction, so copies of the database
+     * receive them as ordinary changes (see DeckSync).
+     *
+     * @param c the connection to use
+     * @param proceed checked before every chunk, renumbering stops when it returns false
+     * @return the number of renumbered rows
+     * @throws SQLException if the flashcards cannot be renumbered
+     */
+    static long renumber(Connection c, BooleanSupplier proceed) throws SQLException {
+        long renumbered = 0;
+        int expected = 0;
+        int lastNumber = Integer.MIN_VALUE;
+        String lastUid = "";
+        String select = "SELECT uid, number FROM flashcards WHERE deleted = 0 "
+                + "AND (number > ? OR (number = ? AND uid > ?)) ORDER BY number, uid LIMIT ?";
+        String update = "UPDATE flashcards SET number = ? WHERE uid = ?";
+        try (PreparedStatement s = c.prepareStatement(select);
+             PreparedStatement u = c.prepareStatement(update)) {
+            while (proceed.getAsBoolean()) {
+                s.setInt(1, lastNumber);
+                s.setInt(2, lastNumber);
+                s.setString(3, lastUid);
+                s.setInt(4, CHUNK_SIZE);
+                int rows = 0;
+                List<String> changed = new ArrayList<>();
+                try (ResultSet set = s.executeQuery()) {
+                    while (set.next()) {
+                        rows++;
+                        lastUid = set.getString(1);
+                        lastNumber = set.getInt(2);
+                        expected++;
+                        if (lastNumber != expected) {
+                            u.setInt(1, expected);
+                            u.setString(2, lastUid);
+                            u.addBatch();
+                            changed.add(lastUid);
+                        }
+                    }
+                }
+                if (!changed.isEmpty()) {
+                    c.setAutoCommit(false);
+                    try {
+                        u.executeBatch();
+                        String placeholders = "?" + ", ?".repeat(changed.size() - 1);
+                        ChangeLog.recordCards(c, "uid IN (" + placeholders + ")", changed.toArray());
+                        c.commit();
+                    } catch (SQLException e) {
+                        c.rollback();
+                        throw e;
+                    } finally {
+                        c.setAutoCommit(true);
+                    }
+                    renumbered += changed.size();
+                }
+                if (rows < CHUNK_SIZE) {
+                    break;
+                }
+            }
+        }
+        return renumbered;
+    }
+
+    /**
+     * Returns free pages of one shard to the file system in small incremental steps.
+     * Databases created before incremental auto-vacuum was enabled keep
+     * their free pages for reuse instead.
+     *
+     * @param schema the schema of the shard, "main" without sharding
+     */
+    private static void vacuum(Connection c, String schema, BooleanSupplier proceed) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            while (proceed.getAsBoolean()) {
+                int free;
+                try (ResultSet set = s.executeQuery("PRAGMA " + schema + ".freelist_count")) {
+                    free = set.next() ? set.getInt(1) : 0;
+                }
+                if (free == 0) {
+                    return;
+                }
+                s.execute("PRAGMA " + schema + ".incremental_vacuum(" + VACUUM_PAGES + ")");
+                try (ResultSet set = s.executeQuery("PRAGMA " + schema + ".freelist_count")) {
+                    if (set.next() && set.getInt(1) >= free) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for database access.
+ */
+import java.awt.Color;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forward-only cursor over the flashcards that are not removed, in the order
+ * of their numbers.
+ *
+ * The cursor starts after a given flashcard, so a deck can be read page by page
+ * (keyset pagination): the next page starts after the last flashcard of the
+ * previous one, and every page is an index range scan regardless of how far
+ * into the deck it is. Numbers are not unique (flashcards merged from another
+ * device may share one until the compactor renumbers them), so the key is the
+ * number and the uid, in the order DeckCompactor renumbers by. The rows are
+ * fetched from the database in batches of the fetch size while the cursor
+ * moves, so the deck is never held in memory as a whole. A projection selects
+ * the columns that are read; columns outside of it are null in the returned
+ * flashcards (the color too). The number and uid are always read, as they are
+ * the key.
+ *
+ * Cursors are opened with DBconnection.openCursor or read page by page with
+ * DBconnection.readPage, and must be closed.
+ */
+public class DeckCursor implements AutoCloseable {
+
+    /** Number of rows fetched from the database at once, unless given. */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * The columns read by a cursor.
+     */
+    public enum Projection {
+        /** All columns of a flashcard. */
+        FULL("question", "answer", "number", "color", "attachment", "uid"),
+        /** The text, number and color, for example for exports. */
+        CONTENT("question", "answer", "number", "color", "uid"),
+        /** The number and uid only, for example for statistics and sampling. */
+        KEYS("number", "uid"),
+        /** The number and answer, for grading. */
+        ANSWERS("number", "answer", "uid");
+
+        /** The columns, in select order. */
+        private final List<String> columns;
+
+        Projection(String... columns) {
+            this.columns = Arrays.asList(columns);
+        }
+
+        /**
+         * Returns the 1-based index of a column in the select list.
+         *
+         * @param column the column
+         * @return the index, or 0 if the column is not read
+         */
+        int indexOf(String column) {
+            return columns.indexOf(column) + 1;
+        }
+
+        /**
+         * Returns the select list.
+         *
+         * @return the columns separated by commas
+         */
+        String selectList() {
+            return String.join(", ", columns);
+        }
+    }
+
+    /** The query. */
+    private final PreparedStatement statement;
+
+    /** The rows. */
+    private final ResultSet set;
+
+    /** Column index of the question, 0 if it is not read. */
+    private final int question;
+
+    /** Column index of the answer, 0 if it is not read. */
+    private final int answer;
+
+    /** Column index of the number. */
+    private final int number;
+
+    /** Column index of the color, 0 if it is not read. */
+    private final int color;
+
+    /** Column index of the attachment, 0 if it is not read. */
+    private final int attachment;
+
+    /** Column index of the uid. */
+    private final int uid;
+
+    /** Groups compressed texts into pages decoded together. */
+    private final TextCodec.PageBuilder pages = new TextCodec.PageBuilder();
+
+    /** The number of the current flashcard. */
+    private int lastNumber;
+
+    /** The uid of the current flashcard. */
+    private String lastUid;
+
+    /**
+     * Opens a cursor.
+     *
+     * @param c the connection to use
+     * @param projection the columns to read
+     * @param afterNumber the number of the flashcard the cursor starts after
+     * @param afterUid the uid of the flashcard the cursor starts after
+     * @param limit the maximum number of flashcards, or 0 for no limit
+     * @param fetchSize the number of rows fetched at once
+     * @throws SQLException if the query fails
+     */
+    DeckCursor(Connection c, Projection projection, int afterNumber, String afterUid, int limit, int fetchSize)
+            throws SQLException {
+        String q = "SELECT " + projection.selectList() + " FROM " + DBconnection.deckTable()
+                + " WHERE deleted = 0 AND (number > ? OR (number = ? AND uid > ?)) ORDER BY number, uid"
+                + (limit > 0 ? " LIMIT ?" : "");
+        statement = c.prepareStatement(q, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        try {
+            statement.setFetchSize(fetchSize);
+            statement.setInt(1, afterNumber);
+            statement.setInt(2, afterNumber);
+            statement.setString(3, afterUid);
+            if (limit > 0) {
+                statement.setInt(4, limit);
+            }
+            set = statement.executeQuery();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        question = projection.indexOf("question");
+        answer = projection.indexOf("answer");
+        number = projection.indexOf("number");
+        color = projection.indexOf("color");
+        attachment = projection.indexOf("attachment");
+        uid = projection.indexOf("uid");
+        lastNumber = afterNumber;
+        lastUid = afterUid;
+    }
+
+    /**
+     * Moves to the next flashcard.
+     *
+     * @return false if there are no more flashcards
+     * @throws SQLException if the next row cannot be read
+     */
+    public boolean next() throws SQLException {
+        if (!set.next()) {
+            return false;
+        }
+        lastNumber = set.getInt(number);
+        lastUid = set.getString(uid);
+        return true;
+    }
+
+    /**
+     * Returns the current flashcard. Compressed text is decoded lazily, a page
+     * of flashcards at a time, like in the loaded deck.
+     *
+     * @return the flashcard
+     * @throws SQLException if the row cannot be read
+     */
+    public Flashcard get() throws SQLException {
+        return pages.add(question > 0 ? TextCodec.raw(set, question) : null,
+                answer > 0 ? TextCodec.raw(set, answer) : null,
+                lastNumber, getColor(),
+                attachment > 0 ? set.getString(attachment) : null,
+                lastUid);
+    }
+
+    /**
+     * Returns the decoded question of the current flashcard without creating it.
+     *
+     * @return the question, or null if it is not read
+     * @throws SQLException if the column cannot be read
+     */
+    public String getQuestion() throws SQLException {
+        return question > 0 ? TextCodec.read(set, question) : null;
+    }
+
+    /**
+     * Returns the decoded answer of the current flashcard without creating it.
+     *
+     * @return the answer, or null if it is not read
+     * @throws SQLException if the column cannot be read
+     */
+    public String getAnswer() throws SQLException {
+        return answer > 0 ? TextCodec.read(set, answer) : null;
+    }
+
+    /**
+     * Returns the number of the current flashcard. Before the first call of
+     * next, and after the last flashcard, it is the number of the last
+     * flashcard read, where the following page starts.
+     *
+     * @return the number
+     */
+    public int getNumber() {
+        return lastNumber;
+    }
+
+    /**
+     * Returns the uid of the current flashcard. Like the number, it is the
+     * uid of the last flashcard read before the first call of next and after
+     * the last flashcard.
+     *
+     * @return the uid
+     */
+    public String getUid() {
+        return lastUid;
+    }
+
+    /**
+     * Returns the color of the current flashcard.
+     *
+     * @return the color, or null if it is not read
+     * @throws SQLException if the column cannot be read
+     */
+    public Color getColor() throws SQLException {
+        return color > 0 ? new Color(set.getInt(color)) : null;
+    }
+
+    /**
+     * Closes the query.
+     *
+     * @throws SQLException if the query cannot be closed
+     */
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+}
@@ -0,0 +1,350 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for colors and the listener registry.
+ */
+import java.awt.Color;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Typed events about changes of the deck, published by the storage layer.
+ *
+ * The storage code does not know the user interface: it publishes what changed,
+ * and the interface subscribes to the event types it shows. Listeners are called
+ * on the thread that publishes the event, so a listener updating Swing components
+ * has to pass the work to the event dispatch thread. Without subscribers, publishing
+ * costs nothing, so the storage can run and be benchmarked without a display.
+ */
+public class DeckEvents {
+
+    /** Listeners by event type. */
+    private static final Map<Class<?>, List<Consumer<Event>>> listeners = new ConcurrentHashMap<>();
+
+    /**
+     * A change of the deck.
+     */
+    public interface Event {
+    }
+
+    /**
+     * A flashcard was added, or a removed one was restored.
+     */
+    public static class CardAdded implements Event {
+
+        /** The added flashcard. */
+        private final Flashcard card;
+
+        /** Whether a removed flashcard was restored. */
+        private final boolean restored;
+
+        /**
+         * Creates the event for a new flashcard.
+         *
+         * @param card the added flashcard
+         */
+        public CardAdded(Flashcard card) {
+            this(card, false);
+        }
+
+        /**
+         * Creates the event.
+         *
+         * @param card the added flashcard
+         * @param restored true if a removed flashcard was restored
+         */
+        public CardAdded(Flashcard card, boolean restored) {
+            this.card = card;
+            this.restored = restored;
+        }
+
+        /**
+         * Returns the added flashcard.
+         *
+         * @return the flashcard
+         */
+        public Flashcard getCard() {
+            return card;
+        }
+
+        /**
+         * Returns whether a removed flashcard was restored, e.g. by undo.
+         *
+         * @return true for a restored flashcard, false for a new one
+         */
+        public boolean isRestored() {
+            return restored;
+        }
+    }
+
+    /**
+     * A flashcard was removed.
+     */
+    public static class CardRemoved implements Event {
+
+        /** The removed flashcard. */
+        private final Flashcard card;
+
+        /**
+         * Creates the event.
+         *
+         * @param card the removed flashcard
+         */
+        public CardRemoved(Flashcard card) {
+            this.card = card;
+        }
+
+        /**
+         * Returns the removed flashcard.
+         *
+         * @return the flashcard
+         */
+        public Flashcard getCard() {
+            return card;
+        }
+    }
+
+    /**
+     * The questions and answers of flashcards were edited.
+     */
+    public static class CardsUpdated implements Event {
+
+        /** The edited flashcards. */
+        private final List<Flashcard> cards;
+
+        /**
+         * Creates the event.
+         *
+         * @param cards the edited flashcards in number order, with their uids
+         */
+        public CardsUpdated(List<Flashcard> cards) {
+            this.cards = cards;
+        }
+
+        /**
+         * Returns the edited flashcards, replacing the ones with the same uids.
+         *
+         * @return the flashcards
+         */
+        public List<Flashcard> getCards() {
+            return cards;
+        }
+    }
+
+    /**
+     * The flashcards numbered in a range were given one color.
+     */
+    public static class RangeRecolored implements Event {
+
+        /** The first number of the range. */
+        private final int fromNumber;
+
+        /** The last number of the range. */
+        private final int toNumber;
+
+        /** The new color. */
+        private final Color color;
+
+        /**
+         * Creates the event.
+         *
+         * @param fromNumber the first number of the range
+         * @param toNumber the last number of the range
+         * @param color the new color
+         */
+        public RangeRecolored(int fromNumber, int toNumber, Color color) {
+            this.fromNumber = fromNumber;
+            this.toNumber = toNumber;
+            this.color = color;
+        }
+
+        /**
+         * Returns the first number of the range.
+         *
+         * @return the number
+         */
+        public int getFromNumber() {
+            return fromNumber;
+        }
+
+        /**
+         * Returns the last number of the range.
+         *
+         * @return the number
+         */
+        public int getToNumber() {
+            return toNumber;
+        }
+
+        /**
+         * Returns the new color.
+         *
+         * @return the color
+         */
+        public Color getColor() {
+            return color;
+        }
+    }
+
+    /**
+     * The flashcards numbered in a range were moved, see DBconnection.moveRange.
+     */
+    public static class RangeMoved implements Event {
+
+        /** The first number of the range. */
+        private final int fromNumber;
+
+        /** The last number of the range. */
+        private final int toNumber;
+
+        /** The new number of the first flashcard of the range. */
+        private final int target;
+
+        /**
+         * Creates the event.
+         *
+         * @param fromNumber the first number of the range
+         * @param toNumber the last number of the range
+         * @param target the new number of the first flashcard of the range
+         */
+        public RangeMoved(int fromNumber, int toNumber, int target) {
+            this.fromNumber = fromNumber;
+            this.toNumber = toNumber;
+            this.target = target;
+        }
+
+        /**
+         * Returns the new number of a flashcard after the move.
+         *
+         * @param number the number before the move
+         * @return the number after the move
+         */
+        public int renumber(int number) {
+            return DBconnection.movedNumber(number, fromNumber, toNumber, target);
+        }
+
+        /**
+         * Returns the lowest number changed by the move.
+         *
+         * @return the number
+         */
+        public int getLowestNumber() {
+            return Math.min(fromNumber, target);
+        }
+
+        /**
+         * Returns the highest number changed by the move.
+         *
+         * @return the number
+         */
+        public int getHighestNumber() {
+            return target > fromNumber ? toNumber + target - fromNumber : toNumber;
+        }
+    }
+
+    /**
+     * All flashcards were removed.
+     */
+    public static class DeckCleared implements Event {
+    }
+
+    /**
+     * An import of many flashcards finished.
+     */
+    public static class BulkImportFinished implements Event {
+
+        /** The number of imported flashcards. */
+        private final int count;
+
+        /** The imported flashcards, or null if they were not kept. */
+        private final List<Flashcard> cards;
+
+        /**
+         * Creates the event.
+         *
+         * @param count the number of imported flashcards
+         * @param cards the imported flashcards in number order, or null if the deck has to be reloaded
+         */
+        public BulkImportFinished(int count, List<Flashcard> cards) {
+            this.count = count;
+            this.cards = cards;
+        }
+
+        /**
+         * Returns the number of imported flashcards.
+         *
+         * @return the count
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the imported flashcards.
+         *
+         * @return the flashcards, or null if the deck has to be reloaded
+         */
+        public List<Flashcard> getCards() {
+            return cards;
+        }
+    }
+
+    /**
+     * The stored deck was rewritten in the background (flashcards purged,
+     * renumbered or filled by a migration), so loaded flashcards are outdated.
+     */
+    public static class DeckChanged implements Event {
+    }
+
+    /**
+     * Registers a listener for events of a type.
+     *
+     * @param type the event type
+     * @param listener the listener
+     * @param <E> the event type
+     */
+    public static <E extends Event> void subscribe(Class<E> type, Consumer<? super E> listener) {
+        listeners.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>())
+                .add(event -> listener.accept(type.cast(event)));
+    }
+
+    /**
+     * Calls the listeners of the event type on the calling thread. A failing
+     * listener is reported and does not stop the others or the publisher.
+     *
+     * @param event the event
+     */
+    public static void publish(Event event) {
+        List<Consumer<Event>> subscribed = listeners.get(event.getClass());
+        if (subscribed == null) {
+            return;
+        }
+        for (Consumer<Event> listener : subscribed) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                System.out.println("Deck event listener failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for file handling, compression
+ * and database access.
+ */
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports the flashcards stored in the database to a file.
+ *
+ * The cards are streamed from a forward-only result set straight into a buffered
+ * writer, so the memory used by an export does not depend on the size of the deck.
+ * Supported formats are the "Question;Answer" format read by MainApp.addFlashCards
+ * and JSON Lines (one JSON object per card). Both can optionally be gzip-compressed,
+ * and both are read back by the file import (see readCard).
+ */
+public class DeckExporter {
+
+    /** Output formats supported by the exporter. */
+    public enum Format {
+        /** "Question;Answer" lines, the same format the file import reads. */
+        CSV,
+        /** One JSON object per line with number, question, answer and color. */
+        JSON
+    }
+
+    /** Number of rows the driver is asked to fetch per round trip. */
+    private static final int FETCH_SIZE = 1000;
+
+    /** Size of the output buffer in characters. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Returns the format of a deck file chosen by its name: ".json" or ".jsonl"
+     * selects JSON Lines, anything else the "Question;Answer" format.
+     * A ".gz" suffix is ignored.
+     *
+     * @param file the name of the file
+     * @return the format of the file
+     */
+    public static Format formatOf(String file) {
+        String name = file.endsWith(".gz") ? file.substring(0, file.length() - 3) : file;
+        return name.endsWith(".json") || name.endsWith(".jsonl") ? Format.JSON : Format.CSV;
+    }
+
+    /**
+     * Exports all flashcards, ordered by their number, to the given file.
+     *
+     * The "Question;Answer" format cannot represent a question or answer containing
+     * ';' or a line break, or an empty or untrimmed field. A CSV export of a deck with
+     * such a card fails and deletes the file instead of writing an incomplete backup;
+     * JSON Lines represents every card.
+     *
+     * @param target the file to write
+     * @param format the output format
+     * @param gzip if true the output is gzip-compressed
+     * @return the number of exported cards
+     * @throws IOException if the file cannot be written, or a card cannot be written in the CSV format
+     * @throws SQLException if the cards cannot be read
+     */
+    public static long export(Path target, Format format, boolean gzip) throws IOException, SQLException {
+        Connection connection = DBconnection.getConnection();
+        if (connection == null) {
+            throw new SQLException("Connection is not available");
+        }
+        return export(connection, target, format, gzip);
+    }
+
+    /**
+     * Exports all flashcards read through the given connection to the given file.
+     *
+     * @param connection the connection to read the cards with
+     * @param target the file to write
+     * @param format the output format
+     * @param gzip if true the output is gzip-compressed
+     * @return the number of exported cards
+     * @throws IOException if the file cannot be written, or a card cannot be written in the CSV format
+     * @throws SQLException if the cards cannot be read
+     */
+    public static long export(Connection connection, Path target, Format format, boolean gzip)
+            throws IOException, SQLException {
+        long exported = 0;
+        boolean complete = false;
+        try (DeckCursor cursor = DBconnection.openCursor(connection, DeckCursor.Projection.CONTENT, FETCH_SIZE);
+             Writer out = openWriter(target, gzip)) {
+            while (cursor.next()) {
+                String question = cursor.getQuestion();
+                String answer = cursor.getAnswer();
+                if (format == Format.CSV) {
+                    if (!isImportable(question) || !isImportable(answer)) {
+                        throw new IOException("Flashcard " + cursor.getNumber()
+                                + " cannot be written in the \"Question;Answer\" format, export to a .jsonl file instead");
+                    }
+                    out.write(question);
+                    out.write(';');
+                    out.write(answer);
+                    out.write('\n');
+                } else {
+                    writeJson(out, question, answer, cursor.getNumber(), cursor.getUid(), cursor.getColor().getRGB());
+                }
+                exported++;
+            }
+            complete = true;
+        } finally {
+            if (!complete) {
+                Files.deleteIfExists(target);
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * Reads one flashcard from a line of an exported or hand-written deck file.
+     * Lines in the "Question;Answer" format get a random color, JSON lines keep
+     * the exported color. The number is given by the importer, so the imported
+     * flashcards are appended to the deck in the order of the file.
+     *
+     * @param line the line to read
+     * @param format the format of the file
+     * @param number the number of the new flashcard
+     * @return the flashcard
+     * @throws IOException if the line is not valid
+     */
+    public static Flashcard readCard(String line, Format format, int number) throws IOException {
+        if (format == Format.CSV) {
+            String[] fields = line.split(";");
+            if (fields.length != 2) {
+                throw new IOException("Invalid file content");
+            }
+            return new Flashcard(fields[0].trim(), fields[1].trim(), number, MainApp.generateRandomColor());
+        }
+        JsonReader reader = new JsonReader(line);
+        String question = null;
+        String answer = null;
+        Color color = null;
+        reader.expect('{');
+        do {
+            String key = reader.string();
+            reader.expect(':');
+            switch (key) {
+                case "question" -> question = reader.string();
+                case "answer" -> answer = reader.string();
+                case "color" -> color = reader.color();
+                default -> reader.value();
+            }
+        } while (reader.next(',', '}'));
+        reader.end();
+        if (question == null || answer == null || color == null) {
+            throw new IOException("Invalid file content");
+        }
+        return new Flashcard(question, answer, number, color);
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer for the target file.
+     *
+     * @param target the file to write
+     * @param gzip if true the stream is gzip-compressed
+     * @return the writer
+     * @throws IOException if the file cannot be opened
+     */
+    private static Writer openWriter(Path target, boolean gzip) throws IOException {
+        OutputStream stream = Files.newOutputStream(target);
+        if (gzip) {
+            stream = new GZIPOutputStream(stream, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Checks whether a text survives a round trip through the file import,
+     * which splits lines on ';' and trims both fields.
+     *
+     * @param text the question or answer text
+     * @return true if the text can be written to the import format
+     */
+    private static boolean isImportable(String text) {
+        if (text == null || text.isEmpty() || !text.equals(text.trim())) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ';' || c == '\n' || c == '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes one card as a JSON object followed by a line break.
+     */
+    private static void writeJson(Writer out, String question, String answer, int number, String uid, int rgb)
+            throws IOException {
+        out.write("{\"number\":");
+        out.write(Integer.toString(number));
+        if (uid != null) {
+            out.write(",\"uid\":");
+            writeJsonString(out, uid);
+        }
+        out.write(",\"question\":");
+        writeJsonString(out, question);
+        out.write(",\"answer\":");
+        writeJsonString(out, answer);
+        out.write(",\"color\":\"#");
+        out.write(String.format("%06X", rgb & 0xFFFFFF));
+        out.write("\"}\n");
+    }
+
+    /**
+     * Writes a quoted and escaped JSON string.
+     */
+    private static void writeJsonString(Writer out, String text) throws IOException {
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Reads the flat JSON objects written by writeJson.
+     */
+    private static final class JsonReader {
+
+        /** The line being read. */
+        private final String line;
+
+        /** Position of the next character to read. */
+        private int position;
+
+        private JsonReader(String line) {
+            this.line = line;
+        }
+
+        /**
+         * Skips whitespace and returns the next character without consuming it.
+         */
+        private char peek() throws IOException {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            if (position == line.length()) {
+                throw new IOException("Invalid file content");
+            }
+            return line.charAt(position);
+        }
+
+        /**
+         * Consumes the given character.
+         */
+        private void expect(char c) throws IOException {
+            if (peek() != c) {
+                throw new IOException("Invalid file content");
+            }
+            position++;
+        }
+
+        /**
+         * Consumes one of two characters.
+         *
+         * @return true if the first one was read
+         */
+        private boolean next(char first, char second) throws IOException {
+            char c = peek();
+            if (c != first && c != second) {
+                throw new IOException("Invalid file content");
+            }
+            position++;
+            return c == first;
+        }
+
+        /**
+         * Checks that nothing but whitespace follows the object.
+         */
+        private void end() throws IOException {
+            if (!line.substring(position).isBlank()) {
+                throw new IOException("Invalid file content");
+            }
+        }
+
+        /**
+         * Reads a quoted JSON string.
+         */
+        private String string() throws IOException {
+            expect('"');
+            StringBuilder text = new StringBuilder();
+            while (position < line.length()) {
+                char c = line.charAt(position++);
+                if (c == '"') {
+                    return text.toString();
+                }
+                if (c != '\\') {
+                    text.append(c);
+                    continue;
+                }
+                if (position == line.length()) {
+                    break;
+                }
+                char escaped = line.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> text.append('\n');
+                    case 'r' -> text.append('\r');
+                    case 't' -> text.append('\t');
+                    case 'b' -> text.append('\b');
+                    case 'f' -> text.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > line.length()) {
+                            throw new IOException("Invalid file content");
+                        }
+                        try {
+                            text.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid file content");
+                        }
+                        position += 4;
+                    }
+                    default -> text.append(escaped);
+                }
+            }
+            throw new IOException("Invalid file content");
+        }
+
+        /**
+         * Reads a "#RRGGBB" color string.
+         */
+        private Color color() throws IOException {
+            String text = string();
+            if (text.length() != 7 || text.charAt(0) != '#') {
+                throw new IOException("Invalid color " + text);
+            }
+            try {
+                return new Color(Integer.parseInt(text.substring(1), 16));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid color " + text);
+            }
+        }
+
+        /**
+         * Skips a string or number value of an unused key.
+         */
+        private void value() throws IOException {
+            if (peek() == '"') {
+                string();
+                return;
+            }
+            while (position < line.length() && ",} ".indexOf(line.charAt(position)) < 0) {
+                position++;
+            }
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for streams and database access.
+ */
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Synchronizes two copies of the flashcards database through their change logs.
+ *
+ * Each side describes what it has seen as a version vector: the highest sequence
+ * number it holds from every replica. The other side answers with only the changes
+ * above that vector, so a sync costs the size of the changes, not of the deck.
+ * Vectors and changes travel as byte streams, so the same code works over files,
+ * sockets, or the in-memory streams used by sync(Connection, Connection).
+ *
+ * Conflicts are resolved the same way on every replica: for every flashcard the
+ * change with the highest Lamport clock wins, and equal clocks are decided by the
+ * replica id. A CLEAR change removes every flashcard whose last change is older.
+ * Applying a delta never renumbers the deck: the compactor records the new number
+ * of every flashcard it renumbers as an UPSERT, so renumbering travels like any
+ * other change. Flashcards added on two replicas may share a number after a sync;
+ * they are ordered by number and uid on both sides until the next compaction of
+ * either replica renumbers them. Attached files themselves are not transferred, only their hashes.
+ * Sharded databases (see ShardedStore) are not synchronized: the flashcards of
+ * their other shards are not in the main change log.
+ */
+public class DeckSync {
+
+    /** Marks a change record in a delta stream. */
+    private static final int RECORD = 1;
+
+    /** Marks the end of a delta or vector stream. */
+    private static final int END = 0;
+
+    /**
+     * Synchronizes two database files in both directions.
+     *
+     * @param first the path of the first database
+     * @param second the path of the second database
+     * @return the number of changes applied to both databases
+     * @throws IOException if the changes cannot be transferred
+     * @throws SQLException if a database cannot be read or changed
+     */
+    public static int sync(Path first, Path second) throws IOException, SQLException {
+        try (Connection a = DBconnection.openConnection("jdbc:sqlite:" + first);
+             Connection b = DBconnection.openConnection("jdbc:sqlite:" + second)) {
+            DBconnection.createTable(a);
+            DBconnection.createTable(b);
+            return sync(a, b);
+        }
+    }
+
+    /**
+     * Synchronizes two databases in both directions, passing vectors and changes
+     * through in-memory byte streams as a stand-in for a network connection.
+     *
+     * @param a the connection to the first database
+     * @param b the connection to the second database
+     * @return the number of changes applied to both databases
+     * @throws IOException if the changes cannot be transferred
+     * @throws SQLException if a database cannot be read or changed
+     */
+    public static int sync(Connection a, Connection b) throws IOException, SQLException {
+        return pull(a, b) + pull(b, a);
+    }
+
+    /**
+     * Copies the changes the target has not seen yet from the source to the target.
+     *
+     * @param target the database receiving changes
+     * @param source the database sending changes
+     * @return the number of applied changes
+     */
+    private static int pull(Connection target, Connection source) throws IOException, SQLException {
+        ByteArrayOutputStream vector = new ByteArrayOutputStream();
+        writeVector(target, vector);
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        writeDelta(source, new ByteArrayInputStream(vector.toByteArray()), delta);
+        return applyDelta(target, new ByteArrayInputStream(delta.toByteArray()));
+    }
+
+    /**
+     * Returns the version vector of a database: the highest sequence number
+     * of the changes it holds from every replica.
+     *
+     * @param c the connection to use
+     * @return the sequence numbers by replica id
+     * @throws SQLException if the change log cannot be read
+     */
+    public static Map<String, Long> versionVector(Connection c) throws SQLException {
+        Map<String, Long> vector = new HashMap<>();
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT replica, MAX(replica_seq) FROM changelog GROUP BY replica")) {
+            while (set.next()) {
+                vector.put(set.getString(1), set.getLong(2));
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Writes the version vector of a database to a stream.
+     *
+     * @param c the connection to use
+     * @param stream the stream to write
+     * @throws IOException if the stream cannot be written
+     * @throws SQLException if the change log cannot be read
+     */
+    public static void writeVector(Connection c, OutputStream stream) throws IOException, SQLException {
+        DataOutputStream out = new DataOutputStream(stream);
+        for (Map.Entry<String, Long> entry : versionVector(c).entrySet()) {
+            out.writeByte(RECORD);
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        out.writeByte(END);
+        out.flush();
+    }
+
+    /**
+     * Reads a peer's version vector and writes the changes the peer has not seen.
+     *
+     * @param c the connection to the sending database
+     * @param peerVector the stream with the peer's version vector
+     * @param stream the stream to write the changes to
+     * @return the number of written changes
+     * @throws IOException if a stream cannot be read or written
+     * @throws SQLException if the change log cannot be read or the database is sharded
+     */
+    public static int writeDelta(Connection c, InputStream peerVector, OutputStream stream)
+            throws IOException, SQLException {
+        requireUnsharded(c);
+        DataInputStream in = new DataInputStream(peerVector);
+        Map<String, Long> seen = new HashMap<>();
+        while (in.readByte() == RECORD) {
+            String replica = readString(in);
+            seen.put(replica, in.readLong());
+        }
+        DataOutputStream out = new DataOutputStream(stream);
+        int written = 0;
+        String q = "SELECT replica, replica_seq, clock, op, uid, question, answer, number, color, deleted, attachment " +
+                "FROM changelog WHERE replica = ? AND replica_seq > ? ORDER BY replica_seq";
+        try (PreparedStatement s = c.prepareStatement(q)) {
+            for (Map.Entry<String, Long> entry : versionVector(c).entrySet()) {
+                long from = seen.getOrDefault(entry.getKey(), 0L);
+                if (entry.getValue() <= from) {
+                    continue;
+                }
+                s.setString(1, entry.getKey());
+                s.setLong(2, from);
+                try (ResultSet set = s.executeQuery()) {
+                    while (set.next()) {
+                        out.writeByte(RECORD);
+                        writeString(out, set.getString(1));
+                        out.writeLong(set.getLong(2));
+                        out.writeLong(set.getLong(3));
+                        writeString(out, set.getString(4));
+                        writeString(out, set.getString(5));
+                        writeString(out, TextCodec.read(set, 6));
+                        writeString(out, TextCodec.read(set, 7));
+                        out.writeInt(set.getInt(8));
+                        out.writeInt(set.getInt(9));
+                        out.writeInt(set.getInt(10));
+                        writeString(out, set.getString(11));
+                        written++;
+                    }
+                }
+            }
+        }
+        out.writeByte(END);
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Applies the changes read from a stream in one transaction. Only the
+     * flashcards named by the changes are touched.
+     *
+     * @param c the connection to the receiving database
+     * @param stream the stream with the changes
+     * @return the number of applied changes
+     * @throws IOException if the stream cannot be read
+     * @throws SQLException if the database cannot be changed or is sharded
+     */
+    public static int applyDelta(Connection c, InputStream stream) throws IOException, SQLException {
+        requireUnsharded(c);
+        DataInputStream in = new DataInputStream(stream);
+        int applied = 0;
+        c.setAutoCommit(false);
+        try (PreparedStatement exists = c.prepareStatement(
+                     "SELECT 1 FROM changelog WHERE replica = ? AND replica_seq = ?");
+             PreparedStatement latest = c.prepareStatement(
+                     "SELECT clock, replica FROM changelog WHERE uid = ? ORDER BY clock DESC, replica DESC LIMIT 1");
+             PreparedStatement insert = c.prepareStatement(
+                     "INSERT INTO changelog (replica, replica_seq, clock, op, uid, question, answer, number, " +
+                     "color, deleted, attachment) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement update = c.prepareStatement(
+                     "UPDATE flashcards SET question = ?, answer = ?, number = ?, color = ?, deleted = ?, " +
+                     "attachment = ? WHERE uid = ?");
+             PreparedStatement add = c.prepareStatement(
+                     "INSERT INTO flashcards (question, answer, number, color, deleted, attachment, uid) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement clear = c.prepareStatement(
+                     "UPDATE flashcards SET deleted = 1 WHERE deleted = 0 AND uid IN " +
+                     "(SELECT uid FROM changelog WHERE uid IS NOT NULL GROUP BY uid HAVING MAX(clock) < ?)")) {
+            long clearClock = lastClearClock(c);
+            while (in.readByte() == RECORD) {
+                String replica = readString(in);
+                long replicaSeq = in.readLong();
+                long clock = in.readLong();
+                String op = readString(in);
+                String uid = readString(in);
+                String question = readString(in);
+                String answer = readString(in);
+                int number = in.readInt();
+                int color = in.readInt();
+                int deleted = in.readInt();
+                String attachment = readString(in);
+
+                exists.setString(1, replica);
+                exists.setLong(2, replicaSeq);
+                try (ResultSet set = exists.executeQuery()) {
+                    if (set.next()) {
+                        continue;
+                    }
+                }
+                boolean wins = true;
+                if (ChangeLog.UPSERT.equals(op)) {
+                    latest.setString(1, uid);
+                    try (ResultSet set = latest.executeQuery()) {
+                        if (set.next()) {
+                            long otherClock = set.getLong(1);
+                            String otherReplica = set.getString(2);
+                            wins = clock > otherClock || (clock == otherClock && replica.compareTo(otherReplica) > 0);
+                        }
+                    }
+                }
+                insert.setString(1, replica);
+                insert.setLong(2, replicaSeq);
+                insert.setLong(3, clock);
+                insert.setString(4, op);
+                insert.setString(5, uid);
+                insert.setString(6, question);
+                insert.setString(7, answer);
+                insert.setInt(8, number);
+                insert.setInt(9, color);
+                insert.setInt(10, deleted);
+                insert.setString(11, attachment);
+                insert.executeUpdate();
+                ChangeLog.observe(c, clock);
+                applied++;
+
+                if (ChangeLog.CLEAR.equals(op)) {
+                    clearClock = Math.max(clearClock, clock);
+                    clear.setLong(1, clock);
+                    clear.executeUpdate();
+                } else if (ChangeLog.UPSERT.equals(op) && wins) {
+                    int flag = clock < clearClock ? 1 : deleted;
+                    update.setString(1, question);
+                    update.setString(2, answer);
+                    update.setInt(3, number);
+                    update.setInt(4, color);
+                    update.setInt(5, flag);
+                    update.setString(6, attachment);
+                    update.setString(7, uid);
+                    if (update.executeUpdate() == 0) {
+                        add.setString(1, question);
+                        add.setString(2, answer);
+                        add.setInt(3, number);
+                        add.setInt(4, color);
+                        add.setInt(5, flag);
+                        add.setString(6, attachment);
+                        add.setString(7, uid);
+                        add.executeUpdate();
+                    }
+                }
+            }
+            c.commit();
+        } catch (IOException | SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        return applied;
+    }
+
+    /**
+     * Refuses a sharded database, whose other shards are not in the change log.
+     */
+    private static void requireUnsharded(Connection c) throws SQLException {
+        if (ShardedStore.isSharded(c)) {
+            throw new SQLException("Sharded databases cannot be synchronized");
+        }
+    }
+
+    /**
+     * Returns the clock of the latest CLEAR change in the change log, or -1.
+     */
+    private static long lastClearClock(Connection c) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement("SELECT COALESCE(MAX(clock), -1) FROM changelog WHERE op = ?")) {
+            s.setString(1, ChangeLog.CLEAR);
+            try (ResultSet set = s.executeQuery()) {
+                return set.next() ? set.getLong(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Writes a string that may be null.
+     */
+    private static void writeString(DataOutputStream out, String text) throws IOException {
+        if (text == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads a string written by writeString.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Synchronizes two database files given on the command line.
+     *
+     * @param args the paths of the two databases
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: DeckSync <first.db> <second.db>");
+            return;
+        }
+        try {
+            int applied = sync(Path.of(args[0]), Path.of(args[1]));
+            System.out.println(applied + " changes applied");
+        } catch (IOException | SQLException e) {
+            System.out.println("Sync failed: " + e.getMessage());
+        }
+    }
+}
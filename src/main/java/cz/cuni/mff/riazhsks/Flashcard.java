@@ -1,99 +1,239 @@
-/**
- * Provides functionality for a flashcard study application.
- * 
- * This package contains classes responsible for managing a flashcard database, 
- * creating a user interface, and handling user interactions with the database.
- * 
- * MainApp class: Creates the user interface and handles user interaction with the database;
- * DBConnection class: Manages communication with an SQLite database, including table creation,
- * flashcard addition, removal, and loading;
- * Flashcard class: Represents individual flashcards with question, answer, number, and color.
- *
- * UI divided into two modes: 
- * study mode (adding, removing, displaying flashcards);
- * quiz mode (displaying flashcards, checking answers).
- * 
- * @author Sofiia Riazhskykh
- */
-package cz.cuni.mff.riazhsks;
-
-/**
- * Imports the Color class from the java.awt package
- * to represent colors in the user interface.
- */
-import java.awt.Color;
-
-/**
- * This class represents a flashcard used in a study application.
- * Flashcards consist of a question, an answer, a unique number ID, and a color.
- * 
- * Each flashcard object is immutable, meaning its values cannot be changed
- * after creation. 
- * 
- */
-public class Flashcard {
-
-    /** The question on the flashcard. */
-    private final String question;
-
-    /** The answer to the question on the flashcard. */
-    private final String answer;
-
-    /** The unique number id of the flashcard. */
-    private final int number;
-
-    /** The color associated with the flashcard. */
-    private final Color color;
-
-    /**
-     * Constructor for a flashcard with the specified question, answer, 
-     * number, and color.
-     *
-     * @param question the question displayed on the flashcard
-     * @param answer the answer to the question on the flashcard
-     * @param number the id number of the flashcard
-     * @param color the color associated with the flashcard
-     */
-    public Flashcard(String question, String answer, int number, Color color) {
-        this.question = question;
-        this.answer = answer;
-        this.number = number;
-        this.color = color;
-    }
-
-    /**
-     * Returns the question stored on the flashcard.
-     *
-     * @return the question text
-     */
-    public String getQuestion() {
-        return question;
-    }
-
-    /**
-     * Returns the answer stored on the flashcard.
-     *
-     * @return the answer text
-     */
-    public String getAnswer() {
-        return answer;
-    }
-
-    /**
-     * Returns the unique id of the flashcard.
-     *
-     * @return the flashcard id
-     */
-    public int getNumber() {
-        return number;
-    }
-
-    /**
-     * Returns the color associated with the flashcard.
-     *
-     * @return the flashcard color
-     */
-    public Color getColor() {
-        return color;
-    }
-}
+/**
+ * Provides functionality for a flashcard study application.
+ * 
+ * This package contains classes responsible for managing a flashcard database, 
+ * creating a user interface, and handling user interactions with the database.
+ * 
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes: 
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ * 
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Imports the Color class from the java.awt package
+ * to represent colors in the user interface.
+ */
+import java.awt.Color;
+
+/**
+ * This class represents a flashcard used in a study application.
+ * Flashcards consist of a question, an answer, a unique number ID, and a color.
+ * 
+ * Each flashcard object is immutable, meaning its values cannot be changed
+ * after creation. 
+ * 
+ */
+public class Flashcard {
+
+    /** The question on the flashcard. */
+    private final String question;
+
+    /** The answer to the question on the flashcard. */
+    private final String answer;
+
+    /** The unique number id of the flashcard. */
+    private final int number;
+
+    /** The color associated with the flashcard. */
+    private final Color color;
+
+    /** The content hash of the attached image or audio file, or null. */
+    private final String attachment;
+
+    /** The identifier of the flashcard shared by all copies of the database, or null. */
+    private final String uid;
+
+    /** The page holding the compressed question and answer, or null. */
+    private final TextCodec.Page page;
+
+    /** The slot of the question in the page; the answer follows it. */
+    private final int slot;
+
+    /**
+     * Constructor for a flashcard with the specified question, answer, 
+     * number, and color.
+     *
+     * @param question the question displayed on the flashcard
+     * @param answer the answer to the question on the flashcard
+     * @param number the id number of the flashcard
+     * @param color the color associated with the flashcard
+     */
+    public Flashcard(String question, String answer, int number, Color color) {
+        this(question, answer, number, color, null);
+    }
+
+    /**
+     * Constructor for a flashcard with an attached image or audio file.
+     *
+     * @param question the question displayed on the flashcard
+     * @param answer the answer to the question on the flashcard
+     * @param number the id number of the flashcard
+     * @param color the color associated with the flashcard
+     * @param attachment the content hash of the attachment, or null
+     */
+    public Flashcard(String question, String answer, int number, Color color, String attachment) {
+        this(question, answer, number, color, attachment, null);
+    }
+
+    /**
+     * Constructor for a flashcard stored in the database.
+     *
+     * @param question the question displayed on the flashcard
+     * @param answer the answer to the question on the flashcard
+     * @param number the id number of the flashcard
+     * @param color the color associated with the flashcard
+     * @param attachment the content hash of the attachment, or null
+     * @param uid the identifier of the flashcard shared by all copies of the database
+     */
+    public Flashcard(String question, String answer, int number, Color color, String attachment, String uid) {
+        this.question = question;
+        this.answer = answer;
+        this.number = number;
+        this.color = color;
+        this.attachment = attachment;
+        this.uid = uid;
+        this.page = null;
+        this.slot = 0;
+    }
+
+    /**
+     * Constructor for a flashcard loaded with compressed text, which is
+     * decoded when the question or the answer is first needed.
+     *
+     * @param page the page holding the question and the answer
+     * @param slot the slot of the question in the page, the answer is in the next slot
+     * @param number the id number of the flashcard
+     * @param color the color associated with the flashcard
+     * @param attachment the content hash of the attachment, or null
+     * @param uid the identifier of the flashcard shared by all copies of the database
+     */
+    public Flashcard(TextCodec.Page page, int slot, int number, Color color, String attachment, String uid) {
+        this.question = null;
+        this.answer = null;
+        this.number = number;
+        this.color = color;
+        this.attachment = attachment;
+        this.uid = uid;
+        this.page = page;
+        this.slot = slot;
+    }
+
+    /**
+     * Returns the question stored on the flashcard.
+     *
+     * @return the question text
+     */
+    public String getQuestion() {
+        return page == null ? question : page.text(slot);
+    }
+
+    /**
+     * Returns the answer stored on the flashcard.
+     *
+     * @return the answer text
+     */
+    public String getAnswer() {
+        return page == null ? answer : page.text(slot + 1);
+    }
+
+    /**
+     * Returns whether a typed answer is a correct answer to the flashcard.
+     *
+     * @param answer the typed answer
+     * @return true if the answer is correct
+     */
+    public boolean isCorrectAnswer(String answer) {
+        return answersMatch(answer, getAnswer());
+    }
+
+    /**
+     * Compares a typed answer with the correct one the way the quiz grades it:
+     * surrounding whitespace is ignored and letters are compared regardless of case.
+     *
+     * @param answer the typed answer
+     * @param correctAnswer the correct answer
+     * @return true if the answers match
+     */
+    public static boolean answersMatch(String answer, String correctAnswer) {
+        return answer.trim().equalsIgnoreCase(correctAnswer.trim());
+    }
+
+    /**
+     * Returns the unique id of the flashcard.
+     *
+     * @return the flashcard id
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the color associated with the flashcard.
+     *
+     * @return the flashcard color
+     */
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Returns the content hash of the attachment of the flashcard.
+     *
+     * @return the attachment hash, or null if the flashcard has no attachment
+     */
+    public String getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Returns the identifier of the flashcard shared by all copies of the database.
+     *
+     * @return the flashcard uid, or null for a flashcard not stored yet
+     */
+    public String getUid() {
+        return uid;
+    }
+
+    /**
+     * Returns a copy of the flashcard with another question and answer.
+     *
+     * @param question the new question
+     * @param answer the new answer
+     * @return the edited flashcard
+     */
+    public Flashcard withText(String question, String answer) {
+        return new Flashcard(question, answer, number, color, attachment, uid);
+    }
+
+    /**
+     * Returns a copy of the flashcard with another color. Compressed text
+     * stays in its page and is not decoded.
+     *
+     * @param color the new color
+     * @return the recolored flashcard
+     */
+    public Flashcard withColor(Color color) {
+        return page == null ? new Flashcard(question, answer, number, color, attachment, uid)
+                : new Flashcard(page, slot, number, color, attachment, uid);
+    }
+
+    /**
+     * Returns a copy of the flashcard with another number. Compressed text
+     * stays in its page and is not decoded.
+     *
+     * @param number the new number
+     * @return the renumbered flashcard
+     */
+    public Flashcard withNumber(int number) {
+        return page == null ? new Flashcard(question, answer, number, color, attachment, uid)
+                : new Flashcard(page, slot, number, color, attachment, uid);
+    }
+}
@@ -1,699 +1,1479 @@
-/**
- * Provides functionality for a flashcard study application.
- * 
- * This package contains classes responsible for managing a flashcard database, 
- * creating a user interface, and handling user interactions with the database.
- * 
- * MainApp class: Creates the user interface and handles user interaction with the database;
- * DBConnection class: Manages communication with an SQLite database, including table creation,
- * flashcard addition, removal, and loading;
- * Flashcard class: Represents individual flashcards with question, answer, number, and color.
- *
- * UI divided into two modes: 
- * study mode (adding, removing, displaying flashcards);
- * quiz mode (displaying flashcards, checking answers).
- * 
- * @author Sofiia Riazhskykh
- */
-package cz.cuni.mff.riazhsks;
-
-/**
- * Import necessary Java libraries for UI, file handling, database connection, 
- * and other utilities required for the flashcard application.
- */
-import java.awt.*;
-import java.awt.event.*;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
-import java.nio.file.Path;
-import java.sql.Connection;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-import java.util.Scanner;
-import javax.swing.*;     
-
-/**
- * MainApp is the class responsible for creating the user interface
- * and handling user interactions with the application.
- */
-public class MainApp {
-
-    private static JFrame frame; 
-    public static boolean showingQuestion;
-    private static int numberOfCards;
-    
-    private JButton[] buttons;
-    private  JButton[] qbuttons;
-    private JPanel panel;
-    private JButton addButton;
-    private JButton removeButton;
-    private  JButton removeAllButton;
-    private  JLabel lastBest;
-    private  Connection connection;
-    public  JButton nextButton;
-    public JButton prevButton;
-    public  JButton flipButton;
-    private JButton quizModeButton; 
-    private  int best;
-    private int total_best;
-
-    public static  int currentCardIndex;
-    public static List<Flashcard> flashcards;
-    public static JTextArea cardTextArea;
-    
-
-    /**
-     * Constructor that initializes the flashcards, sets up the database,
-     * creates the user interface, and loads existing flashcards.
-     */
-    public MainApp() {
-        flashcards = new ArrayList<>();
-        currentCardIndex = 0;
-        showingQuestion = true;
-        initializeDatabase();
-        studyMode();
-        setButtonsResponses();
-        DBconnection.loadFlashcards();
-        updateCard(cardTextArea);
-        numberOfCards = flashcards.size();
-    }
-
-    /**
-     * Establishes a connection to the database.
-     * Exits if the connection cannot be established.
-     */ 
-    private void initializeDatabase() {
-        DBconnection.initializeDatabase();
-        connection = DBconnection.getConnection();
-        if (connection == null) {
-            System.err.println("Database connection could not be established");
-            System.exit(1);
-        }
-    }
-
-    /**
-     * The main method initializes the application, asks the user about initial settings,
-     * and displays the main application window.
-     */
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new MainApp()); 
-        String start = askUserStart();
-        String type = askUserType();
-        if (flashcards != null && start.equals("n")) {
-            DBconnection.removeAll(true);
-            numberOfCards = 0;
-        } 
-        if (type.equals("f")) {
-            addFlashCards();
-        }
-        frame.setVisible(true);
-    }
-
-    /**
-     * Asks the user to decide whether to create a new flashcard database
-     * or continue working with the most recently created one.
-     *
-     * @return "n" to create a new database or "c" to continue with the existing one.
-     */
-    public static String askUserStart() {
-        String answer = null; 
-        System.out.println("Do you want to create a new database of flashcards, or to use the latest created one?");
-        System.out.print("Type \"n\" for \"new\" or \"c\" for \"continue\": ");
-        Scanner scanner = new Scanner(System.in);
-        while (scanner.hasNext()) {
-            answer = scanner.next();
-            if (answer.equalsIgnoreCase("n")) {
-                    return answer;
-            } else if (answer.equalsIgnoreCase("c")) {
-                    return answer;
-            } else {
-                System.out.println("Incorrect input. Type \"n\" for \"new\" or \"c\" for \"continue\":");
-            }
-        }
-        return answer;
-    }
-
-    /**
-     * Asks the user to specify whether to load flashcards from a file or add them manually.
-     *
-     * @return "f" to load from a file, or "m" to add manually.
-     */
-    public static String askUserType() {
-        String answer = null;   
-        System.out.println("Do you want to download flashcards from the file, or to add them manually?");
-        System.out.print("Type \"f\" for \"file\" or \"m\" for \"manually\": ");
-        Scanner scanner = new Scanner(System.in);
-        while (scanner.hasNext()) {
-            answer = scanner.next();
-            if (answer.equalsIgnoreCase("f")) {
-                return answer;
-            } else if (answer.equalsIgnoreCase("m")) {
-                return answer;
-            } else {
-                System.out.println("Incorrect input. Type \"f\" for \"file\" or \"m\" for \"manually\":");
-            }
-        }
-        return answer;
-    }
-
-    /**
-     * Gets a file as an input from user, processes the content,
-     * and adds the flashcards to the database updates the UI.
-     * 
-     * @throws IOException 
-     */
-    public static void addFlashCards() {
-        Scanner scanner = new Scanner(System.in);
-        System.out.println("\nNote that the question and answer fields are mandatory. Expected content of the file:\n"); 
-        System.out.println("Question;Answer");
-        System.out.println("What is the capital of Czech Republic?;Prague\n");
-        System.out.println("Type the path to the file with flashcards: ");  
-        Path pathToFile = null;
-        while(scanner.hasNext()) {
-            pathToFile = Path.of(scanner.next());
-            try (BufferedReader br = new BufferedReader(new FileReader(pathToFile.toFile()))) {
-                String line;
-                int number = numberOfCards;
-                while ((line = br.readLine()) != null && !line.isEmpty()) {
-                    String[] fields = line.split(";");
-                    if (fields.length != 2) {
-                        throw new IOException("Invalid file content");
-                    } 
-                    String question = fields[0];
-                    String answer = fields[1];
-                    number++;
-                    Color color = generateRandomColor();
-                    DBconnection.addFlashcard(question.trim(), answer.trim(), number, color);
-                }
-            } catch (IOException e){
-                System.out.println("Error reading the file.");
-                System.exit(1);
-            } 
-            DBconnection.loadFlashcards();
-            currentCardIndex = 0;
-            updateCard(cardTextArea); 
-            break;
-        }
-    }
-    
-    /** 
-     *  Creates UI for study mode (frame, card area, buttons, score label).
-     */
-    private void studyMode() {
-        frame = new JFrame("Flashcards App");
-        frame.setSize(850, 600);
-        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-        int x = (screenSize.width - frame.getWidth()) / 2;
-        int y = (screenSize.height - frame.getHeight()) / 2;
-        frame.setLocation(x, y);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-        cardTextArea = new JTextArea();
-        cardTextArea.setEditable(false); 
-        cardTextArea.setFont(new Font("Arial", Font.BOLD, 24));
-        cardTextArea.setLineWrap(true); 
-        cardTextArea.setWrapStyleWord(true); 
-        cardTextArea.setBackground(Color.GRAY);
-
-        panel = new JPanel();
-        panel.setLayout(new BorderLayout());
-        panel.add(cardTextArea, BorderLayout.CENTER); 
-
-        nextButton = new JButton("Next");
-        prevButton = new JButton("Previous");
-        flipButton = new JButton("Flip");
-        addButton = new JButton("Add Question");
-        removeButton = new JButton("Delete Question");
-        removeAllButton = new JButton("Delete All");
-        quizModeButton = new JButton ("Quiz Mode");
-
-        JPanel buttonPanel = new JPanel();
-        buttonPanel.setLayout(new GridLayout(2, 4, 10, 10)); 
-
-        buttons = new JButton[]{nextButton, prevButton, flipButton, addButton, removeButton, removeAllButton, quizModeButton};
-        for (JButton button : buttons) {
-            button.setFont(new Font("Arial", Font.BOLD, 16));
-            if(button.equals(prevButton)){
-                button.setPreferredSize(new Dimension(140, 40));
-            } else if(button.equals(addButton) || button.equals(removeAllButton)){
-                button.setPreferredSize(new Dimension(180, 40));
-            } else if (button.equals(removeButton)){
-                button.setPreferredSize(new Dimension(200, 40));
-            } else if (button.equals(quizModeButton)){
-                button.setPreferredSize(new Dimension(210, 40));
-            }  else {
-             button.setPreferredSize(new Dimension(100, 40));    
-            }
-            buttonPanel.add(button);
-        }   
-        lastBest = new JLabel("Best score: " + best + "/" + total_best);
-        lastBest.setFont(new Font("Arial", Font.BOLD, 18));
-        buttonPanel.add(lastBest);
-        panel.add(buttonPanel, BorderLayout.SOUTH);  
-        frame.add(panel);  
-        updateCard(cardTextArea);
-    }
-
-    
-    /**
-     * Generates a random color to be used for flashcards.
-     *
-     * @return A randomly generated Color object.
-     */
-    private static Color generateRandomColor() {
-        Random rand = new Random();
-        return new Color(rand.nextInt(256), rand.nextInt(256), rand.nextInt(256));
-    }
-
-    /**
-     * Enables all buttons in the application UI.
-     */
-    private void enableButtons(JButton[] buttons) {
-        for (JButton button : buttons) {
-            button.setEnabled(true);
-        }   
-    }
-
-    /**
-     * Disables all buttons in the application UI.
-     */
-    private void disableButtons(JButton[] buttons) {
-        for (JButton button : buttons) {
-            button.setEnabled(false);
-        }   
-    }
-
-    /**
-     * Sets the behavior of buttons when clicked.
-     */
-    private void setButtonsResponses() {
-        /**
-         * Moves to the next flashcard, if available.
-         */
-        nextButton.addActionListener((ActionEvent e) -> {
-            if (currentCardIndex < flashcards.size() - 1) {
-                currentCardIndex++;
-                showingQuestion = true;
-                updateCard(cardTextArea);
-            } else {
-                showWarningDialog(buttons);
-            }
-        });
-
-        /**
-         * Moves to the previous flashcard, if available.
-         */
-        prevButton.addActionListener((ActionEvent e) -> {
-            if (currentCardIndex > 0) {
-                currentCardIndex--;
-                showingQuestion = true;
-                updateCard(cardTextArea);
-            } else {
-                showWarningDialog(buttons);
-            }
-        });
-
-        /**
-         * Flips the current flashcard to show either the question or the answer.
-         */
-        flipButton.addActionListener((ActionEvent e) -> {
-            showingQuestion = !showingQuestion;
-            updateCard(cardTextArea);
-        });
-
-        /**
-         * Opens a dialog window allowing the user to add a new flashcard
-         * by entering a question and an answer.
-         */
-        addButton.addActionListener((ActionEvent e) -> {
-            openAddFlashcardDialog();
-        });
-
-        /**
-         * Removes the currently displayed flashcard from the database.
-         */
-        removeButton.addActionListener((ActionEvent e) -> {
-            if (!flashcards.isEmpty()) {
-                Flashcard currentCard = flashcards.get(currentCardIndex);
-                DBconnection.removeFlashcard(currentCard);
-                DBconnection.loadFlashcards();
-            }
-        });
-
-        /**
-         * Deletes all flashcards from the database.
-         */
-        removeAllButton.addActionListener((ActionEvent e) -> {
-            if (!flashcards.isEmpty()) {
-                DBconnection.removeAll(false);
-            }
-        });
-
-        /**
-         * Starts the quiz mode
-         */
-        quizModeButton.addActionListener((ActionEvent e) -> {
-            quizMode();
-        });
-    }
-
-    /**
-     * Create UI for the quiz mode (frame, card area, buttons).
-     */
-    private void quizMode() {
-        frame.setVisible(false);
-
-        JTextArea quizTextArea = new JTextArea();
-        quizTextArea.setEditable(false); 
-        quizTextArea.setFont(new Font("Arial", Font.BOLD, 24));
-        quizTextArea.setLineWrap(true); 
-        quizTextArea.setWrapStyleWord(true); 
-        quizTextArea.setBackground(Color.GRAY);
-        currentCardIndex = 0;
-        updateCard(quizTextArea);
-
-        JFrame qframe = new JFrame("Quiz Mode");
-        qframe.setSize(850, 600);
-        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-        int x = (screenSize.width - qframe.getWidth()) / 2;
-        int y = (screenSize.height - qframe.getHeight()) / 2;
-        qframe.setLocation(x, y);
-        qframe.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-
-        
-        JPanel qpanel = new JPanel();
-        qpanel.setLayout(new BorderLayout());
-        qpanel.add(quizTextArea, BorderLayout.CENTER);
-
-        JButton next = new JButton("Next");
-        JButton prev = new JButton("Previous");
-        JButton checkAnswerButton = new JButton("Check Answer");
-        JButton returnButton = new JButton("Return");
-        
-        JPanel quizButtonPanel = new JPanel(new FlowLayout());
-        qbuttons = new JButton[]{next, prev, checkAnswerButton, returnButton};
-        for (JButton button : qbuttons) {
-            button.setFont(new Font("Arial", Font.BOLD, 16));
-            if(button.equals(checkAnswerButton)){
-                button.setPreferredSize(new Dimension(200, 40));
-            } else {
-                button.setPreferredSize(new Dimension(180, 40));
-            } 
-            quizButtonPanel.add(button);
-        }   
-        qpanel.add(quizButtonPanel, BorderLayout.SOUTH);
-    
-        int[] score = {0}; 
-        int[] total = {0}; 
-    
-        JLabel scoreLabel = new JLabel("Score: " + score[0] + "/" + total[0]);
-        scoreLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        qpanel.add(scoreLabel, BorderLayout.NORTH);
-
-        /**
-         * Moves to the next flashcard, if available.
-         */
-        next.addActionListener((ActionEvent e1) -> {
-            if (currentCardIndex < flashcards.size() - 1) {
-                currentCardIndex++;
-                showingQuestion = true;
-                updateCard(quizTextArea);
-            } else {
-                showWarningDialog(qbuttons);
-            }
-        });
-
-        /**
-         * Moves to the previous flashcard, if available.
-         */
-        prev.addActionListener((ActionEvent e1) -> {
-            if (currentCardIndex > 0) {
-                currentCardIndex--;
-                showingQuestion = true;
-                updateCard(quizTextArea);
-            } else {
-                showWarningDialog(qbuttons);
-            }
-        });
-
-        checkAnswerButton.addActionListener((ActionEvent e2) -> {
-            checkAnswer(score,total,qbuttons, scoreLabel);
-        });
-        
-        /**
-         * Displays a dialog with the final score and updates the best score. 
-         * When the dialog is closed, the quiz frame is disposed,
-         * and the main frame is visible.
-         */
-        returnButton.addActionListener((ActionEvent e3) -> {
-            JDialog dialog = new JDialog(qframe, "Score", true);
-            dialog.setSize(300, 150);
-            dialog.setLocationRelativeTo(null);
-            JPanel panel = new JPanel();
-            JLabel lbl = new JLabel("Final score is " + score[0] + "/" + total[0]);
-            if (score[0] > best) {
-                best = score[0];
-                total_best = total[0];
-            }
-            lbl.setFont(new Font("Arial", Font.BOLD, 18));
-            panel.add(lbl);
-            dialog.add(panel,BorderLayout.SOUTH);
-            dialog.addWindowListener(new WindowAdapter() {
-                @Override
-                public void windowClosing(WindowEvent we) {
-                    qframe.dispose(); 
-                    frame.setVisible(true);  
-                    lastBest.setText("Best Score: " + best + "/" + total_best);
-                    currentCardIndex = 0;
-                    updateCard(cardTextArea);
-                }
-            });
-            dialog.setVisible(true);
-        });
-        qframe.add(qpanel);
-        qframe.setVisible(true);
-    }
-
-    /**
-     * Opens a dialog for the user to enter an answer to the current flashcard's question.
-     * The answer is checked and feedback is provided.
-     * 
-     * @param score  user's correct answerы count
-     * @param total  total number of questions answered
-     * @param quizButtons quiz buttons
-     * @param scoreLabel  current score label
-     */
-    private void checkAnswer(int[] score, int[] total, JButton[] quizButtons, JLabel scoreLabel) {
-        if (!flashcards.isEmpty()) {
-            Flashcard currentCard = flashcards.get(currentCardIndex);
-            String correctAnswer = currentCard.getAnswer();
-    
-            JDialog dialog = new JDialog(frame, "Check Answer", true);
-            dialog.setSize(450, 300);
-            dialog.setLocationRelativeTo(null);
-            dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE); 
-    
-            JPanel mainPanel = new JPanel();
-            mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
-            mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-    
-            JLabel instructionLabel = new JLabel("Enter your answer:");
-            instructionLabel.setFont(new Font("Arial", Font.BOLD, 18));
-            instructionLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
-            mainPanel.add(instructionLabel);
-    
-            JTextField userInput = new JTextField();
-            userInput.setFont(new Font("Arial", Font.BOLD, 18));
-            userInput.setMaximumSize(new Dimension(400, 40)); 
-            mainPanel.add(userInput);
-    
-            JPanel buttonPanel = new JPanel();
-            JButton checkButton = new JButton("Check");
-            checkButton.setPreferredSize(new Dimension(200, 40));
-            buttonPanel.add(checkButton);
-            mainPanel.add(buttonPanel);
-    
-            JTextArea resultText = new JTextArea(3, 30);
-            resultText.setFont(new Font("Arial", Font.BOLD, 18));
-            resultText.setEditable(false);
-            resultText.setLineWrap(true);
-            resultText.setWrapStyleWord(true);
-    
-            JScrollPane scrollPane = new JScrollPane(resultText);
-            scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-            scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-            scrollPane.setPreferredSize(new Dimension(400, 80)); 
-            scrollPane.setMaximumSize(new Dimension(400, 100)); 
-            mainPanel.add(scrollPane);
-    
-            checkButton.addActionListener((ActionEvent e1) -> {
-                String userAnswer = userInput.getText().trim();
-                if (userAnswer.equalsIgnoreCase(correctAnswer.trim())) {
-                    resultText.setText("Correct!");
-                    score[0]++;
-                    total[0]++;
-                    resultText.setForeground(Color.GREEN);
-                } else {
-                    resultText.setText("Incorrect! Correct answer: " + correctAnswer);
-                    resultText.setForeground(Color.RED);
-                    total[0]++;
-                }
-                for (JButton button : quizButtons) {
-                    button.setEnabled(false);
-                }  
-                checkButton.setEnabled(false);
-                resultText.repaint();
-                scoreLabel.setText("Score: " + score[0] + "/" + total[0]);
-                
-            });
-    
-            dialog.add(mainPanel);
-            dialog.addWindowListener(new WindowAdapter() {
-                @Override
-                public void windowClosing(WindowEvent we) {
-                    for (JButton button : quizButtons) {
-                        button.setEnabled(true);
-                    } 
-                }
-            });
-    
-            dialog.setVisible(true); 
-            
-        } else {
-            JOptionPane.showMessageDialog(frame, "No flashcards available.", "Error", JOptionPane.ERROR_MESSAGE);
-        }
-    }
-
-    /**
-     * Shows a warning if there are no more cards to display.
-     */
-    private void showWarningDialog(JButton[] buttons) {
-        JDialog dialog = new JDialog(frame, "Warning", true);
-        dialog.setSize(300, 150);
-        dialog.setLocationRelativeTo(null);
-        JPanel panel = new JPanel();
-        disableButtons(buttons);
-        JLabel lbl = new JLabel("No more flashcards");
-        lbl.setFont(new Font("Arial", Font.BOLD, 18));
-        panel.add(lbl);
-        dialog.add(panel,BorderLayout.SOUTH);
-        dialog.addWindowListener(new WindowAdapter() {
-            @Override
-            public void windowClosing(WindowEvent we) {
-                enableButtons(buttons);                
-            }
-        });
-        dialog.setVisible(true);
-    }
-
-    /**
-     * Opens a dialog window for adding a new flashcard.
-     * The dialog allows the user to input a question and an answer.
-     */
-    private static void openAddFlashcardDialog() {
-        JDialog dialog = new JDialog(frame, "Add Flashcard", true);
-        dialog.setSize(430, 260);
-        dialog.setLocationRelativeTo(null);
-        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
-    
-        JPanel panel1 = new JPanel();
-        panel1.setLayout(new BoxLayout(panel1, BoxLayout.Y_AXIS));
-        JPanel textPanel = new JPanel(new GridBagLayout());
-
-        JTextArea questionLabel = new JTextArea("Enter the question:");
-        
-        questionLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        questionLabel.setWrapStyleWord(true);
-        questionLabel.setLineWrap(true);
-        questionLabel.setOpaque(false); 
-        questionLabel.setEditable(false);
-        questionLabel.setFocusable(false);
-        questionLabel.setBorder(BorderFactory.createEmptyBorder(10, 10,0,10)); 
-        textPanel.add(questionLabel);
-
-        JTextArea answerLabel = new JTextArea("Enter the answer:");
-        answerLabel.setFont(new Font("Arial", Font.BOLD, 18));
-        answerLabel.setWrapStyleWord(true);
-        answerLabel.setLineWrap(true);
-        answerLabel.setOpaque(false); 
-        answerLabel.setEditable(false);
-        answerLabel.setFocusable(false);
-        answerLabel.setBorder(BorderFactory.createEmptyBorder(10, 10,0,10)); 
-        textPanel.add(answerLabel);
-    
-        JTextField questionField = new JTextField();
-        questionField.setPreferredSize(new Dimension(350, 35));
-        questionField.setFont(new Font("Arial", Font.BOLD, 18));
-    
-        JTextField answerField = new JTextField();
-        answerField.setPreferredSize(new Dimension(350, 35));
-        answerField.setFont(new Font("Arial", Font.BOLD, 18));
-    
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
-        JButton saveButton = new JButton("Save");
-        JButton cancelButton = new JButton("Cancel");
-        buttonPanel.add(saveButton);
-        buttonPanel.add(cancelButton);
-    
-        panel1.add(questionLabel);
-        panel1.add(questionField);
-        panel1.add(answerLabel);
-        panel1.add(answerField);
-        panel1.add(buttonPanel);
-        dialog.add(panel1);
-    
-        saveButton.addActionListener((ActionEvent e1) -> {
-            String question = questionField.getText().trim();
-            String answer = answerField.getText().trim();
-            int number = flashcards.size() + 1;
-            Color color = generateRandomColor();
-            if (!question.isEmpty() && !answer.isEmpty()) {
-                DBconnection.addFlashcard(question, answer, number, color);
-                DBconnection.loadFlashcards();
-                currentCardIndex = flashcards.size() - 1;
-                updateCard(cardTextArea);
-                dialog.dispose();
-            }
-        });
-        cancelButton.addActionListener((ActionEvent e1) -> {
-            dialog.dispose();
-        });
-        dialog.setVisible(true);
-    }
-
-    /**
-     * Updates the flashcard displayed.
-     * If no flashcards are available, notifies the user.
-     * 
-     * @param textArea The JTextArea (study or quiz mode) where the flashcard content will be displayed.
-     */
-    public static void updateCard(JTextArea textArea) {
-        if (flashcards.isEmpty()) {
-            textArea.setText("No flashcards available");
-        } else {
-            Flashcard currentCard = flashcards.get(currentCardIndex);
-            int brightness = (int) (0.299 * currentCard.getColor().getRed() +
-                                    0.587 * currentCard.getColor().getGreen() +
-                                    0.114 * currentCard.getColor().getBlue());
-            if (showingQuestion) {
-                textArea.setText(" Flashcard number " + currentCard.getNumber() +  "\n\n Question:\n\n " + currentCard.getQuestion());
-                textArea.setBackground(currentCard.getColor());
-                if (brightness < 128) {
-                    textArea.setForeground(Color.WHITE);
-                } else{
-                    textArea.setForeground(Color.BLACK);
-                }
-            } else {
-                textArea.setText(" Flashcard number " + currentCard.getNumber() +"\n\n Answer:\n\n " + currentCard.getAnswer());
-                textArea.setBackground(currentCard.getColor());
-                if (brightness < 128) {
-                    textArea.setForeground(Color.WHITE);
-                } else {
-                    textArea.setForeground(Color.BLACK);
-                }
-            }
-        }
-    }
+/**
+ * Provides functionality for a flashcard study application.
+ * 
+ * This package contains classes responsible for managing a flashcard database, 
+ * creating a user interface, and handling user interactions with the database.
+ * 
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes: 
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ * 
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for UI, file handling, database connection, 
+ * and other utilities required for the flashcard application.
+ */
+import java.awt.*;
+import java.awt.event.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+import javax.swing.*;     
+
+/**
+ * MainApp is the class responsible for creating the user interface
+ * and handling user interactions with the application.
+ */
+public class MainApp {
+
+    private static JFrame frame; 
+    public static boolean showingQuestion;
+    private static int numberOfCards;
+    
+    private JButton[] buttons;
+    private  JButton[] qbuttons;
+    private JPanel panel;
+    private JButton addButton;
+    private JButton editButton;
+    private JButton removeButton;
+    private  JButton removeAllButton;
+    private  JLabel lastBest;
+    public  JButton nextButton;
+    public JButton prevButton;
+    public  JButton flipButton;
+    private JButton quizModeButton; 
+    private JButton statisticsButton;
+    private  int best;
+    private int total_best;
+    private QuizSampler.Sequence quizSequence;
+    private int quizPosition;
+
+    /** Prepares the flashcards around the visible one in deck order. */
+    private final CardPrefetcher studyPrefetcher = new CardPrefetcher();
+
+    /** Prepares the flashcards around the visible one in quiz order. */
+    private final CardPrefetcher quizPrefetcher = new CardPrefetcher();
+
+    public static  int currentCardIndex;
+    public static List<Flashcard> flashcards;
+    public static JTextArea cardTextArea;
+
+    /** The application window object, used to resume an interrupted quiz. */
+    private static MainApp app;
+
+    /** Journal of the running quiz session, or null if it cannot be written. */
+    private static QuizJournal journal;
+
+    /** Number of imported flashcards written per transaction. */
+    private static final int IMPORT_BATCH_SIZE = 10_000;
+
+    /** Client property of a card area holding its attachment label. */
+    private static final String ATTACHMENT_LABEL = "attachmentLabel";
+
+    /** Delay collecting deck changes into one refresh of the card area, one frame at 60 Hz, in milliseconds. */
+    private static final int REFRESH_DELAY = 16;
+
+    /** Refreshes the card area once after a burst of deck changes. */
+    private static Timer refreshTimer;
+
+    /** System property that makes the application report the time to the first card and exit, for measurements and training runs. */
+    public static final String EXIT_AFTER_STARTUP_PROPERTY = "flashcards.exitAfterStartup";
+
+    /** Opening and migrating the database, started once per application run. */
+    private static CompletableFuture<Void> database;
+
+    /** Whether the quiz window is open. */
+    private static boolean quizOpen;
+
+    /** Number of changes applied to the loaded deck, to detect changes made while it is reloaded. */
+    private static int deckVersion;
+    
+
+    /**
+     * Constructor that initializes the flashcards, starts opening the database
+     * and creates the user interface of the study mode. The database is opened
+     * on a background thread while the interface is built; the deck is loaded
+     * later by loadDeck. The quiz window and the dialogs are built when opened.
+     */
+    public MainApp() {
+        flashcards = new ArrayList<>();
+        currentCardIndex = 0;
+        showingQuestion = true;
+        subscribeToDeckEvents();
+        openDatabase();
+        studyMode();
+        setButtonsResponses();
+        Toolkit.getDefaultToolkit().addAWTEventListener(e -> DeckCompactor.touch(),
+                AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK);
+        openJournal();
+    }
+
+    /**
+     * Starts opening the database on a background thread, once per application run.
+     * Exits if the connection cannot be established.
+     *
+     * @return the opening, completed when the database is ready
+     */
+    static synchronized CompletableFuture<Void> openDatabase() {
+        if (database == null) {
+            database = CompletableFuture.runAsync(() -> {
+                DBconnection.initializeDatabase();
+                if (DBconnection.getConnection() == null) {
+                    System.err.println("Database connection could not be established");
+                    System.exit(1);
+                }
+            });
+        }
+        return database;
+    }
+
+    /**
+     * Loads the deck and shows its first flashcard. The deck is read on a background
+     * thread with its own connection, and the card area says so meanwhile. Called on
+     * the event dispatch thread when the window is shown, before the start-up
+     * questions are answered.
+     *
+     * @return the loading, completed on the event dispatch thread when the first flashcard is shown
+     */
+    CompletableFuture<Void> loadDeck() {
+        cardTextArea.setText("Loading flashcards...");
+        return readDeck().thenAcceptAsync(deck -> {
+            deckVersion++;
+            flashcards.clear();
+            flashcards.addAll(deck);
+            numberOfCards = flashcards.size();
+            currentCardIndex = 0;
+            showingQuestion = true;
+            updateCard(cardTextArea);
+            studyPrefetcher.moved(currentCardIndex, flashcards.size(), flashcards::get);
+            DeckCompactor.start();
+            if (Boolean.getBoolean(EXIT_AFTER_STARTUP_PROPERTY)) {
+                SwingUtilities.invokeLater(() -> {
+                    long started = ProcessHandle.current().info().startInstant()
+                            .map(Instant::toEpochMilli).orElse(System.currentTimeMillis());
+                    System.out.println("Startup: first of " + flashcards.size() + " flashcards shown after "
+                            + (System.currentTimeMillis() - started) + " ms");
+                    System.exit(0);
+                });
+            }
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Reads the deck on a background thread with its own connection, once the
+     * database is open.
+     *
+     * @return the reading, completed with the flashcards, empty if they cannot be read
+     */
+    private static CompletableFuture<List<Flashcard>> readDeck() {
+        return openDatabase().thenApplyAsync(ignored -> {
+            try (Connection c = DBconnection.openConnection()) {
+                return DBconnection.readDeck(c);
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+                return new ArrayList<Flashcard>();
+            }
+        });
+    }
+
+    /**
+     * Reloads the deck after a change the events do not describe, e.g. renumbering.
+     * The deck is read off the event dispatch thread and replaces the loaded one
+     * on it; the current flashcard stays current. If the loaded deck was changed
+     * while reading, the deck is read again, so no change is lost. Called on the
+     * event dispatch thread.
+     */
+    private static void reloadDeck() {
+        int version = deckVersion;
+        readDeck().thenAcceptAsync(deck -> {
+            if (version != deckVersion) {
+                reloadDeck();
+                return;
+            }
+            Flashcard current = currentCardIndex < flashcards.size() ? flashcards.get(currentCardIndex) : null;
+            deckVersion++;
+            flashcards.clear();
+            flashcards.addAll(deck);
+            numberOfCards = flashcards.size();
+            currentCardIndex = Math.max(0, Math.min(indexOf(current), flashcards.size() - 1));
+            requestRefresh();
+        }, SwingUtilities::invokeLater);
+    }
+
+    /**
+     * Returns the index of a flashcard in the loaded deck, found by its uid,
+     * or by its number if it has none.
+     *
+     * @param card the flashcard, or null
+     * @return the index, or the index of the following number if the flashcard is gone
+     */
+    private static int indexOf(Flashcard card) {
+        if (card == null) {
+            return 0;
+        }
+        if (card.getUid() != null) {
+            for (int i = 0; i < flashcards.size(); i++) {
+                if (card.getUid().equals(flashcards.get(i).getUid())) {
+                    return i;
+                }
+            }
+        }
+        return indexOfNumber(card.getNumber());
+    }
+
+    /**
+     * Subscribes the study mode to the changes published by the storage,
+     * once per application run. The listeners update the loaded deck on the
+     * event dispatch thread and request a coalesced refresh of the card area.
+     * A new flashcard added in the study mode becomes the current one; restored
+     * flashcards and flashcards added while the quiz is open do not move it.
+     */
+    private static void subscribeToDeckEvents() {
+        if (refreshTimer != null) {
+            return;
+        }
+        refreshTimer = new Timer(REFRESH_DELAY, e -> {
+            if (cardTextArea != null) {
+                updateCard(cardTextArea);
+            }
+        });
+        refreshTimer.setRepeats(false);
+
+        DeckEvents.subscribe(DeckEvents.CardAdded.class, e -> onEventThread(() -> {
+            Flashcard card = e.getCard();
+            int index = indexOfNumber(card.getNumber());
+            deckVersion++;
+            flashcards.add(index, card);
+            if (!e.isRestored() && !quizOpen) {
+                currentCardIndex = index;
+                showingQuestion = true;
+            } else if (index <= currentCardIndex && flashcards.size() > 1) {
+                currentCardIndex++;
+            }
+            requestRefresh();
+        }));
+        DeckEvents.subscribe(DeckEvents.CardRemoved.class, e -> onEventThread(() -> {
+            deckVersion++;
+            flashcards.remove(e.getCard());
+            if (currentCardIndex >= flashcards.size()) {
+                currentCardIndex = flashcards.size() - 1;
+            }
+            currentCardIndex = Math.max(0, currentCardIndex - 1);
+            requestRefresh();
+        }));
+        DeckEvents.subscribe(DeckEvents.CardsUpdated.class, e -> onEventThread(() -> {
+            deckVersion++;
+            Map<String, Flashcard> updated = new HashMap<>();
+            for (Flashcard card : e.getCards()) {
+                updated.put(card.getUid(), card);
+            }
+            for (int i = 0; i < flashcards.size() && !updated.isEmpty(); i++) {
+                Flashcard card = updated.remove(flashcards.get(i).getUid());
+                if (card != null) {
+                    flashcards.set(i, card);
+                }
+            }
+            requestRefresh();
+        }));
+        DeckEvents.subscribe(DeckEvents.RangeRecolored.class, e -> onEventThread(() -> {
+            deckVersion++;
+            for (int i = indexOfNumber(e.getFromNumber());
+                 i < flashcards.size() && flashcards.get(i).getNumber() <= e.getToNumber(); i++) {
+                flashcards.set(i, flashcards.get(i).withColor(e.getColor()));
+            }
+            requestRefresh();
+        }));
+        DeckEvents.subscribe(DeckEvents.RangeMoved.class, e -> onEventThread(() -> {
+            deckVersion++;
+            Flashcard current = currentCardIndex < flashcards.size() ? flashcards.get(currentCardIndex) : null;
+            int from = indexOfNumber(e.getLowestNumber());
+            int to = indexOfNumber(e.getHighestNumber() + 1);
+            List<Flashcard> moved = flashcards.subList(from, to);
+            for (int i = 0; i < moved.size(); i++) {
+                Flashcard card = moved.get(i);
+                moved.set(i, card.withNumber(e.renumber(card.getNumber())));
+                if (card == current) {
+                    current = moved.get(i);
+                }
+            }
+            moved.sort((a, b) -> Integer.compare(a.getNumber(), b.getNumber()));
+            if (current != null && currentCardIndex >= from && currentCardIndex < to) {
+                currentCardIndex = from + moved.indexOf(current);
+            }
+            requestRefresh();
+        }));
+        DeckEvents.subscribe(DeckEvents.DeckCleared.class, e -> onEventThread(() -> {
+            deckVersion++;
+            flashcards = new ArrayList<>();
+            currentCardIndex = 0;
+            requestRefresh();
+        }));
+        DeckEvents.subscribe(DeckEvents.BulkImportFinished.class, e -> onEventThread(() -> {
+            if (e.getCards() == null) {
+                reloadDeck();
+            } else {
+                deckVersion++;
+                flashcards.addAll(e.getCards());
+                requestRefresh();
+            }
+        }));
+        DeckEvents.subscribe(DeckEvents.DeckChanged.class, e -> onEventThread(MainApp::reloadDeck));
+    }
+
+    /**
+     * Returns the index of the first loaded flashcard numbered at least the given number.
+     *
+     * @param number the flashcard number
+     * @return the index, the size of the deck if all flashcards are numbered lower
+     */
+    private static int indexOfNumber(int number) {
+        int index = 0;
+        int high = flashcards.size();
+        while (index < high) {
+            int middle = (index + high) >>> 1;
+            if (flashcards.get(middle).getNumber() < number) {
+                index = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Runs a task on the event dispatch thread, directly if called from it.
+     *
+     * @param task the task
+     */
+    private static void onEventThread(Runnable task) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+        } else {
+            SwingUtilities.invokeLater(task);
+        }
+    }
+
+    /**
+     * Refreshes the card area after the current burst of changes, at most
+     * once per frame, instead of once per change.
+     */
+    private static void requestRefresh() {
+        if (!refreshTimer.isRunning()) {
+            refreshTimer.start();
+        }
+    }
+
+    /**
+     * Opens the quiz session journal, once per application run.
+     * Without it the quiz works, but cannot be resumed.
+     */
+    private static void openJournal() {
+        if (journal != null) {
+            return;
+        }
+        try {
+            journal = QuizJournal.open(QuizJournal.DEFAULT_PATH);
+        } catch (IOException e) {
+            System.out.println("Quiz session journal is not available: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Offers to resume the quiz session that was interrupted the last time
+     * the application ran, if the journal holds one. A session whose quiz
+     * sequence cannot be rebuilt as the user saw it (see QuizJournal.Session.matches)
+     * is discarded.
+     *
+     * @param keepDeck false if the deck was replaced, so the session is discarded
+     */
+    private void offerResume(boolean keepDeck) {
+        QuizJournal.Session session = QuizJournal.replay(QuizJournal.DEFAULT_PATH);
+        if (session == null || journal == null) {
+            return;
+        }
+        if (keepDeck && !session.matches(
+                new QuizSampler(session.getSeed()).sequence(session.getMode(), flashcards), flashcards)) {
+            System.out.println("The interrupted quiz cannot be resumed, its flashcards have changed.");
+            keepDeck = false;
+        }
+        if (keepDeck) {
+            int choice = JOptionPane.showConfirmDialog(frame,
+                    "Resume the interrupted quiz? Score: " + session.getScore() + "/" + session.getTotal(),
+                    "Resume Quiz", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                quizMode(session);
+                return;
+            }
+        }
+        journal.end();
+    }
+
+    /**
+     * The main method initializes the application and displays the main application
+     * window, which asks the user about initial settings (see start). The database is
+     * opened while the window is built.
+     * With -Dflashcards.exitAfterStartup=true the application reports the time to the
+     * first card and exits, without waiting for the answers.
+     * With "--export file" the flashcards are exported and the application exits;
+     * with "--grade exam results" the answers of a written exam are graded into
+     * the results file and the application exits;
+     * with "--edit file" the flashcards are edited from a "uid;question;answer" file,
+     * with "--recolor from to color" a range of flashcards gets a color (e.g. #ff8800),
+     * and with "--move from to target" a range of flashcards is moved to the target number,
+     * and the application exits;
+     * with "--watch directory" flashcard files written to the directory are imported
+     * while the application runs.
+     */
+    public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("--export")) {
+            DBconnection.initializeDatabase();
+            exportFlashCards(args[1]);
+            return;
+        }
+        if (args.length == 3 && args[0].equals("--grade")) {
+            DBconnection.initializeDatabase();
+            gradeExam(args[1], args[2]);
+            return;
+        }
+        if (args.length == 2 && args[0].equals("--edit")) {
+            DBconnection.initializeDatabase();
+            editFlashCards(args[1]);
+            return;
+        }
+        if (args.length == 4 && (args[0].equals("--recolor") || args[0].equals("--move"))) {
+            DBconnection.initializeDatabase();
+            changeRange(args[0], args[1], args[2], args[3]);
+            return;
+        }
+        openDatabase();
+        SwingUtilities.invokeLater(() -> {
+            app = new MainApp();
+            frame.setVisible(true);
+            app.start();
+        });
+        if (args.length == 2 && args[0].equals("--watch")) {
+            openDatabase().join();
+            try {
+                WatchFolderIngestor.start(Path.of(args[1]));
+            } catch (IOException e) {
+                System.out.println("Cannot watch " + args[1] + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Loads the deck and asks the start-up questions in the shown window. The
+     * existing deck is usually kept, so it is loaded while the user answers; a
+     * new database and the flashcards of a file are applied once it is loaded,
+     * and the interrupted quiz is offered after that. Called on the event
+     * dispatch thread.
+     */
+    private void start() {
+        CompletableFuture<Void> loading = loadDeck();
+        String start = askUserStart();
+        String type = askUserType();
+        Path file = type.equals("f") ? chooseDeckFile() : null;
+        boolean keepDeck = start.equals("c");
+        loading.thenRun(() -> {
+            if (start.equals("n")) {
+                DBconnection.removeAll();
+                numberOfCards = 0;
+            }
+            if (file != null) {
+                importFlashCards(file).thenRunAsync(() -> offerResume(keepDeck), SwingUtilities::invokeLater);
+            } else {
+                offerResume(keepDeck);
+            }
+        });
+    }
+
+    /**
+     * Asks the user to decide whether to create a new flashcard database
+     * or continue working with the most recently created one.
+     *
+     * @return "n" to create a new database or "c" to continue with the existing one.
+     */
+    public static String askUserStart() {
+        Object[] options = {"Continue", "New"};
+        int answer = JOptionPane.showOptionDialog(frame,
+                "Do you want to create a new database of flashcards, or to use the latest created one?",
+                "Flashcards", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        return answer == 1 ? "n" : "c";
+    }
+
+    /**
+     * Asks the user to specify whether to load flashcards from a file or add them manually.
+     *
+     * @return "f" to load from a file, or "m" to add manually.
+     */
+    public static String askUserType() {
+        Object[] options = {"Manually", "From a file"};
+        int answer = JOptionPane.showOptionDialog(frame,
+                "Do you want to download flashcards from the file, or to add them manually?",
+                "Flashcards", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        return answer == 1 ? "f" : "m";
+    }
+
+    /**
+     * Lets the user choose a file with flashcards. The question and answer fields
+     * are mandatory; the expected content is one "Question;Answer" line per
+     * flashcard, e.g. "What is the capital of Czech Republic?;Prague".
+     *
+     * @return the chosen file, or null if none was chosen
+     */
+    private static Path chooseDeckFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Flashcards file (Question;Answer lines, .jsonl or .gz)");
+        if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            return chooser.getSelectedFile().toPath();
+        }
+        return null;
+    }
+
+    /**
+     * Adds the flashcards of a file to the database and to the loaded deck. The
+     * file is read on a background thread with its own connection and the
+     * flashcards are added in batches, each in one transaction; the loaded deck
+     * is updated by the BulkImportFinished event.
+     * Files named ".json" or ".jsonl", as written by the JSON Lines export,
+     * are read with their colors.
+     *
+     * @param pathToFile the file with the flashcards
+     * @return the import, completed when the flashcards are added
+     */
+    static CompletableFuture<Void> importFlashCards(Path pathToFile) {
+        return openDatabase().thenRunAsync(() -> {
+            List<Flashcard> imported = new ArrayList<>();
+            DeckExporter.Format format = DeckExporter.formatOf(pathToFile.toString());
+            try (Connection c = DBconnection.openConnection();
+                 BufferedReader br = openDeckFile(pathToFile)) {
+                String line;
+                int number = DBconnection.nextNumber(c) - 1;
+                List<Flashcard> batch = new ArrayList<>();
+                while ((line = br.readLine()) != null && !line.isEmpty()) {
+                    number++;
+                    batch.add(DeckExporter.readCard(line, format, number));
+                    if (batch.size() == IMPORT_BATCH_SIZE) {
+                        addBatch(c, batch, imported);
+                    }
+                }
+                addBatch(c, batch, imported);
+            } catch (IOException | SQLException e) {
+                System.out.println("Error reading the file: " + e.getMessage());
+            }
+            System.out.println(imported.size() + " flashcards imported from " + pathToFile);
+            if (!imported.isEmpty()) {
+                DeckEvents.publish(new DeckEvents.BulkImportFinished(imported.size(), imported));
+            }
+        });
+    }
+
+    /**
+     * Adds a batch of imported flashcards in one transaction and moves them
+     * to the imported ones.
+     *
+     * @param c the connection of the import
+     * @param batch the flashcards to add, emptied afterwards
+     * @param imported the flashcards added so far
+     * @throws SQLException if the batch cannot be added; it is rolled back
+     */
+    private static void addBatch(Connection c, List<Flashcard> batch, List<Flashcard> imported) throws SQLException {
+        c.setAutoCommit(false);
+        try {
+            DBconnection.addFlashcards(c, batch);
+            c.commit();
+        } catch (SQLException e) {
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        DBconnection.addCount(batch.size());
+        imported.addAll(batch);
+        batch.clear();
+    }
+    
+    /**
+     * Opens a flashcard file for reading. Files ending with ".gz"
+     * (for example compressed exports) are decompressed on the fly.
+     *
+     * @param pathToFile the path to the file
+     * @return a reader over the file content
+     * @throws IOException if the file cannot be opened
+     */
+    private static BufferedReader openDeckFile(Path pathToFile) throws IOException {
+        InputStream in = Files.newInputStream(pathToFile);
+        if (pathToFile.toString().endsWith(".gz")) {
+            in = new GZIPInputStream(in);
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Exports the flashcards to the given file and reports the result.
+     * The format is chosen by the file name: ".json" or ".jsonl" selects JSON Lines,
+     * anything else the "Question;Answer" format, and a ".gz" suffix enables compression.
+     *
+     * @param file the path to the export file
+     */
+    public static void exportFlashCards(String file) {
+        try {
+            long exported = DeckExporter.export(Path.of(file), DeckExporter.formatOf(file), file.endsWith(".gz"));
+            System.out.println(exported + " flashcards exported to " + file);
+        } catch (IOException | SQLException e) {
+            System.out.println("Error exporting flashcards: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Grades the answers of a written exam against the deck and writes
+     * the results of every student.
+     *
+     * @param exam the file with the answers
+     * @param results the file to write the results to
+     */
+    public static void gradeExam(String exam, String results) {
+        try {
+            BatchGrader.Summary summary = BatchGrader.grade(DBconnection.getConnection(), Path.of(exam), Path.of(results));
+            System.out.println(summary);
+        } catch (IOException | SQLException e) {
+            System.out.println("Error grading the exam: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Edits flashcards from a file with one "uid;question;answer" line per
+     * flashcard, in one transaction. The uids are those of the JSON Lines export;
+     * a number instead of the uid finds the flashcard by its current number.
+     * Nothing is changed if a line is invalid.
+     *
+     * @param file the edit file, optionally gzip-compressed
+     */
+    public static void editFlashCards(String file) {
+        List<Flashcard> edits = new ArrayList<>();
+        try (BufferedReader br = openDeckFile(Path.of(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                if (fields.length != 3 || fields[1].isBlank() || fields[2].isBlank()) {
+                    System.out.println("Invalid line " + lineNumber + ", no flashcards edited");
+                    return;
+                }
+                String key = fields[0].trim();
+                if (key.isEmpty()) {
+                    System.out.println("Invalid line " + lineNumber + ", no flashcards edited");
+                    return;
+                }
+                try {
+                    edits.add(new Flashcard(fields[1].trim(), fields[2].trim(), Integer.parseInt(key), null));
+                } catch (NumberFormatException e) {
+                    edits.add(new Flashcard(fields[1].trim(), fields[2].trim(), 0, null, null, key));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error reading the file.");
+            return;
+        }
+        System.out.println(DBconnection.editFlashcards(edits).size() + " flashcards edited");
+    }
+
+    /**
+     * Recolors or moves a range of flashcards given by their numbers.
+     *
+     * @param option "--recolor" or "--move"
+     * @param from the first number of the range
+     * @param to the last number of the range
+     * @param value the color, or the target number
+     */
+    public static void changeRange(String option, String from, String to, String value) {
+        try {
+            int fromNumber = Integer.parseInt(from);
+            int toNumber = Integer.parseInt(to);
+            if (option.equals("--recolor")) {
+                System.out.println(DBconnection.recolor(fromNumber, toNumber, Color.decode(value)) + " flashcards recolored");
+            } else {
+                System.out.println(DBconnection.moveRange(fromNumber, toNumber, Integer.parseInt(value)) + " flashcards renumbered");
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid number or color: " + e.getMessage());
+        }
+    }
+
+    /** 
+     *  Creates UI for study mode (frame, card area, buttons, score label).
+     */
+    private void studyMode() {
+        frame = new JFrame("Flashcards App");
+        frame.setSize(850, 600);
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        int x = (screenSize.width - frame.getWidth()) / 2;
+        int y = (screenSize.height - frame.getHeight()) / 2;
+        frame.setLocation(x, y);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        cardTextArea = new JTextArea();
+        cardTextArea.setEditable(false); 
+        cardTextArea.setFont(new Font("Arial", Font.BOLD, 24));
+        cardTextArea.setLineWrap(true); 
+        cardTextArea.setWrapStyleWord(true); 
+        cardTextArea.setBackground(Color.GRAY);
+
+        panel = new JPanel();
+        panel.setLayout(new BorderLayout());
+        panel.add(cardTextArea, BorderLayout.CENTER); 
+        panel.add(createAttachmentLabel(cardTextArea), BorderLayout.EAST);
+
+        nextButton = new JButton("Next");
+        prevButton = new JButton("Previous");
+        flipButton = new JButton("Flip");
+        addButton = new JButton("Add Question");
+        editButton = new JButton("Edit Question");
+        removeButton = new JButton("Delete Question");
+        removeAllButton = new JButton("Delete All");
+        quizModeButton = new JButton ("Quiz Mode");
+        statisticsButton = new JButton("Statistics");
+
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.setLayout(new GridLayout(2, 5, 10, 10)); 
+
+        buttons = new JButton[]{nextButton, prevButton, flipButton, addButton, editButton, removeButton, removeAllButton, quizModeButton, statisticsButton};
+        for (JButton button : buttons) {
+            button.setFont(new Font("Arial", Font.BOLD, 16));
+            if(button.equals(prevButton)){
+                button.setPreferredSize(new Dimension(140, 40));
+            } else if(button.equals(addButton) || button.equals(editButton) || button.equals(removeAllButton)){
+                button.setPreferredSize(new Dimension(180, 40));
+            } else if (button.equals(removeButton)){
+                button.setPreferredSize(new Dimension(200, 40));
+            } else if (button.equals(quizModeButton) || button.equals(statisticsButton)){
+                button.setPreferredSize(new Dimension(210, 40));
+            }  else {
+             button.setPreferredSize(new Dimension(100, 40));    
+            }
+            buttonPanel.add(button);
+        }   
+        lastBest = new JLabel("Best score: " + best + "/" + total_best);
+        lastBest.setFont(new Font("Arial", Font.BOLD, 18));
+        buttonPanel.add(lastBest);
+        panel.add(buttonPanel, BorderLayout.SOUTH);  
+        panel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undoRemove");
+        panel.getActionMap().put("undoRemove", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undoRemove();
+            }
+        });
+        frame.add(panel);  
+        updateCard(cardTextArea);
+    }
+
+    
+    /**
+     * Creates the label showing the attachment of the flashcard displayed
+     * in a card area. The label is hidden while the flashcard has no attachment.
+     *
+     * @param textArea the card area (study or quiz mode)
+     * @return the attachment label
+     */
+    private static JLabel createAttachmentLabel(JTextArea textArea) {
+        JLabel label = new JLabel();
+        label.setFont(new Font("Arial", Font.BOLD, 16));
+        label.setHorizontalAlignment(SwingConstants.CENTER);
+        label.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        label.setVisible(false);
+        AttachmentStore.installOpenOnClick(label);
+        textArea.putClientProperty(ATTACHMENT_LABEL, label);
+        return label;
+    }
+
+    /**
+     * Restores the most recently removed flashcard (Ctrl+Z in study mode)
+     * and displays it.
+     */
+    private static void undoRemove() {
+        DBconnection.undoRemove();
+    }
+
+    /**
+     * Generates a random color to be used for flashcards.
+     *
+     * @return A randomly generated Color object.
+     */
+    static Color generateRandomColor() {
+        Random rand = new Random();
+        return new Color(rand.nextInt(256), rand.nextInt(256), rand.nextInt(256));
+    }
+
+    /**
+     * Enables all buttons in the application UI.
+     */
+    private void enableButtons(JButton[] buttons) {
+        for (JButton button : buttons) {
+            button.setEnabled(true);
+        }   
+    }
+
+    /**
+     * Disables all buttons in the application UI.
+     */
+    private void disableButtons(JButton[] buttons) {
+        for (JButton button : buttons) {
+            button.setEnabled(false);
+        }   
+    }
+
+    /**
+     * Sets the behavior of buttons when clicked.
+     */
+    private void setButtonsResponses() {
+        /**
+         * Moves to the next flashcard, if available.
+         */
+        nextButton.addActionListener((ActionEvent e) -> {
+            if (currentCardIndex < flashcards.size() - 1) {
+                currentCardIndex++;
+                showingQuestion = true;
+                updateCard(cardTextArea);
+                studyPrefetcher.moved(currentCardIndex, flashcards.size(), flashcards::get);
+            } else {
+                showWarningDialog(buttons);
+            }
+        });
+
+        /**
+         * Moves to the previous flashcard, if available.
+         */
+        prevButton.addActionListener((ActionEvent e) -> {
+            if (currentCardIndex > 0) {
+                currentCardIndex--;
+                showingQuestion = true;
+                updateCard(cardTextArea);
+                studyPrefetcher.moved(currentCardIndex, flashcards.size(), flashcards::get);
+            } else {
+                showWarningDialog(buttons);
+            }
+        });
+
+        /**
+         * Flips the current flashcard to show either the question or the answer.
+         */
+        flipButton.addActionListener((ActionEvent e) -> {
+            showingQuestion = !showingQuestion;
+            updateCard(cardTextArea);
+        });
+
+        /**
+         * Opens a dialog window allowing the user to add a new flashcard
+         * by entering a question and an answer.
+         */
+        addButton.addActionListener((ActionEvent e) -> {
+            openFlashcardDialog(null);
+        });
+
+        /**
+         * Opens a dialog window allowing the user to correct the question
+         * and the answer of the currently displayed flashcard.
+         */
+        editButton.addActionListener((ActionEvent e) -> {
+            if (!flashcards.isEmpty()) {
+                openFlashcardDialog(flashcards.get(currentCardIndex));
+            }
+        });
+
+        /**
+         * Removes the currently displayed flashcard from the database.
+         */
+        removeButton.addActionListener((ActionEvent e) -> {
+            if (!flashcards.isEmpty()) {
+                Flashcard currentCard = flashcards.get(currentCardIndex);
+                showRemovalDialog("Do you want to remove this question?",
+                        () -> DBconnection.removeFlashcard(currentCard));
+            }
+        });
+
+        /**
+         * Deletes all flashcards from the database.
+         */
+        removeAllButton.addActionListener((ActionEvent e) -> {
+            if (!flashcards.isEmpty()) {
+                showRemovalDialog("Do you want to remove everything?", DBconnection::removeAll);
+            }
+        });
+
+        /**
+         * Starts the quiz mode
+         */
+        quizModeButton.addActionListener((ActionEvent e) -> {
+            quizMode(null);
+        });
+
+        /**
+         * Shows the study statistics once the answers given so far are written.
+         */
+        statisticsButton.addActionListener((ActionEvent e) -> {
+            StudyStats.flushed().thenRun(() -> SwingUtilities.invokeLater(MainApp::openStatisticsDialog));
+        });
+    }
+
+    /**
+     * Create UI for the quiz mode (frame, card area, buttons).
+     *
+     * @param resume the interrupted session to continue, or null to start a new quiz
+     */
+    private void quizMode(QuizJournal.Session resume) {
+        frame.setVisible(false);
+        quizOpen = true;
+
+        JTextArea quizTextArea = new JTextArea();
+        quizTextArea.setEditable(false); 
+        quizTextArea.setFont(new Font("Arial", Font.BOLD, 24));
+        quizTextArea.setLineWrap(true); 
+        quizTextArea.setWrapStyleWord(true); 
+        quizTextArea.setBackground(Color.GRAY);
+
+        JFrame qframe = new JFrame("Quiz Mode");
+        qframe.setSize(850, 600);
+        Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
+        int x = (screenSize.width - qframe.getWidth()) / 2;
+        int y = (screenSize.height - qframe.getHeight()) / 2;
+        qframe.setLocation(x, y);
+        qframe.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        
+        JPanel qpanel = new JPanel();
+        qpanel.setLayout(new BorderLayout());
+        qpanel.add(quizTextArea, BorderLayout.CENTER);
+        qpanel.add(createAttachmentLabel(quizTextArea), BorderLayout.EAST);
+        QuizSampler sampler = resume != null ? new QuizSampler(resume.getSeed()) : QuizSampler.fromSystemProperty();
+        QuizSampler.Mode mode = resume != null ? resume.getMode() : QuizSampler.Mode.SHUFFLED;
+        if (resume == null) {
+            startQuiz(sampler, mode, quizTextArea);
+        } else {
+            quizSequence = resume.continued(sampler.sequence(mode, flashcards));
+            quizPosition = resume.getPosition();
+            currentCardIndex = resume.getCardIndex();
+            showingQuestion = true;
+            updateCard(quizTextArea);
+            prefetchQuiz();
+            journal.resume(resume);
+        }
+
+        JButton next = new JButton("Next");
+        JButton prev = new JButton("Previous");
+        JButton checkAnswerButton = new JButton("Check Answer");
+        JButton returnButton = new JButton("Return");
+        
+        JPanel quizButtonPanel = new JPanel(new FlowLayout());
+        qbuttons = new JButton[]{next, prev, checkAnswerButton, returnButton};
+        for (JButton button : qbuttons) {
+            button.setFont(new Font("Arial", Font.BOLD, 16));
+            if(button.equals(checkAnswerButton)){
+                button.setPreferredSize(new Dimension(200, 40));
+            } else {
+                button.setPreferredSize(new Dimension(180, 40));
+            } 
+            quizButtonPanel.add(button);
+        }   
+        JComboBox<QuizSampler.Mode> orderBox = new JComboBox<>(QuizSampler.Mode.values());
+        orderBox.setSelectedItem(mode);
+        orderBox.setFont(new Font("Arial", Font.BOLD, 16));
+        quizButtonPanel.add(orderBox);
+        qpanel.add(quizButtonPanel, BorderLayout.SOUTH);
+    
+        int[] score = {resume != null ? resume.getScore() : 0}; 
+        int[] total = {resume != null ? resume.getTotal() : 0}; 
+    
+        JLabel scoreLabel = new JLabel("Score: " + score[0] + "/" + total[0]);
+        scoreLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        qpanel.add(scoreLabel, BorderLayout.NORTH);
+
+        /**
+         * Moves to the next flashcard, if available.
+         */
+        next.addActionListener((ActionEvent e1) -> {
+            if (quizPosition < quizSequence.size() - 1) {
+                quizPosition++;
+                currentCardIndex = quizSequence.get(quizPosition);
+                if (journal != null) {
+                    journal.move(quizPosition, currentCardIndex);
+                }
+                showingQuestion = true;
+                updateCard(quizTextArea);
+                prefetchQuiz();
+            } else {
+                showWarningDialog(qbuttons);
+            }
+        });
+
+        /**
+         * Moves to the previous flashcard, if available.
+         */
+        prev.addActionListener((ActionEvent e1) -> {
+            if (quizPosition > 0) {
+                quizPosition--;
+                currentCardIndex = quizSequence.get(quizPosition);
+                if (journal != null) {
+                    journal.move(quizPosition, currentCardIndex);
+                }
+                showingQuestion = true;
+                updateCard(quizTextArea);
+                prefetchQuiz();
+            } else {
+                showWarningDialog(qbuttons);
+            }
+        });
+
+        /**
+         * Restarts the quiz sequence in the selected order. The score carries on,
+         * so it is recorded in the new session.
+         */
+        orderBox.addActionListener((ActionEvent e4) -> {
+            startQuiz(sampler, (QuizSampler.Mode) orderBox.getSelectedItem(), quizTextArea);
+            if (journal != null) {
+                journal.score(score[0], total[0]);
+            }
+        });
+
+        checkAnswerButton.addActionListener((ActionEvent e2) -> {
+            checkAnswer(score,total,qbuttons, scoreLabel);
+        });
+        
+        /**
+         * Displays a dialog with the final score and updates the best score. 
+         * When the dialog is closed, the quiz frame is disposed,
+         * and the main frame is visible.
+         */
+        returnButton.addActionListener((ActionEvent e3) -> {
+            if (journal != null) {
+                journal.end();
+            }
+            JDialog dialog = new JDialog(qframe, "Score", true);
+            dialog.setSize(300, 150);
+            dialog.setLocationRelativeTo(null);
+            JPanel panel = new JPanel();
+            JLabel lbl = new JLabel("Final score is " + score[0] + "/" + total[0]);
+            if (score[0] > best) {
+                best = score[0];
+                total_best = total[0];
+            }
+            lbl.setFont(new Font("Arial", Font.BOLD, 18));
+            panel.add(lbl);
+            dialog.add(panel,BorderLayout.SOUTH);
+            dialog.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent we) {
+                    qframe.dispose(); 
+                    quizOpen = false;
+                    frame.setVisible(true);  
+                    lastBest.setText("Best Score: " + best + "/" + total_best);
+                    quizPrefetcher.cancel();
+                    currentCardIndex = 0;
+                    updateCard(cardTextArea);
+                    studyPrefetcher.moved(currentCardIndex, flashcards.size(), flashcards::get);
+                }
+            });
+            dialog.setVisible(true);
+        });
+        qframe.add(qpanel);
+        qframe.setVisible(true);
+    }
+
+    /**
+     * Builds a new quiz sequence and shows its first flashcard.
+     *
+     * @param sampler the sampler building the sequence
+     * @param mode the order of the flashcards
+     * @param quizTextArea the quiz card area
+     */
+    private void startQuiz(QuizSampler sampler, QuizSampler.Mode mode, JTextArea quizTextArea) {
+        quizSequence = sampler.sequence(mode, flashcards);
+        quizPosition = 0;
+        currentCardIndex = quizSequence.size() > 0 ? quizSequence.get(0) : 0;
+        showingQuestion = true;
+        updateCard(quizTextArea);
+        quizPrefetcher.cancel();
+        prefetchQuiz();
+        if (journal != null) {
+            journal.start(sampler.getSeed(), mode, QuizJournal.fingerprint(flashcards));
+            if (quizSequence.size() > 0) {
+                journal.move(quizPosition, currentCardIndex);
+            }
+        }
+    }
+
+    /**
+     * Starts preparing the flashcards around the current quiz position.
+     */
+    private void prefetchQuiz() {
+        QuizSampler.Sequence sequence = quizSequence;
+        quizPrefetcher.moved(quizPosition, sequence.size(), i -> flashcards.get(sequence.get(i)));
+    }
+
+    /**
+     * Opens a dialog for the user to enter an answer to the current flashcard's question.
+     * The answer is checked and feedback is provided.
+     * 
+     * @param score  user's correct answerы count
+     * @param total  total number of questions answered
+     * @param quizButtons quiz buttons
+     * @param scoreLabel  current score label
+     */
+    private void checkAnswer(int[] score, int[] total, JButton[] quizButtons, JLabel scoreLabel) {
+        if (!flashcards.isEmpty()) {
+            Flashcard currentCard = flashcards.get(currentCardIndex);
+            String correctAnswer = currentCard.getAnswer();
+    
+            JDialog dialog = new JDialog(frame, "Check Answer", true);
+            dialog.setSize(450, 300);
+            dialog.setLocationRelativeTo(null);
+            dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE); 
+    
+            JPanel mainPanel = new JPanel();
+            mainPanel.setLayout(new BoxLayout(mainPanel, BoxLayout.Y_AXIS));
+            mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+    
+            JLabel instructionLabel = new JLabel("Enter your answer:");
+            instructionLabel.setFont(new Font("Arial", Font.BOLD, 18));
+            instructionLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+            mainPanel.add(instructionLabel);
+    
+            JTextField userInput = new JTextField();
+            userInput.setFont(new Font("Arial", Font.BOLD, 18));
+            userInput.setMaximumSize(new Dimension(400, 40)); 
+            mainPanel.add(userInput);
+    
+            JPanel buttonPanel = new JPanel();
+            JButton checkButton = new JButton("Check");
+            checkButton.setPreferredSize(new Dimension(200, 40));
+            buttonPanel.add(checkButton);
+            mainPanel.add(buttonPanel);
+    
+            JTextArea resultText = new JTextArea(3, 30);
+            resultText.setFont(new Font("Arial", Font.BOLD, 18));
+            resultText.setEditable(false);
+            resultText.setLineWrap(true);
+            resultText.setWrapStyleWord(true);
+    
+            JScrollPane scrollPane = new JScrollPane(resultText);
+            scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+            scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+            scrollPane.setPreferredSize(new Dimension(400, 80)); 
+            scrollPane.setMaximumSize(new Dimension(400, 100)); 
+            mainPanel.add(scrollPane);
+    
+            checkButton.addActionListener((ActionEvent e1) -> {
+                String userAnswer = userInput.getText().trim();
+                boolean correct = Flashcard.answersMatch(userAnswer, correctAnswer);
+                StudyStats.record(currentCard, correct);
+                if (journal != null) {
+                    journal.answer(quizPosition, currentCardIndex, correct);
+                }
+                if (correct) {
+                    resultText.setText("Correct!");
+                    score[0]++;
+                    total[0]++;
+                    resultText.setForeground(Color.GREEN);
+                } else {
+                    resultText.setText("Incorrect! Correct answer: " + correctAnswer);
+                    resultText.setForeground(Color.RED);
+                    total[0]++;
+                }
+                for (JButton button : quizButtons) {
+                    button.setEnabled(false);
+                }  
+                checkButton.setEnabled(false);
+                resultText.repaint();
+                scoreLabel.setText("Score: " + score[0] + "/" + total[0]);
+                
+            });
+    
+            dialog.add(mainPanel);
+            dialog.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent we) {
+                    for (JButton button : quizButtons) {
+                        button.setEnabled(true);
+                    } 
+                }
+            });
+    
+            dialog.setVisible(true); 
+            
+        } else {
+            JOptionPane.showMessageDialog(frame, "No flashcards available.", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Opens a dialog asking the user to confirm a removal.
+     *
+     * @param question the question shown in the dialog
+     * @param removal the removal, run when the user clicks "Yes"
+     */
+    private static void showRemovalDialog(String question, Runnable removal) {
+        JDialog dialog = new JDialog();
+        JTextArea label = new JTextArea(question);
+        label.setFont(new Font("Arial", Font.BOLD, 18));
+        label.setWrapStyleWord(true);
+        label.setLineWrap(true);
+        label.setOpaque(false); 
+        label.setEditable(false);
+        label.setFocusable(false);
+        label.setBorder(BorderFactory.createEmptyBorder(60, 40, 60, 20));
+
+        JPanel buttonPanel = new JPanel();
+        JButton yesButton = new JButton("Yes");
+        JButton noButton = new JButton("No");
+        buttonPanel.setLayout(new FlowLayout()); 
+        buttonPanel.add(yesButton);
+        buttonPanel.add(noButton);
+        dialog.setSize(400, 300);
+        dialog.setLocationRelativeTo(null);
+        dialog.setTitle("Confirm removal");
+        dialog.getContentPane().add(label, BorderLayout.CENTER);
+        dialog.getContentPane().add(buttonPanel, BorderLayout.SOUTH); 
+
+        /**
+         * Behaviour when the "Yes" button is clicked - run the removal; the card
+         * area is updated by the deck event the storage publishes.
+         */
+        yesButton.addActionListener((ActionEvent e) -> {
+            removal.run();
+            dialog.dispose();
+        });
+
+        /**
+         * Behaviour when the "No" button is clicked - cancel deletion,
+         * just close the dialog window.
+         */
+        noButton.addActionListener((ActionEvent e) -> {
+            dialog.dispose();
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Shows a warning if there are no more cards to display.
+     */
+    private void showWarningDialog(JButton[] buttons) {
+        JDialog dialog = new JDialog(frame, "Warning", true);
+        dialog.setSize(300, 150);
+        dialog.setLocationRelativeTo(null);
+        JPanel panel = new JPanel();
+        disableButtons(buttons);
+        JLabel lbl = new JLabel("No more flashcards");
+        lbl.setFont(new Font("Arial", Font.BOLD, 18));
+        panel.add(lbl);
+        dialog.add(panel,BorderLayout.SOUTH);
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent we) {
+                enableButtons(buttons);                
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Opens a dialog showing the study statistics: accuracy and streaks of the deck,
+     * answers of the last week and the hardest flashcards.
+     */
+    private static void openStatisticsDialog() {
+        StringBuilder text = new StringBuilder();
+        try {
+            Connection c = DBconnection.getConnection();
+            LocalDate today = LocalDate.now();
+            StudyStats.Summary summary = StudyStats.summary(c, today);
+            text.append(String.format("Answers: %d, correct: %d (%.0f%%)%n",
+                    summary.getReviews(), summary.getCorrect(), 100 * summary.getAccuracy()));
+            text.append(String.format("Correct in a row: %d (best %d)%n",
+                    summary.getStreak(), summary.getBestStreak()));
+            text.append(String.format("Study days in a row: %d (best %d)%n%n",
+                    summary.getDayStreak(), summary.getBestDayStreak()));
+            text.append("Last 7 days:\n");
+            for (Map.Entry<LocalDate, StudyStats.Counts> day : StudyStats.daily(c, today, 7).entrySet()) {
+                text.append(String.format("%s  %d answers, %d correct%n",
+                        day.getKey(), day.getValue().getReviews(), day.getValue().getCorrect()));
+            }
+            text.append("\nHardest flashcards:\n");
+            for (StudyStats.CardStats card : StudyStats.hardest(c, StudyStats.HARDEST_COUNT)) {
+                text.append(String.format("%s  %d/%d correct%n",
+                        card.getQuestion(), card.getCorrect(), card.getReviews()));
+            }
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            text.append("Statistics are not available.");
+        }
+
+        JDialog dialog = new JDialog(frame, "Statistics", true);
+        dialog.setSize(500, 450);
+        dialog.setLocationRelativeTo(null);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        JTextArea statsText = new JTextArea(text.toString());
+        statsText.setFont(new Font("Arial", Font.PLAIN, 16));
+        statsText.setEditable(false);
+        statsText.setLineWrap(true);
+        statsText.setWrapStyleWord(true);
+        statsText.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        dialog.add(new JScrollPane(statsText));
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Opens a dialog window for adding a new flashcard or editing an existing one.
+     * The dialog allows the user to input a question and an answer.
+     *
+     * @param editing the flashcard to edit, or null to add a new one
+     */
+    private static void openFlashcardDialog(Flashcard editing) {
+        JDialog dialog = new JDialog(frame, editing == null ? "Add Flashcard" : "Edit Flashcard", true);
+        dialog.setSize(460, 260);
+        dialog.setLocationRelativeTo(null);
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+    
+        JPanel panel1 = new JPanel();
+        panel1.setLayout(new BoxLayout(panel1, BoxLayout.Y_AXIS));
+        JPanel textPanel = new JPanel(new GridBagLayout());
+
+        JTextArea questionLabel = new JTextArea("Enter the question:");
+        
+        questionLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        questionLabel.setWrapStyleWord(true);
+        questionLabel.setLineWrap(true);
+        questionLabel.setOpaque(false); 
+        questionLabel.setEditable(false);
+        questionLabel.setFocusable(false);
+        questionLabel.setBorder(BorderFactory.createEmptyBorder(10, 10,0,10)); 
+        textPanel.add(questionLabel);
+
+        JTextArea answerLabel = new JTextArea("Enter the answer:");
+        answerLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        answerLabel.setWrapStyleWord(true);
+        answerLabel.setLineWrap(true);
+        answerLabel.setOpaque(false); 
+        answerLabel.setEditable(false);
+        answerLabel.setFocusable(false);
+        answerLabel.setBorder(BorderFactory.createEmptyBorder(10, 10,0,10)); 
+        textPanel.add(answerLabel);
+    
+        JTextField questionField = new JTextField(editing == null ? "" : editing.getQuestion());
+        questionField.setPreferredSize(new Dimension(350, 35));
+        questionField.setFont(new Font("Arial", Font.BOLD, 18));
+    
+        JTextField answerField = new JTextField(editing == null ? "" : editing.getAnswer());
+        answerField.setPreferredSize(new Dimension(350, 35));
+        answerField.setFont(new Font("Arial", Font.BOLD, 18));
+    
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        JButton saveButton = new JButton("Save");
+        JButton attachButton = new JButton("Attach File");
+        JButton cancelButton = new JButton("Cancel");
+        buttonPanel.add(saveButton);
+        if (editing == null) {
+            buttonPanel.add(attachButton);
+        }
+        buttonPanel.add(cancelButton);
+        Path[] attachment = {null};
+    
+        panel1.add(questionLabel);
+        panel1.add(questionField);
+        panel1.add(answerLabel);
+        panel1.add(answerField);
+        panel1.add(buttonPanel);
+        dialog.add(panel1);
+    
+        saveButton.addActionListener((ActionEvent e1) -> {
+            String question = questionField.getText().trim();
+            String answer = answerField.getText().trim();
+            if (editing != null) {
+                if (!question.isEmpty() && !answer.isEmpty()) {
+                    DBconnection.updateFlashcard(editing, question, answer);
+                    dialog.dispose();
+                }
+                return;
+            }
+            int number = DBconnection.nextNumber();
+            Color color = generateRandomColor();
+            if (!question.isEmpty() && !answer.isEmpty()) {
+                String hash = null;
+                if (attachment[0] != null) {
+                    try {
+                        hash = AttachmentStore.store(attachment[0]);
+                    } catch (IOException | SQLException ex) {
+                        JOptionPane.showMessageDialog(dialog, "Cannot attach the file: " + ex.getMessage(),
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                }
+                DBconnection.addFlashcard(question, answer, number, color, hash);
+                dialog.dispose();
+            }
+        });
+        /**
+         * Lets the user choose an image or audio file to attach to the new flashcard.
+         */
+        attachButton.addActionListener((ActionEvent e1) -> {
+            JFileChooser chooser = new JFileChooser();
+            chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter(
+                    "Images and audio", "png", "jpg", "jpeg", "gif", "bmp", "wav", "aiff", "au"));
+            if (chooser.showOpenDialog(dialog) == JFileChooser.APPROVE_OPTION) {
+                attachment[0] = chooser.getSelectedFile().toPath();
+                attachButton.setText(chooser.getSelectedFile().getName());
+            }
+        });
+        cancelButton.addActionListener((ActionEvent e1) -> {
+            dialog.dispose();
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Updates the flashcard displayed.
+     * If no flashcards are available, notifies the user.
+     * 
+     * @param textArea The JTextArea (study or quiz mode) where the flashcard content will be displayed.
+     */
+    public static void updateCard(JTextArea textArea) {
+        JLabel attachmentLabel = (JLabel) textArea.getClientProperty(ATTACHMENT_LABEL);
+        if (attachmentLabel != null) {
+            AttachmentStore.show(attachmentLabel, flashcards, currentCardIndex);
+        }
+        if (flashcards.isEmpty()) {
+            textArea.setText("No flashcards available");
+        } else {
+            CardPrefetcher.Rendered currentCard = CardPrefetcher.rendered(flashcards.get(currentCardIndex));
+            textArea.setText(currentCard.getText(showingQuestion));
+            textArea.setBackground(currentCard.getBackground());
+            textArea.setForeground(currentCard.getForeground());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,409 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for database access.
+ */
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Brings the schema of the flashcards database up to date.
+ *
+ * The schema version is stored in PRAGMA user_version. Every migration has a schema
+ * step, which only changes the schema and runs at startup in one transaction together
+ * with raising the version, and optionally a backfill, which fills the rows of the
+ * flashcards table that existed before the migration. Backfills walk the rows by id
+ * in small transactions, storing their position in the migration_backfill table in the
+ * same transaction as the rows, so they run in the background after startup and resume
+ * where they stopped when the application is closed in between.
+ *
+ * Schema steps are written so that they also work on databases created before the
+ * version was tracked, which already have some of the columns and tables.
+ * New migrations are appended to MIGRATIONS with the next version number.
+ */
+public class Migrations {
+
+    /** Number of rows filled per backfill transaction. */
+    private static final int CHUNK_SIZE = 2000;
+
+    /** Pause between backfill transactions, giving other connections the lock, in milliseconds. */
+    private static final long PAUSE_MILLIS = 5;
+
+    /**
+     * A change of the schema.
+     */
+    interface Step {
+        /**
+         * Applies the change.
+         *
+         * @param c the connection to use, inside the migration transaction
+         * @throws SQLException if the change cannot be applied
+         */
+        void apply(Connection c) throws SQLException;
+    }
+
+    /**
+     * Fills the flashcards existing before a migration, one range of ids at a time.
+     */
+    interface Backfill {
+        /**
+         * Returns the highest id the backfill has to process, evaluated before
+         * the schema step. Rows added later are filled when they are inserted.
+         *
+         * @param c the connection to use
+         * @return the highest id, or 0 if there is nothing to fill
+         * @throws SQLException if the rows cannot be read
+         */
+        long target(Connection c) throws SQLException;
+
+        /**
+         * Fills the rows with from &lt; id &lt;= to.
+         *
+         * @param c the connection to use, inside the chunk transaction
+         * @param from the last id already processed
+         * @param to the last id of the chunk
+         * @throws SQLException if the rows cannot be filled
+         */
+        void apply(Connection c, long from, long to) throws SQLException;
+
+        /**
+         * Finishes the migration after all rows are filled, for example by
+         * building an index over the filled column.
+         *
+         * @param c the connection to use, inside the last chunk transaction
+         * @throws SQLException if the migration cannot be finished
+         */
+        void finish(Connection c) throws SQLException;
+    }
+
+    /**
+     * A numbered migration.
+     */
+    static class Migration {
+
+        /** The schema version after the migration. */
+        final int version;
+
+        /** The schema step. */
+        final Step schema;
+
+        /** The backfill, or null. */
+        final Backfill backfill;
+
+        /**
+         * Creates a migration.
+         *
+         * @param version the schema version after the migration
+         * @param schema the schema step
+         * @param backfill the backfill, or null
+         */
+        Migration(int version, Step schema, Backfill backfill) {
+            this.version = version;
+            this.schema = schema;
+            this.backfill = backfill;
+        }
+    }
+
+    /** All migrations, in version order. */
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, DBconnection::createFlashcardsTable, null),
+            new Migration(2, c -> DBconnection.addColumnIfMissing(c, "deleted", "INTEGER NOT NULL DEFAULT 0"), null),
+            new Migration(3, c -> {
+                DBconnection.addColumnIfMissing(c, "attachment", "TEXT");
+                AttachmentStore.createTable(c);
+            }, null),
+            new Migration(4, c -> DBconnection.addColumnIfMissing(c, "uid", "TEXT"), new Backfill() {
+                @Override
+                public long target(Connection c) throws SQLException {
+                    return maxId(c);
+                }
+
+                @Override
+                public void apply(Connection c, long from, long to) throws SQLException {
+                    try (PreparedStatement s = c.prepareStatement("UPDATE flashcards " +
+                            "SET uid = lower(hex(randomblob(16))) WHERE id > ? AND id <= ? AND uid IS NULL")) {
+                        s.setLong(1, from);
+                        s.setLong(2, to);
+                        s.executeUpdate();
+                    }
+                }
+
+                @Override
+                public void finish(Connection c) throws SQLException {
+                    DBconnection.createIndexIfMissing(c, "uid", true);
+                }
+            }),
+            new Migration(5, ChangeLog::createTables, new Backfill() {
+                @Override
+                public long target(Connection c) throws SQLException {
+                    return tableExists(c, "changelog") ? 0 : maxId(c);
+                }
+
+                @Override
+                public void apply(Connection c, long from, long to) throws SQLException {
+                    ChangeLog.recordCards(c, "id > ? AND id <= ?", from, to);
+                }
+
+                @Override
+                public void finish(Connection c) {
+                }
+            }),
+            new Migration(6, StudyStats::createTables, null),
+            new Migration(7, TextCodec::createTable, null),
+            new Migration(8, c -> DBconnection.createIndexIfMissing(c, "deleted, number", false), null),
+            new Migration(9, c -> {
+                DBconnection.createIndexIfMissing(c, "deleted, number, uid", false);
+                DBconnection.dropIndexIfPresent(c, "deleted, number");
+            }, null)
+    );
+
+    /**
+     * Returns the schema version the application expects.
+     *
+     * @return the latest version
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    /**
+     * Applies the schema steps of all pending migrations. Backfills are only
+     * registered; they are run by runBackfills or startBackfills.
+     *
+     * @param c the connection to use
+     * @return the number of applied migrations
+     * @throws SQLException if a migration fails; earlier migrations stay applied
+     */
+    public static int migrate(Connection c) throws SQLException {
+        int version = userVersion(c);
+        if (version > latestVersion()) {
+            System.out.println("The database was created by a newer version of the application");
+            return 0;
+        }
+        if (version == 0) {
+            try (Statement s = c.createStatement()) {
+                s.execute("PRAGMA auto_vacuum = INCREMENTAL");
+            }
+        }
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS migration_backfill (" +
+                    "version INTEGER PRIMARY KEY, " +
+                    "position INTEGER NOT NULL, " +
+                    "target INTEGER NOT NULL)");
+        }
+        int applied = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= version) {
+                continue;
+            }
+            c.setAutoCommit(false);
+            try {
+                long target = migration.backfill == null ? 0 : migration.backfill.target(c);
+                migration.schema.apply(c);
+                if (migration.backfill != null) {
+                    if (target > 0) {
+                        try (PreparedStatement s = c.prepareStatement(
+                                "INSERT OR REPLACE INTO migration_backfill (version, position, target) VALUES (?, 0, ?)")) {
+                            s.setInt(1, migration.version);
+                            s.setLong(2, target);
+                            s.executeUpdate();
+                        }
+                    } else {
+                        migration.backfill.finish(c);
+                    }
+                }
+                try (Statement s = c.createStatement()) {
+                    s.execute("PRAGMA user_version = " + migration.version);
+                }
+                c.commit();
+                applied++;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Returns whether some backfill has not finished yet.
+     *
+     * @param c the connection to use
+     * @return true if a backfill is pending
+     * @throws SQLException if the progress cannot be read
+     */
+    public static boolean hasPendingBackfills(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT 1 FROM migration_backfill LIMIT 1")) {
+            return set.next();
+        }
+    }
+
+    /**
+     * Runs the pending backfills to the end on the calling thread.
+     *
+     * @param c the connection to use
+     * @throws SQLException if a backfill fails
+     */
+    public static void runBackfills(Connection c) throws SQLException {
+        runBackfills(c, () -> true);
+    }
+
+    /**
+     * Runs the pending backfills in version order, one chunk per transaction.
+     *
+     * @param c the connection to use
+     * @param proceed checked before every chunk, the backfills stop when it returns false
+     * @return true if all backfills have finished
+     * @throws SQLException if a backfill fails
+     */
+    static boolean runBackfills(Connection c, BooleanSupplier proceed) throws SQLException {
+        for (Migration migration : MIGRATIONS) {
+            if (migration.backfill == null) {
+                continue;
+            }
+            long[] progress = progress(c, migration.version);
+            if (progress == null) {
+                continue;
+            }
+            long position = progress[0];
+            long target = progress[1];
+            while (position < target) {
+                if (!proceed.getAsBoolean()) {
+                    return false;
+                }
+                long to = Math.min(position + CHUNK_SIZE, target);
+                c.setAutoCommit(false);
+                try {
+                    migration.backfill.apply(c, position, to);
+                    if (to < target) {
+                        try (PreparedStatement s = c.prepareStatement(
+                                "UPDATE migration_backfill SET position = ? WHERE version = ?")) {
+                            s.setLong(1, to);
+                            s.setInt(2, migration.version);
+                            s.executeUpdate();
+                        }
+                    } else {
+                        migration.backfill.finish(c);
+                        try (PreparedStatement s = c.prepareStatement(
+                                "DELETE FROM migration_backfill WHERE version = ?")) {
+                            s.setInt(1, migration.version);
+                            s.executeUpdate();
+                        }
+                    }
+                    c.commit();
+                } catch (SQLException e) {
+                    c.rollback();
+                    throw e;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+                position = to;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs the pending backfills in a background daemon thread on its own connection.
+     * When they finish, a DeckChanged event is published, so that the flashcards
+     * loaded before are reloaded with the filled values.
+     */
+    public static void startBackfills() {
+        Thread t = new Thread(() -> {
+            try (Connection c = DBconnection.openConnection()) {
+                if (!hasPendingBackfills(c)) {
+                    return;
+                }
+                runBackfills(c, () -> {
+                    try {
+                        Thread.sleep(PAUSE_MILLIS);
+                        return true;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                });
+                DeckEvents.publish(new DeckEvents.DeckChanged());
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+            }
+        }, "schema-backfill");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Returns the schema version stored in the database.
+     *
+     * @param c the connection to use
+     * @return the version, 0 for a new database or one created before versions were tracked
+     * @throws SQLException if the version cannot be read
+     */
+    public static int userVersion(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("PRAGMA user_version")) {
+            return set.next() ? set.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Returns the position and the target of a pending backfill, or null.
+     */
+    private static long[] progress(Connection c, int version) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement(
+                "SELECT position, target FROM migration_backfill WHERE version = ?")) {
+            s.setInt(1, version);
+            try (ResultSet set = s.executeQuery()) {
+                return set.next() ? new long[] {set.getLong(1), set.getLong(2)} : null;
+            }
+        }
+    }
+
+    /**
+     * Returns the highest id of the flashcards table.
+     */
+    private static long maxId(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT COALESCE(MAX(id), 0) FROM flashcards")) {
+            return set.next() ? set.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Returns whether a table exists.
+     */
+    private static boolean tableExists(Connection c, String table) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            s.setString(1, table);
+            try (ResultSet set = s.executeQuery()) {
+                return set.next();
+            }
+        }
+    }
+}
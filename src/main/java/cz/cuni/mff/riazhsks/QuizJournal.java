@@ -0,0 +1,500 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for file access and the writer thread.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal of the running quiz session, from which an interrupted quiz is resumed.
+ *
+ * Every quiz event (start, move, graded answer, end) is appended to a small file as
+ * a record with a CRC32, so a record torn by a crash is detected and ignored on replay.
+ * Appending only puts the event into a queue; a writer thread writes all queued
+ * events together and forces them to disk with one fsync per batch. When a session
+ * ends, the journal is truncated, so it never holds more than one session.
+ *
+ * The flashcard shown at every position the user has seen is journaled with the
+ * moves and answers; the rest of the quiz sequence is rebuilt from the seed and the
+ * quiz order. A resumed session shows the journaled flashcards at the positions
+ * seen before and continues with the rebuilt sequence after them (see
+ * Session.continued). It is resumed only if the deck is the one it started with and,
+ * for the orders showing every flashcard once, the rebuilt sequence agrees with the
+ * journal, so no flashcard is shown twice (see Session.matches).
+ *
+ * Record format: length (2 bytes), type (1 byte), payload, CRC32 of type and payload (4 bytes).
+ */
+public class QuizJournal {
+
+    /** The journal file of the application. */
+    public static final Path DEFAULT_PATH = Path.of("quiz-session.journal");
+
+    /** Session start: seed (8 bytes), quiz order (1 byte), deck fingerprint (8 bytes). */
+    private static final byte START = 1;
+
+    /** Move to another flashcard: position (4 bytes), card index (4 bytes). */
+    private static final byte MOVE = 2;
+
+    /** Graded answer: position (4 bytes), card index (4 bytes), correct (1 byte). */
+    private static final byte ANSWER = 3;
+
+    /** Session end, no payload. */
+    private static final byte END = 4;
+
+    /** Score of a resumed session: correct answers (4 bytes), graded answers (4 bytes). */
+    private static final byte SCORE = 5;
+
+    /** Queue marker truncating the journal. */
+    private static final byte[] RESET = new byte[0];
+
+    /** Queue marker stopping the writer. */
+    private static final byte[] STOP = new byte[0];
+
+    /** How long closing waits for the writer to flush, in milliseconds. */
+    private static final long CLOSE_MILLIS = 2000;
+
+    /** The journal file. */
+    private final FileChannel channel;
+
+    /** Encoded records waiting for the writer. */
+    private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+
+    /** The writer thread. */
+    private final Thread writer;
+
+    /**
+     * The state of a quiz session rebuilt from the journal.
+     */
+    public static class Session {
+
+        /** The seed of the quiz sampler. */
+        private final long seed;
+
+        /** The quiz order. */
+        private final QuizSampler.Mode mode;
+
+        /** The position in the quiz sequence. */
+        private int position;
+
+        /** The index of the displayed flashcard in the deck. */
+        private int cardIndex;
+
+        /** The number of correct answers. */
+        private int score;
+
+        /** The number of graded answers. */
+        private int total;
+
+        /** The fingerprint of the deck the session started with. */
+        private final long deck;
+
+        /** The index of the flashcard shown at each position the user has seen. */
+        private final Map<Integer, Integer> shown = new HashMap<>();
+
+        Session(long seed, QuizSampler.Mode mode, long deck) {
+            this.seed = seed;
+            this.mode = mode;
+            this.deck = deck;
+        }
+
+        /**
+         * Records the flashcard shown at a position.
+         */
+        private void show(int position, int cardIndex) {
+            this.position = position;
+            this.cardIndex = cardIndex;
+            shown.put(position, cardIndex);
+        }
+
+        /**
+         * Checks whether the session can continue on a rebuilt quiz sequence: the
+         * deck must be the one the session started with. The orders showing every
+         * flashcard once must also show the same flashcard at every position the
+         * user has seen, or the rest of the quiz would repeat or skip flashcards.
+         * The weakest first order draws every position independently from error
+         * rates changed by the answers given, so only its journaled positions are
+         * kept and the later ones are drawn anew.
+         *
+         * @param sequence the quiz sequence rebuilt from the seed and the quiz order
+         * @param flashcards the current deck
+         * @return true if the session continues exactly where it stopped
+         */
+        public boolean matches(QuizSampler.Sequence sequence, List<Flashcard> flashcards) {
+            if (deck != fingerprint(flashcards) || sequence.size() == 0) {
+                return false;
+            }
+            if (mode == QuizSampler.Mode.WEAKEST_FIRST) {
+                return position >= 0 && position < sequence.size() && shown.get(position) != null
+                        && shown.values().stream().allMatch(index -> index >= 0 && index < flashcards.size());
+            }
+            for (Map.Entry<Integer, Integer> entry : shown.entrySet()) {
+                int at = entry.getKey();
+                if (at < 0 || at >= sequence.size() || sequence.get(at) != entry.getValue()) {
+                    return false;
+                }
+            }
+            return position >= 0 && position < sequence.size() && sequence.get(position) == cardIndex;
+        }
+
+        /**
+         * Returns the quiz sequence of the resumed session: the journaled flashcard
+         * at every position the user has seen, and the rebuilt sequence elsewhere.
+         *
+         * @param sequence the quiz sequence rebuilt from the seed and the quiz order
+         * @return the sequence to continue with
+         */
+        public QuizSampler.Sequence continued(QuizSampler.Sequence sequence) {
+            Map<Integer, Integer> journaled = new HashMap<>(shown);
+            return new QuizSampler.Sequence() {
+                @Override
+                public int size() {
+                    return sequence.size();
+                }
+
+                @Override
+                public int get(int position) {
+                    Integer index = journaled.get(position);
+                    return index != null ? index : sequence.get(position);
+                }
+            };
+        }
+
+        /**
+         * Returns the seed of the quiz sampler.
+         *
+         * @return the seed
+         */
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * Returns the quiz order.
+         *
+         * @return the mode
+         */
+        public QuizSampler.Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * Returns the position in the quiz sequence.
+         *
+         * @return the position
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns the index of the displayed flashcard in the deck.
+         *
+         * @return the card index
+         */
+        public int getCardIndex() {
+            return cardIndex;
+        }
+
+        /**
+         * Returns the number of correct answers.
+         *
+         * @return the score
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the number of graded answers.
+         *
+         * @return the total
+         */
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private QuizJournal(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        writer = new Thread(this::write, "quiz-journal");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Opens a journal for appending and starts its writer thread. The queued
+     * records are written when the application exits.
+     *
+     * @param path the journal file
+     * @return the journal
+     * @throws IOException if the file cannot be opened
+     */
+    public static QuizJournal open(Path path) throws IOException {
+        QuizJournal journal = new QuizJournal(path);
+        journal.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+        return journal;
+    }
+
+    /**
+     * Returns the fingerprint of a deck: its flashcards, their order, numbers
+     * and colors.
+     *
+     * @param flashcards the deck
+     * @return the fingerprint
+     */
+    public static long fingerprint(List<Flashcard> flashcards) {
+        long hash = flashcards.size();
+        for (Flashcard flashcard : flashcards) {
+            String uid = flashcard.getUid();
+            hash = hash * 1_000_003 + (uid != null ? uid.hashCode() : 0);
+            hash = hash * 31 + flashcard.getNumber();
+            hash = hash * 31 + flashcard.getColor().getRGB();
+        }
+        return hash;
+    }
+
+    /**
+     * Records the start of a session, replacing the previous one.
+     *
+     * @param seed the seed of the quiz sampler
+     * @param mode the quiz order
+     * @param deck the fingerprint of the deck
+     */
+    public void start(long seed, QuizSampler.Mode mode, long deck) {
+        queue.add(RESET);
+        queue.add(record(START, ByteBuffer.allocate(17).putLong(seed).put((byte) mode.ordinal()).putLong(deck)));
+    }
+
+    /**
+     * Records a move to another flashcard.
+     *
+     * @param position the position in the quiz sequence
+     * @param cardIndex the index of the flashcard in the deck
+     */
+    public void move(int position, int cardIndex) {
+        queue.add(record(MOVE, ByteBuffer.allocate(8).putInt(position).putInt(cardIndex)));
+    }
+
+    /**
+     * Records a graded answer.
+     *
+     * @param position the position in the quiz sequence
+     * @param cardIndex the index of the flashcard in the deck
+     * @param correct whether the answer was correct
+     */
+    public void answer(int position, int cardIndex, boolean correct) {
+        queue.add(record(ANSWER, ByteBuffer.allocate(9).putInt(position).putInt(cardIndex)
+                .put((byte) (correct ? 1 : 0))));
+    }
+
+    /**
+     * Records the score the session continues with, e.g. after it was restarted
+     * in another order.
+     *
+     * @param score the number of correct answers
+     * @param total the number of graded answers
+     */
+    public void score(int score, int total) {
+        queue.add(record(SCORE, ByteBuffer.allocate(8).putInt(score).putInt(total)));
+    }
+
+    /**
+     * Records a resumed session, replacing the journal it was rebuilt from by
+     * its current state. The positions seen before are recorded again, so the
+     * session can be checked on the next resume as well.
+     *
+     * @param session the resumed session
+     */
+    public void resume(Session session) {
+        start(session.getSeed(), session.getMode(), session.deck);
+        score(session.getScore(), session.getTotal());
+        for (Map.Entry<Integer, Integer> entry : session.shown.entrySet()) {
+            move(entry.getKey(), entry.getValue());
+        }
+        move(session.getPosition(), session.getCardIndex());
+    }
+
+    /**
+     * Records the end of the session and compacts the journal to nothing.
+     */
+    public void end() {
+        queue.add(record(END, ByteBuffer.allocate(0)));
+        queue.add(RESET);
+    }
+
+    /**
+     * Writes the queued records and stops the writer thread.
+     */
+    public void close() {
+        if (!writer.isAlive()) {
+            return;
+        }
+        queue.add(STOP);
+        try {
+            writer.join(CLOSE_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Encodes a record.
+     */
+    private static byte[] record(byte type, ByteBuffer payload) {
+        byte[] data = payload.array();
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(data);
+        return ByteBuffer.allocate(7 + data.length)
+                .putShort((short) data.length).put(type).put(data).putInt((int) crc.getValue())
+                .array();
+    }
+
+    /**
+     * Writes the queued records in batches, with one fsync per batch.
+     */
+    private void write() {
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean written = false;
+                for (byte[] record : batch) {
+                    if (record == STOP) {
+                        flush(written);
+                        channel.close();
+                        return;
+                    } else if (record == RESET) {
+                        channel.truncate(0);
+                        written = true;
+                    } else {
+                        ByteBuffer buffer = ByteBuffer.wrap(record);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                        written = true;
+                    }
+                }
+                flush(written);
+                batch.clear();
+            }
+        } catch (IOException e) {
+            System.out.println("Quiz journal: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Forces written records to disk.
+     */
+    private void flush(boolean written) throws IOException {
+        if (written) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Rebuilds the unfinished session from a journal. Records after the first
+     * damaged one are ignored.
+     *
+     * @param path the journal file
+     * @return the session, or null if the journal holds no unfinished session
+     */
+    public static Session replay(Path path) {
+        byte[] data;
+        try {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            data = Files.readAllBytes(path);
+        } catch (IOException e) {
+            System.out.println("Quiz journal: " + e.getMessage());
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        Session session = null;
+        while (buffer.remaining() >= 7) {
+            int length = buffer.getShort() & 0xFFFF;
+            if (buffer.remaining() < 1 + length + 4) {
+                break;
+            }
+            byte type = buffer.get();
+            ByteBuffer payload = ByteBuffer.wrap(data, buffer.position(), length).slice();
+            buffer.position(buffer.position() + length);
+            CRC32 crc = new CRC32();
+            crc.update(type);
+            crc.update(data, payload.arrayOffset(), length);
+            if ((int) crc.getValue() != buffer.getInt()) {
+                break;
+            }
+            if (type == START && length == 17) {
+                long seed = payload.getLong();
+                int mode = payload.get();
+                if (mode < 0 || mode >= QuizSampler.Mode.values().length) {
+                    break;
+                }
+                session = new Session(seed, QuizSampler.Mode.values()[mode], payload.getLong());
+            } else if (type == MOVE && length == 8 && session != null) {
+                session.show(payload.getInt(), payload.getInt());
+            } else if (type == ANSWER && length == 9 && session != null) {
+                session.show(payload.getInt(), payload.getInt());
+                session.score += payload.get();
+                session.total++;
+            } else if (type == SCORE && length == 8 && session != null) {
+                session.score = payload.getInt();
+                session.total = payload.getInt();
+            } else if (type == END) {
+                session = null;
+            }
+        }
+        return session;
+    }
+
+    /**
+     * Waits until the queued records are written, for tests and benchmarks.
+     *
+     * @param timeout the longest time to wait, in milliseconds
+     * @return true if the queue was emptied in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    boolean awaitWritten(long timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (!queue.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return queue.isEmpty();
+    }
+}
@@ -0,0 +1,495 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for colors, collections and random numbers.
+ */
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.ToIntFunction;
+
+/**
+ * Builds the order in which quiz mode presents the flashcards.
+ *
+ * A quiz order is a sequence of indices into the flashcard list. The sequences are
+ * generated lazily, one draw per position actually visited, so starting a quiz
+ * over a large deck only allocates an int array and never copies the cards.
+ * All random sequences are reproducible from the seed of the sampler.
+ *
+ * The application keeps one deck per database, so quiz mode stratifies by card
+ * color only; stratified accepts any grouping of the flashcards, for example by
+ * the deck they were merged from, and covers the groups evenly in the same way.
+ */
+public class QuizSampler {
+
+    /** The orders offered by quiz mode. */
+    public enum Mode {
+        /** The flashcards in the order of the deck. */
+        IN_ORDER("In order"),
+        /** Every flashcard once, in random order. */
+        SHUFFLED("Shuffled"),
+        /** Every flashcard once, alternating between the card colors. */
+        BY_COLOR("By color"),
+        /** Random draws favouring the flashcards answered wrongly most often. */
+        WEAKEST_FIRST("Weakest first");
+
+        /** The name shown in the user interface. */
+        private final String label;
+
+        Mode(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /** Number of hue sectors the flashcard colors are grouped into. */
+    private static final int HUE_SECTORS = 12;
+
+    /** Saturation below which a color counts as grey. */
+    private static final float GREY_SATURATION = 0.15f;
+
+    /** Weight added to every error rate, so that no flashcard is excluded from a quiz. */
+    private static final double ERROR_RATE_SMOOTHING = 0.05;
+
+    /** The seed all sequences of this sampler are derived from. */
+    private final long seed;
+
+    /**
+     * Creates a sampler whose sequences are determined by the given seed.
+     *
+     * @param seed the random seed
+     */
+    public QuizSampler(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the seed of the sampler.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Builds a quiz order of the given mode over the flashcards.
+     *
+     * @param mode the quiz order
+     * @param cards the flashcards of the deck
+     * @return the quiz sequence
+     */
+    public Sequence sequence(Mode mode, List<Flashcard> cards) {
+        return switch (mode) {
+            case IN_ORDER -> inOrder(cards.size());
+            case SHUFFLED -> shuffle(cards.size());
+            case BY_COLOR -> byColor(cards);
+            case WEAKEST_FIRST -> weakestFirst(StudyStats.errorRates(cards), cards.size());
+        };
+    }
+
+    /**
+     * Returns the flashcard indices 0..n-1 in order.
+     *
+     * @param n the number of flashcards
+     * @return the sequence
+     */
+    public Sequence inOrder(int n) {
+        return new Sequence() {
+            @Override
+            public int size() {
+                return n;
+            }
+
+            @Override
+            public int get(int position) {
+                checkPosition(position, n);
+                return position;
+            }
+        };
+    }
+
+    /**
+     * Returns a random permutation of the flashcard indices 0..n-1.
+     * The permutation is built by a Fisher–Yates shuffle that only performs
+     * the swaps for the positions visited so far.
+     *
+     * @param n the number of flashcards
+     * @return the sequence
+     */
+    public Sequence shuffle(int n) {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        return new Shuffle(indices, new SplittableRandom(seed));
+    }
+
+    /**
+     * Returns a sequence of the given length where each position is drawn
+     * independently with probability proportional to the weight of the flashcard.
+     * Draws use the alias method and take constant time each.
+     *
+     * @param weights the non-negative weight of each flashcard
+     * @param length the length of the sequence
+     * @return the sequence, empty if there are no flashcards
+     */
+    public Sequence weighted(double[] weights, int length) {
+        if (weights.length == 0 || length == 0) {
+            return inOrder(0);
+        }
+        AliasTable table = new AliasTable(weights);
+        SplittableRandom random = new SplittableRandom(seed);
+        return new LazySequence(length) {
+            @Override
+            protected int draw() {
+                return table.sample(random);
+            }
+        };
+    }
+
+    /**
+     * Returns a sequence of the given length that favours the flashcards answered
+     * wrongly most often. Every flashcard keeps a small chance to be drawn,
+     * so cards without a history still appear.
+     *
+     * @param errorRates the historical error rate of each flashcard, from 0 to 1
+     * @param length the length of the sequence
+     * @return the sequence
+     */
+    public Sequence weakestFirst(double[] errorRates, int length) {
+        double[] weights = new double[errorRates.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = errorRates[i] + ERROR_RATE_SMOOTHING;
+        }
+        return weighted(weights, length);
+    }
+
+    /**
+     * Returns a random permutation of the flashcard indices in which the
+     * flashcard colors take turns, so every color is covered evenly from the
+     * start of the quiz. Flashcard colors are random, so they are grouped
+     * into hue sectors (plus one group for greys).
+     *
+     * @param cards the flashcards of the deck
+     * @return the sequence
+     */
+    public Sequence byColor(List<Flashcard> cards) {
+        int[] stratumOf = new int[cards.size()];
+        for (int i = 0; i < cards.size(); i++) {
+            stratumOf[i] = colorGroup(cards.get(i).getColor());
+        }
+        return stratified(stratumOf, HUE_SECTORS + 1);
+    }
+
+    /**
+     * Returns a random permutation of the flashcard indices in which the groups
+     * given by the key take turns, so every group is covered evenly from the
+     * start of the quiz.
+     *
+     * @param cards the flashcards of the deck
+     * @param key the group of a flashcard, for example its deck
+     * @return the sequence
+     */
+    public Sequence stratified(List<Flashcard> cards, ToIntFunction<Flashcard> key) {
+        Map<Integer, Integer> strata = new HashMap<>();
+        int[] stratumOf = new int[cards.size()];
+        for (int i = 0; i < cards.size(); i++) {
+            stratumOf[i] = strata.computeIfAbsent(key.applyAsInt(cards.get(i)), k -> strata.size());
+        }
+        return stratified(stratumOf, strata.size());
+    }
+
+    /**
+     * Returns a random permutation of the flashcard indices in which the strata
+     * take turns in a random order. Each stratum is shuffled lazily on its own,
+     * and an exhausted stratum leaves the turns.
+     *
+     * @param stratumOf the stratum of each flashcard, from 0 to strata - 1
+     * @param strata the number of strata
+     * @return the sequence
+     */
+    private Sequence stratified(int[] stratumOf, int strata) {
+        int[] counts = new int[strata];
+        for (int stratum : stratumOf) {
+            counts[stratum]++;
+        }
+        int[][] members = new int[strata][];
+        for (int s = 0; s < strata; s++) {
+            members[s] = new int[counts[s]];
+            counts[s] = 0;
+        }
+        for (int i = 0; i < stratumOf.length; i++) {
+            int s = stratumOf[i];
+            members[s][counts[s]++] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Shuffle[] shuffles = new Shuffle[strata];
+        int[] active = new int[strata];
+        int activeGroups = 0;
+        for (int s = 0; s < strata; s++) {
+            shuffles[s] = new Shuffle(members[s], random.split());
+            if (members[s].length > 0) {
+                active[activeGroups++] = s;
+            }
+        }
+        for (int i = activeGroups - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int group = active[i];
+            active[i] = active[j];
+            active[j] = group;
+        }
+        int initialGroups = activeGroups;
+        return new LazySequence(stratumOf.length) {
+            private int activeCount = initialGroups;
+            private int cursor;
+
+            @Override
+            protected int draw() {
+                if (cursor >= activeCount) {
+                    cursor = 0;
+                }
+                Shuffle shuffle = shuffles[active[cursor]];
+                int index = shuffle.next();
+                if (!shuffle.hasNext()) {
+                    active[cursor] = active[--activeCount];
+                } else {
+                    cursor++;
+                }
+                return index;
+            }
+        };
+    }
+
+    /**
+     * Returns the color group of a flashcard: the hue sector of its color,
+     * or HUE_SECTORS for colors too grey to have a meaningful hue.
+     *
+     * @param color the flashcard color
+     * @return the group, from 0 to HUE_SECTORS
+     */
+    static int colorGroup(Color color) {
+        float[] hsb = Color.RGBtoHSB(color.getRed(), color.getGreen(), color.getBlue(), null);
+        if (hsb[1] < GREY_SATURATION) {
+            return HUE_SECTORS;
+        }
+        return Math.min(HUE_SECTORS - 1, (int) (hsb[0] * HUE_SECTORS));
+    }
+
+    /**
+     * Checks that a position lies inside a sequence.
+     */
+    private static void checkPosition(int position, int size) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of " + size);
+        }
+    }
+
+    /**
+     * An order of flashcard indices for a quiz.
+     */
+    public interface Sequence {
+
+        /**
+         * Returns the length of the sequence.
+         *
+         * @return the number of positions
+         */
+        int size();
+
+        /**
+         * Returns the flashcard index at the given position.
+         *
+         * @param position the position in the quiz, from 0
+         * @return the index into the flashcard list
+         */
+        int get(int position);
+    }
+
+    /**
+     * A sequence whose positions are drawn one at a time and remembered,
+     * so that going back in the quiz shows the same flashcards again.
+     */
+    private abstract static class LazySequence implements Sequence {
+
+        /** The indices drawn so far. */
+        private final int[] drawn;
+
+        /** Number of positions drawn so far. */
+        private int count;
+
+        LazySequence(int size) {
+            drawn = new int[size];
+        }
+
+        /**
+         * Draws the index for the next position.
+         *
+         * @return the flashcard index
+         */
+        protected abstract int draw();
+
+        @Override
+        public int size() {
+            return drawn.length;
+        }
+
+        @Override
+        public int get(int position) {
+            checkPosition(position, drawn.length);
+            while (count <= position) {
+                drawn[count++] = draw();
+            }
+            return drawn[position];
+        }
+    }
+
+    /**
+     * A Fisher–Yates shuffle performed in place on an index array, one swap per draw.
+     * The first positions of the array hold the indices drawn so far.
+     */
+    private static final class Shuffle implements Sequence {
+
+        /** The indices being shuffled. */
+        private final int[] indices;
+
+        /** The random source of the shuffle. */
+        private final SplittableRandom random;
+
+        /** Number of positions drawn so far. */
+        private int count;
+
+        Shuffle(int[] indices, SplittableRandom random) {
+            this.indices = indices;
+            this.random = random;
+        }
+
+        boolean hasNext() {
+            return count < indices.length;
+        }
+
+        int next() {
+            int j = count + random.nextInt(indices.length - count);
+            int index = indices[j];
+            indices[j] = indices[count];
+            indices[count++] = index;
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+
+        @Override
+        public int get(int position) {
+            checkPosition(position, indices.length);
+            while (count <= position) {
+                next();
+            }
+            return indices[position];
+        }
+    }
+
+    /**
+     * Walker's alias table for sampling from a discrete distribution in constant time,
+     * built with Vose's linear-time construction.
+     */
+    static final class AliasTable {
+
+        /** Probability of keeping the column drawn. */
+        private final double[] probability;
+
+        /** The alternative index of each column. */
+        private final int[] alias;
+
+        AliasTable(double[] weights) {
+            int n = weights.length;
+            if (n == 0) {
+                throw new IllegalArgumentException("No weights");
+            }
+            probability = new double[n];
+            alias = new int[n];
+            double sum = 0;
+            for (double w : weights) {
+                if (w < 0 || Double.isNaN(w)) {
+                    throw new IllegalArgumentException("Invalid weight " + w);
+                }
+                sum += w;
+            }
+            double[] scaled = new double[n];
+            for (int i = 0; i < n; i++) {
+                scaled[i] = sum > 0 ? weights[i] * n / sum : 1.0;
+            }
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            while (smallCount > 0 && largeCount > 0) {
+                int s = small[--smallCount];
+                int l = large[--largeCount];
+                probability[s] = scaled[s];
+                alias[s] = l;
+                scaled[l] = scaled[l] + scaled[s] - 1.0;
+                if (scaled[l] < 1.0) {
+                    small[smallCount++] = l;
+                } else {
+                    large[largeCount++] = l;
+                }
+            }
+            while (largeCount > 0) {
+                probability[large[--largeCount]] = 1.0;
+            }
+            while (smallCount > 0) {
+                probability[small[--smallCount]] = 1.0;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            int column = random.nextInt(probability.length);
+            return random.nextDouble() < probability[column] ? column : alias[column];
+        }
+    }
+
+    /**
+     * Creates a sampler with a seed taken from the "flashcards.quizSeed" system
+     * property, or a random seed if the property is not set.
+     *
+     * @return the sampler
+     */
+    public static QuizSampler fromSystemProperty() {
+        Long seed = Long.getLong("flashcards.quizSeed");
+        return new QuizSampler(seed != null ? seed : new Random().nextLong());
+    }
+}
@@ -0,0 +1,369 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for database access and concurrency.
+ */
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Spreads the flashcards over several SQLite files, so that imports are written
+ * in parallel. SQLite allows one writer per file; with N shards there are N writers.
+ *
+ * Shard 0 is the main database file, the other shards are files next to it named
+ * "name-shardI.db" with the same schema. Flashcards are assigned to a shard by the hash
+ * of their uid, and every shard has a writer thread with its own connection, which
+ * commits its part of a batch in one transaction. Connections to the main database
+ * attach the other shards as "shardI" and get a temporary view all_flashcards
+ * over all of them, used for queries across the whole deck. The deck is read by
+ * merging the shards in the order of the flashcard numbers, which stay unique
+ * across the shards.
+ *
+ * Sharding is enabled with -Dflashcards.shards=N. The change log and statistics stay
+ * in the main database file. Synchronization (DeckSync) reads only the change log and
+ * flashcards of the main file, so it refuses to run on a sharded database.
+ */
+public class ShardedStore implements AutoCloseable {
+
+    /** System property with the number of shards. */
+    public static final String SHARDS_PROPERTY = "flashcards.shards";
+
+    /** Highest number of shards; SQLite attaches at most ten databases to a connection. */
+    public static final int MAX_SHARDS = 10;
+
+    /** Name of the view over the flashcards of all shards. */
+    public static final String VIEW = "all_flashcards";
+
+    /** JDBC URLs of the shard files, shard 0 is the main database. */
+    private final String[] urls;
+
+    /** Writer connections, each used only by the writer thread of its shard. */
+    private final Connection[] writers;
+
+    /** Single-thread executors writing to the shards. */
+    private final ExecutorService[] executors;
+
+    /**
+     * Opens the shards of a database, creating and migrating missing shard files.
+     *
+     * @param mainFile the main database file, shard 0
+     * @param count the number of shards, from 2 to MAX_SHARDS
+     * @throws SQLException if a shard cannot be opened
+     */
+    public ShardedStore(Path mainFile, int count) throws SQLException {
+        if (count < 2 || count > MAX_SHARDS) {
+            throw new IllegalArgumentException("Number of shards must be between 2 and " + MAX_SHARDS);
+        }
+        urls = new String[count];
+        writers = new Connection[count];
+        executors = new ExecutorService[count];
+        for (int i = 0; i < count; i++) {
+            Path file = i == 0 ? mainFile : shardFile(mainFile, i);
+            urls[i] = "jdbc:sqlite:" + file;
+            writers[i] = DBconnection.openConnection(urls[i]);
+            if (i > 0) {
+                DBconnection.createTable(writers[i]);
+            }
+            String threadName = "shard-writer-" + i;
+            executors[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, threadName);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Opens the shards of flashcards.db if sharding is enabled by the system property.
+     *
+     * @return the store, or null if sharding is disabled
+     * @throws SQLException if a shard cannot be opened
+     */
+    public static ShardedStore fromSystemProperty() throws SQLException {
+        int count = Integer.getInteger(SHARDS_PROPERTY, 1);
+        return count > 1 ? new ShardedStore(Path.of("flashcards.db"), Math.min(count, MAX_SHARDS)) : null;
+    }
+
+    /**
+     * Returns the file of a shard other than the main database.
+     */
+    private static Path shardFile(Path mainFile, int shard) {
+        String name = mainFile.getFileName().toString();
+        String base = name.endsWith(".db") ? name.substring(0, name.length() - 3) : name;
+        return mainFile.resolveSibling(base + "-shard" + shard + ".db");
+    }
+
+    /**
+     * Checks whether a connection is to a sharded database: the shards are
+     * attached to it, or its file has shard files next to it from a run with
+     * sharding enabled.
+     *
+     * @param c the connection to the main database
+     * @return true if the flashcards may be spread over several files
+     * @throws SQLException if the databases of the connection cannot be listed
+     */
+    public static boolean isSharded(Connection c) throws SQLException {
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("PRAGMA database_list")) {
+            while (set.next()) {
+                String name = set.getString("name");
+                String file = set.getString("file");
+                if (name.startsWith("shard")
+                        || name.equals("main") && file != null && !file.isEmpty()
+                        && Files.exists(shardFile(Path.of(file), 1))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the number of shards
+     */
+    public int size() {
+        return urls.length;
+    }
+
+    /**
+     * Returns the JDBC URLs of the shard files, shard 0 first.
+     *
+     * @return the URLs
+     */
+    public String[] urls() {
+        return urls.clone();
+    }
+
+    /**
+     * Returns the schema name of a shard in connections to the main database.
+     *
+     * @param shard the shard index
+     * @return the schema name
+     */
+    public static String schema(int shard) {
+        return shard == 0 ? "main" : "shard" + shard;
+    }
+
+    /**
+     * Returns the shard a flashcard is written to.
+     *
+     * @param uid the uid of the flashcard
+     * @return the shard index
+     */
+    public int shardOf(String uid) {
+        return Math.floorMod(uid.hashCode(), urls.length);
+    }
+
+    /**
+     * Attaches the other shards to a connection to the main database and
+     * creates the view over all shards once the main database is migrated.
+     *
+     * @param c the connection to the main database
+     * @throws SQLException if a shard cannot be attached
+     */
+    public void attach(Connection c) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement("ATTACH DATABASE ? AS ?")) {
+            for (int i = 1; i < urls.length; i++) {
+                s.setString(1, urls[i].substring("jdbc:sqlite:".length()));
+                s.setString(2, schema(i));
+                s.executeUpdate();
+            }
+        }
+        if (Migrations.userVersion(c) >= Migrations.latestVersion()) {
+            createView(c);
+        }
+    }
+
+    /**
+     * Creates the view over the flashcards of all shards, replacing an older one.
+     * Called again after the main database is migrated or its flashcards table replaced, because
+     * renaming a table also renames it in the views of the renaming connection.
+     *
+     * @param c the connection to the main database, with the shards attached
+     * @throws SQLException if the view cannot be created
+     */
+    public void createView(Connection c) throws SQLException {
+        StringBuilder q = new StringBuilder("CREATE TEMP VIEW " + VIEW + " AS ");
+        for (int i = 0; i < urls.length; i++) {
+            if (i > 0) {
+                q.append(" UNION ALL ");
+            }
+            q.append("SELECT id, question, answer, number, color, deleted, attachment, uid FROM ")
+                    .append(schema(i)).append(".flashcards");
+        }
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("DROP VIEW IF EXISTS temp." + VIEW);
+            s.executeUpdate(q.toString());
+        }
+    }
+
+    /**
+     * Adds flashcards, writing every shard's part in parallel, each in one transaction.
+     * Flashcards without a uid are given a new one. Returns when all shards have committed.
+     *
+     * @param flashcards the flashcards to add, with their numbers already assigned
+     * @throws SQLException if a shard cannot write its part; the other parts stay written
+     */
+    public void addAll(List<Flashcard> flashcards) throws SQLException {
+        List<List<Flashcard>> parts = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (Flashcard f : flashcards) {
+            String uid = f.getUid() != null ? f.getUid() : DBconnection.newUid();
+            parts.get(shardOf(uid)).add(new Flashcard(f.getQuestion(), f.getAnswer(), f.getNumber(),
+                    f.getColor(), f.getAttachment(), uid));
+        }
+        List<Future<Void>> writes = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            List<Flashcard> part = parts.get(i);
+            Connection c = writers[i];
+            if (!part.isEmpty()) {
+                writes.add(executors[i].submit(() -> {
+                    c.setAutoCommit(false);
+                    try {
+                        DBconnection.addFlashcards(c, part);
+                        c.commit();
+                    } catch (SQLException e) {
+                        c.rollback();
+                        throw e;
+                    } finally {
+                        c.setAutoCommit(true);
+                    }
+                    return null;
+                }));
+            }
+        }
+        SQLException failure = null;
+        for (Future<Void> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                failure = e.getCause() instanceof SQLException ? (SQLException) e.getCause()
+                        : new SQLException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = new SQLException("Interrupted while writing the shards");
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads the flashcards that are not removed from all shards, merging the
+     * shards in the order of the flashcard numbers.
+     *
+     * @param c the connection to the main database, with the shards attached
+     * @return the flashcards in number order
+     * @throws SQLException if a shard cannot be read
+     */
+    public List<Flashcard> load(Connection c) throws SQLException {
+        List<PreparedStatement> statements = new ArrayList<>();
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>((a, b) -> Integer.compare(a.number, b.number));
+        List<Flashcard> flashcards = new ArrayList<>();
+        try {
+            for (int i = 0; i < urls.length; i++) {
+                PreparedStatement s = c.prepareStatement("SELECT question, answer, number, color, attachment, uid FROM "
+                        + schema(i) + ".flashcards WHERE deleted = 0 ORDER BY number");
+                statements.add(s);
+                Cursor cursor = new Cursor(s.executeQuery());
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            TextCodec.PageBuilder pages = new TextCodec.PageBuilder();
+            while (!cursors.isEmpty()) {
+                Cursor cursor = cursors.poll();
+                ResultSet set = cursor.set;
+                flashcards.add(pages.add(TextCodec.raw(set, 1), TextCodec.raw(set, 2), cursor.number,
+                        new Color(set.getInt(4)), set.getString(5), set.getString(6)));
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        } finally {
+            for (PreparedStatement s : statements) {
+                s.close();
+            }
+        }
+        return flashcards;
+    }
+
+    /**
+     * Position in the ordered rows of one shard.
+     */
+    private static class Cursor {
+
+        /** The rows of the shard. */
+        final ResultSet set;
+
+        /** The number of the current row. */
+        int number;
+
+        Cursor(ResultSet set) {
+            this.set = set;
+        }
+
+        /**
+         * Moves to the next row.
+         *
+         * @return false if there are no more rows
+         */
+        boolean advance() throws SQLException {
+            if (!set.next()) {
+                return false;
+            }
+            number = set.getInt(3);
+            return true;
+        }
+    }
+
+    /**
+     * Stops the writer threads and closes their connections.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < urls.length; i++) {
+            executors[i].shutdown();
+            try {
+                writers[i].close();
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,566 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for database access, dates and the writer thread.
+ */
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the study statistics of quiz mode.
+ *
+ * The statistics are aggregates updated with every graded answer, so reading
+ * them never scans the answer history: card_stats holds the running counts of
+ * every flashcard, daily_stats the counts of every day, and study_summary a single
+ * row with the counts and streaks of the whole deck. The hardest flashcards are read
+ * from an index on the smoothed error rate of card_stats, so only the returned rows
+ * are visited. Answers given in quiz mode are written by a background thread on its
+ * own connection, in the order they were given, so checking an answer never waits
+ * for the database.
+ *
+ * Statistics schema:
+ * - card_stats: uid, reviews, correct, streak, best_streak, difficulty
+ * - daily_stats: day (ISO date), reviews, correct
+ * - study_summary: reviews, correct, streak, best_streak (correct answers in a row),
+ *   day_streak, best_day_streak (days with a review in a row), last_day
+ */
+public class StudyStats {
+
+    /** Number of flashcards shown as the hardest ones. */
+    public static final int HARDEST_COUNT = 10;
+
+    /** How long closing waits for the queued answers to be written, in milliseconds. */
+    private static final long CLOSE_MILLIS = 2000;
+
+    /** Executor writing the graded answers, or null before the first answer. */
+    private static ExecutorService writer;
+
+    /** Connection of the writer thread. */
+    private static Connection writerConnection;
+
+    /**
+     * Running counts of answers, for a flashcard, a day or the whole deck.
+     */
+    public static class Counts {
+
+        /** Number of graded answers. */
+        private final int reviews;
+
+        /** Number of correct answers. */
+        private final int correct;
+
+        /**
+         * Creates the counts.
+         *
+         * @param reviews the number of graded answers
+         * @param correct the number of correct answers
+         */
+        public Counts(int reviews, int correct) {
+            this.reviews = reviews;
+            this.correct = correct;
+        }
+
+        /**
+         * Returns the number of graded answers.
+         *
+         * @return the number of graded answers
+         */
+        public int getReviews() {
+            return reviews;
+        }
+
+        /**
+         * Returns the number of correct answers.
+         *
+         * @return the number of correct answers
+         */
+        public int getCorrect() {
+            return correct;
+        }
+
+        /**
+         * Returns the share of correct answers, or 0 without answers.
+         *
+         * @return the accuracy from 0 to 1
+         */
+        public double getAccuracy() {
+            return reviews == 0 ? 0 : (double) correct / reviews;
+        }
+    }
+
+    /**
+     * Statistics of the whole deck.
+     */
+    public static class Summary extends Counts {
+
+        /** Correct answers in a row, up to the last answer. */
+        private final int streak;
+
+        /** Longest run of correct answers. */
+        private final int bestStreak;
+
+        /** Days with at least one answer in a row, up to today or yesterday. */
+        private final int dayStreak;
+
+        /** Longest run of days with at least one answer. */
+        private final int bestDayStreak;
+
+        /**
+         * Creates the statistics of the deck.
+         *
+         * @param reviews the number of graded answers
+         * @param correct the number of correct answers
+         * @param streak the current run of correct answers
+         * @param bestStreak the longest run of correct answers
+         * @param dayStreak the current run of study days
+         * @param bestDayStreak the longest run of study days
+         */
+        public Summary(int reviews, int correct, int streak, int bestStreak, int dayStreak, int bestDayStreak) {
+            super(reviews, correct);
+            this.streak = streak;
+            this.bestStreak = bestStreak;
+            this.dayStreak = dayStreak;
+            this.bestDayStreak = bestDayStreak;
+        }
+
+        /**
+         * Returns the current run of correct answers.
+         *
+         * @return the streak
+         */
+        public int getStreak() {
+            return streak;
+        }
+
+        /**
+         * Returns the longest run of correct answers.
+         *
+         * @return the best streak
+         */
+        public int getBestStreak() {
+            return bestStreak;
+        }
+
+        /**
+         * Returns the current run of study days.
+         *
+         * @return the day streak
+         */
+        public int getDayStreak() {
+            return dayStreak;
+        }
+
+        /**
+         * Returns the longest run of study days.
+         *
+         * @return the best day streak
+         */
+        public int getBestDayStreak() {
+            return bestDayStreak;
+        }
+    }
+
+    /**
+     * Statistics of one flashcard.
+     */
+    public static class CardStats extends Counts {
+
+        /** The question of the flashcard. */
+        private final String question;
+
+        /**
+         * Creates the statistics of a flashcard.
+         *
+         * @param question the question of the flashcard
+         * @param reviews the number of graded answers
+         * @param correct the number of correct answers
+         */
+        public CardStats(String question, int reviews, int correct) {
+            super(reviews, correct);
+            this.question = question;
+        }
+
+        /**
+         * Returns the question of the flashcard.
+         *
+         * @return the question
+         */
+        public String getQuestion() {
+            return question;
+        }
+    }
+
+    /**
+     * Creates the statistics tables if they do not exist.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the tables cannot be created
+     */
+    public static void createTables(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS card_stats (" +
+                    "uid TEXT PRIMARY KEY, " +
+                    "reviews INTEGER NOT NULL, " +
+                    "correct INTEGER NOT NULL, " +
+                    "streak INTEGER NOT NULL, " +
+                    "best_streak INTEGER NOT NULL, " +
+                    "difficulty REAL NOT NULL)");
+            s.executeUpdate("CREATE INDEX IF NOT EXISTS card_stats_difficulty ON card_stats (difficulty)");
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS daily_stats (" +
+                    "day TEXT PRIMARY KEY, " +
+                    "reviews INTEGER NOT NULL, " +
+                    "correct INTEGER NOT NULL)");
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS study_summary (" +
+                    "reviews INTEGER NOT NULL, " +
+                    "correct INTEGER NOT NULL, " +
+                    "streak INTEGER NOT NULL, " +
+                    "best_streak INTEGER NOT NULL, " +
+                    "day_streak INTEGER NOT NULL, " +
+                    "best_day_streak INTEGER NOT NULL, " +
+                    "last_day TEXT)");
+            s.executeUpdate("INSERT INTO study_summary SELECT 0, 0, 0, 0, 0, 0, NULL " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM study_summary)");
+        }
+    }
+
+    /**
+     * Deletes the statistics of flashcards that no longer exist.
+     * The counts of the days and of the deck keep their answers.
+     *
+     * @param c the connection to use
+     * @return the number of deleted rows
+     * @throws SQLException if the statistics cannot be deleted
+     */
+    public static int purgeUnreferenced(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            return s.executeUpdate("DELETE FROM card_stats WHERE uid NOT IN " +
+                    "(SELECT uid FROM " + DBconnection.deckTable() + " WHERE uid IS NOT NULL)");
+        }
+    }
+
+    /**
+     * Records a graded answer in the database of the application, in the
+     * background. Answers to flashcards whose uid is still being filled by
+     * a migration are not recorded.
+     *
+     * @param flashcard the answered flashcard
+     * @param correct whether the answer was correct
+     */
+    public static void record(Flashcard flashcard, boolean correct) {
+        String uid = flashcard.getUid();
+        if (uid == null) {
+            return;
+        }
+        LocalDate day = LocalDate.now();
+        writer().execute(() -> write(uid, correct, day));
+    }
+
+    /**
+     * Returns a future completed once the answers recorded so far are written,
+     * so that statistics read afterwards include them.
+     *
+     * @return the future
+     */
+    public static CompletableFuture<Void> flushed() {
+        return CompletableFuture.runAsync(() -> { }, writer());
+    }
+
+    /**
+     * Returns the writer executor, starting it on first use.
+     */
+    private static synchronized ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "study-stats");
+                t.setDaemon(true);
+                return t;
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(StudyStats::close));
+        }
+        return writer;
+    }
+
+    /**
+     * Writes one graded answer in its own transaction on the connection of the writer thread.
+     */
+    private static void write(String uid, boolean correct, LocalDate day) {
+        try {
+            if (writerConnection == null) {
+                writerConnection = DBconnection.openConnection();
+            }
+            Connection c = writerConnection;
+            c.setAutoCommit(false);
+            try {
+                record(c, uid, correct, day);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                c.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.out.println("Answer not recorded in the statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the queued answers and stops the writer thread.
+     */
+    private static synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(CLOSE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records a graded answer by updating the counts of the flashcard, of the day
+     * and of the deck. The caller controls the transaction.
+     *
+     * @param c the connection to use
+     * @param uid the uid of the answered flashcard
+     * @param correct whether the answer was correct
+     * @param day the day of the answer
+     * @throws SQLException if the statistics cannot be updated
+     */
+    public static void record(Connection c, String uid, boolean correct, LocalDate day) throws SQLException {
+        int hit = correct ? 1 : 0;
+        String card = "INSERT INTO card_stats (uid, reviews, correct, streak, best_streak, difficulty) " +
+                "VALUES (?, 1, ?, ?, ?, ?) ON CONFLICT (uid) DO UPDATE SET " +
+                "reviews = reviews + 1, " +
+                "correct = correct + excluded.correct, " +
+                "streak = CASE WHEN excluded.correct = 1 THEN streak + 1 ELSE 0 END, " +
+                "best_streak = MAX(best_streak, CASE WHEN excluded.correct = 1 THEN streak + 1 ELSE 0 END), " +
+                "difficulty = (reviews - correct - excluded.correct + 2.0) / (reviews + 3.0)";
+        try (PreparedStatement s = c.prepareStatement(card)) {
+            s.setString(1, uid);
+            s.setInt(2, hit);
+            s.setInt(3, hit);
+            s.setInt(4, hit);
+            s.setDouble(5, difficulty(1, hit));
+            s.executeUpdate();
+        }
+        String daily = "INSERT INTO daily_stats (day, reviews, correct) VALUES (?, 1, ?) " +
+                "ON CONFLICT (day) DO UPDATE SET reviews = reviews + 1, correct = correct + excluded.correct";
+        try (PreparedStatement s = c.prepareStatement(daily)) {
+            s.setString(1, day.toString());
+            s.setInt(2, hit);
+            s.executeUpdate();
+        }
+
+        int dayStreak;
+        int bestDayStreak;
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT day_streak, best_day_streak, last_day FROM study_summary")) {
+            if (!set.next()) {
+                throw new SQLException("Statistics are not initialized");
+            }
+            dayStreak = set.getInt(1);
+            bestDayStreak = set.getInt(2);
+            String lastDay = set.getString(3);
+            if (lastDay == null || LocalDate.parse(lastDay).isBefore(day.minusDays(1))) {
+                dayStreak = 1;
+            } else if (LocalDate.parse(lastDay).equals(day.minusDays(1))) {
+                dayStreak++;
+            }
+            bestDayStreak = Math.max(bestDayStreak, dayStreak);
+        }
+        String summary = "UPDATE study_summary SET " +
+                "reviews = reviews + 1, " +
+                "correct = correct + ?, " +
+                "streak = CASE WHEN ? = 1 THEN streak + 1 ELSE 0 END, " +
+                "best_streak = MAX(best_streak, CASE WHEN ? = 1 THEN streak + 1 ELSE 0 END), " +
+                "day_streak = ?, best_day_streak = ?, last_day = MAX(COALESCE(last_day, ''), ?)";
+        try (PreparedStatement s = c.prepareStatement(summary)) {
+            s.setInt(1, hit);
+            s.setInt(2, hit);
+            s.setInt(3, hit);
+            s.setInt(4, dayStreak);
+            s.setInt(5, bestDayStreak);
+            s.setString(6, day.toString());
+            s.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the smoothed error rate used to rank the hardest flashcards.
+     * A flashcard answered once wrongly does not outrank one answered wrongly
+     * many times.
+     */
+    private static double difficulty(int reviews, int correct) {
+        return (reviews - correct + 1.0) / (reviews + 2.0);
+    }
+
+    /**
+     * Returns the statistics of the whole deck.
+     *
+     * @param c the connection to use
+     * @param today the current day, to tell whether the day streak is still running
+     * @return the statistics
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static Summary summary(Connection c, LocalDate today) throws SQLException {
+        String q = "SELECT reviews, correct, streak, best_streak, day_streak, best_day_streak, last_day " +
+                "FROM study_summary";
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery(q)) {
+            if (!set.next()) {
+                return new Summary(0, 0, 0, 0, 0, 0);
+            }
+            String lastDay = set.getString(7);
+            boolean running = lastDay != null && !LocalDate.parse(lastDay).isBefore(today.minusDays(1));
+            return new Summary(set.getInt(1), set.getInt(2), set.getInt(3), set.getInt(4),
+                    running ? set.getInt(5) : 0, set.getInt(6));
+        }
+    }
+
+    /**
+     * Returns the counts of the last days, including days without answers.
+     *
+     * @param c the connection to use
+     * @param today the last day
+     * @param days the number of days
+     * @return the counts by day, oldest first
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static Map<LocalDate, Counts> daily(Connection c, LocalDate today, int days) throws SQLException {
+        Map<String, Counts> stored = new HashMap<>();
+        LocalDate first = today.minusDays(days - 1);
+        try (PreparedStatement s = c.prepareStatement(
+                "SELECT day, reviews, correct FROM daily_stats WHERE day BETWEEN ? AND ?")) {
+            s.setString(1, first.toString());
+            s.setString(2, today.toString());
+            try (ResultSet set = s.executeQuery()) {
+                while (set.next()) {
+                    stored.put(set.getString(1), new Counts(set.getInt(2), set.getInt(3)));
+                }
+            }
+        }
+        Map<LocalDate, Counts> result = new LinkedHashMap<>();
+        for (LocalDate day = first; !day.isAfter(today); day = day.plusDays(1)) {
+            result.put(day, stored.getOrDefault(day.toString(), new Counts(0, 0)));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the flashcards answered wrongly most often, walking the
+     * difficulty index from the top.
+     *
+     * @param c the connection to use
+     * @param limit the number of flashcards
+     * @return the hardest flashcards, hardest first
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static List<CardStats> hardest(Connection c, int limit) throws SQLException {
+        List<CardStats> hardest = new ArrayList<>();
+        String q = "SELECT f.question, s.reviews, s.correct FROM card_stats s " +
+                "JOIN " + DBconnection.deckTable() + " f ON f.uid = s.uid " +
+                "WHERE f.deleted = 0 AND s.correct < s.reviews " +
+                "ORDER BY s.difficulty DESC LIMIT ?";
+        try (PreparedStatement s = c.prepareStatement(q)) {
+            s.setInt(1, limit);
+            try (ResultSet set = s.executeQuery()) {
+                while (set.next()) {
+                    hardest.add(new CardStats(TextCodec.read(set, 1), set.getInt(2), set.getInt(3)));
+                }
+            }
+        }
+        return hardest;
+    }
+
+    /**
+     * Returns the counts of one flashcard.
+     *
+     * @param c the connection to use
+     * @param uid the uid of the flashcard
+     * @return the counts, zero for a flashcard never answered
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static Counts card(Connection c, String uid) throws SQLException {
+        try (PreparedStatement s = c.prepareStatement("SELECT reviews, correct FROM card_stats WHERE uid = ?")) {
+            s.setString(1, uid);
+            try (ResultSet set = s.executeQuery()) {
+                return set.next() ? new Counts(set.getInt(1), set.getInt(2)) : new Counts(0, 0);
+            }
+        }
+    }
+
+    /**
+     * Returns the error rates of the flashcards from the database of the application.
+     * Answers still queued for the writer are not included yet.
+     * If the statistics cannot be read, every error rate is 0.
+     *
+     * @param cards the flashcards of the deck
+     * @return the error rate of every flashcard, from 0 to 1
+     */
+    public static double[] errorRates(List<Flashcard> cards) {
+        try {
+            return errorRates(DBconnection.getConnection(), cards);
+        } catch (SQLException e) {
+            System.out.println(e.getMessage());
+            return new double[cards.size()];
+        }
+    }
+
+    /**
+     * Returns the error rates of the flashcards, for the weakest-first quiz order.
+     * Flashcards never answered get an error rate of 0.
+     *
+     * @param c the connection to use
+     * @param cards the flashcards of the deck
+     * @return the error rate of every flashcard, from 0 to 1
+     * @throws SQLException if the statistics cannot be read
+     */
+    public static double[] errorRates(Connection c, List<Flashcard> cards) throws SQLException {
+        Map<String, Double> rates = new HashMap<>();
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT uid, reviews, correct FROM card_stats")) {
+            while (set.next()) {
+                int reviews = set.getInt(2);
+                rates.put(set.getString(1), reviews == 0 ? 0 : (double) (reviews - set.getInt(3)) / reviews);
+            }
+        }
+        double[] errorRates = new double[cards.size()];
+        for (int i = 0; i < errorRates.length; i++) {
+            errorRates[i] = rates.getOrDefault(cards.get(i).getUid(), 0.0);
+        }
+        return errorRates;
+    }
+}
@@ -0,0 +1,517 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for compression and database access.
+ */
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the text of flashcards.
+ *
+ * Long questions and answers are deflated with a preset dictionary trained on the
+ * deck, so that text repeated across flashcards (question stems, common phrases)
+ * costs a few bytes per copy. Compressed text is stored as a BLOB in the question
+ * and answer columns; short text stays TEXT, since compressing it would not pay off.
+ * Short strings read from the database are interned in a pool, so frequently
+ * repeated answers such as "4" are kept in memory once.
+ *
+ * Loaded flashcards keep their compressed text and decode it on first use, one
+ * page of flashcards at a time; the text of the most recently used pages is cached.
+ *
+ * Compression of new text is enabled with -Dflashcards.compressText=true.
+ * Compressed text is always readable, also when compression is disabled.
+ * Dictionaries are stored in the text_dictionary table under the CRC32 of their
+ * content, so dictionaries of different copies of the database do not collide.
+ */
+public class TextCodec {
+
+    /** System property enabling compression of new text. */
+    public static final String COMPRESS_PROPERTY = "flashcards.compressText";
+
+    /** Text shorter than this, in characters, is not compressed. */
+    private static final int LONG_TEXT = 32;
+
+    /** Strings up to this length, in characters, are interned when read. */
+    static final int SHORT_TEXT = 16;
+
+    /** Highest number of strings in the intern pool. */
+    private static final int POOL_SIZE = 65_536;
+
+    /** Maximum size of a dictionary, the window of deflate. */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    /** Number of texts sampled from the deck to train a dictionary. */
+    private static final int TRAINING_SAMPLES = 5000;
+
+    /** Smallest number of long texts a dictionary is trained on. */
+    private static final int MIN_TRAINING_SAMPLES = 100;
+
+    /** Longest phrase, in words, considered for the dictionary. */
+    private static final int MAX_PHRASE_WORDS = 4;
+
+    /** Number of flashcards decoded together. */
+    public static final int PAGE_SIZE = 256;
+
+    /** Number of decoded pages kept in memory. */
+    private static final int DECODED_PAGES = 64;
+
+    /** First byte of compressed text, identifying the format. */
+    private static final byte FORMAT = 1;
+
+    /** Length of the header of compressed text: format, dictionary id, text length. */
+    private static final int HEADER = 9;
+
+    /** Dictionaries by id. */
+    private static final Map<Integer, byte[]> dictionaries = new ConcurrentHashMap<>();
+
+    /** Id of the dictionary used for new text, or 0 if compression is not possible. */
+    private static volatile int current;
+
+    /** Pool of interned short strings. */
+    private static final Map<String, String> pool = new ConcurrentHashMap<>();
+
+    /** Pages with decoded text, least recently used first. */
+    private static final LinkedHashMap<Page, Boolean> decoded = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates the dictionary table if it does not exist.
+     *
+     * @param c the connection to use
+     * @throws SQLException if the table cannot be created
+     */
+    public static void createTable(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS text_dictionary (" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "data BLOB NOT NULL)");
+        }
+    }
+
+    /**
+     * Loads the dictionaries of a database, so that its text can be decoded.
+     *
+     * @param c the connection to use
+     * @return the id of the dictionary of the database, or 0 if it has none
+     * @throws SQLException if the dictionaries cannot be read
+     */
+    public static int load(Connection c) throws SQLException {
+        int id = 0;
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT id, data FROM text_dictionary")) {
+            while (set.next()) {
+                id = set.getInt(1);
+                dictionaries.put(id, set.getBytes(2));
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Loads the dictionary of the database of the application and, when compression
+     * is enabled, uses it for new text. A database without a dictionary gets one
+     * trained on its flashcards, once it has enough long text.
+     *
+     * @param c the connection to the database of the application
+     * @throws SQLException if the dictionary cannot be read or stored
+     */
+    public static void start(Connection c) throws SQLException {
+        int id = load(c);
+        if (!Boolean.getBoolean(COMPRESS_PROPERTY)) {
+            return;
+        }
+        if (id == 0) {
+            List<String> samples = new ArrayList<>();
+            try (PreparedStatement s = c.prepareStatement("SELECT question, answer FROM flashcards " +
+                    "WHERE deleted = 0 AND typeof(question) = 'text' LIMIT ?")) {
+                s.setInt(1, TRAINING_SAMPLES);
+                try (ResultSet set = s.executeQuery()) {
+                    while (set.next()) {
+                        samples.add(set.getString(1));
+                        samples.add(set.getString(2));
+                    }
+                }
+            }
+            byte[] dictionary = train(samples);
+            if (dictionary == null) {
+                return;
+            }
+            id = register(dictionary);
+            try (PreparedStatement s = c.prepareStatement(
+                    "INSERT OR IGNORE INTO text_dictionary (id, data) VALUES (?, ?)")) {
+                s.setInt(1, id);
+                s.setBytes(2, dictionary);
+                s.executeUpdate();
+            }
+        }
+        current = id;
+    }
+
+    /**
+     * Trains a dictionary on sample texts: the phrases of up to MAX_PHRASE_WORDS words
+     * that save the most bytes, ordered so that the most valuable ones are closest
+     * to the compressed data.
+     *
+     * @param samples the sample texts
+     * @return the dictionary, or null if there are too few long samples
+     */
+    public static byte[] train(List<String> samples) {
+        Map<String, Integer> counts = new HashMap<>();
+        int longSamples = 0;
+        for (String sample : samples) {
+            if (sample == null || sample.length() < LONG_TEXT) {
+                continue;
+            }
+            longSamples++;
+            String[] words = sample.split(" ");
+            for (int i = 0; i < words.length; i++) {
+                StringBuilder phrase = new StringBuilder();
+                for (int n = 0; n < MAX_PHRASE_WORDS && i + n < words.length; n++) {
+                    if (n > 0) {
+                        phrase.append(' ');
+                    }
+                    phrase.append(words[i + n]);
+                    counts.merge(phrase.toString(), 1, Integer::sum);
+                }
+            }
+        }
+        if (longSamples < MIN_TRAINING_SAMPLES) {
+            return null;
+        }
+        List<Map.Entry<String, Integer>> phrases = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1 && entry.getKey().length() > 2) {
+                phrases.add(entry);
+            }
+        }
+        phrases.sort((a, b) -> Long.compare((long) b.getValue() * b.getKey().length(),
+                (long) a.getValue() * a.getKey().length()));
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> entry : phrases) {
+            byte[] bytes = (entry.getKey() + " ").getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > DICTIONARY_SIZE) {
+                break;
+            }
+            chosen.add(bytes);
+            size += bytes.length;
+        }
+        ByteBuffer dictionary = ByteBuffer.allocate(size);
+        for (int i = chosen.size() - 1; i >= 0; i--) {
+            dictionary.put(chosen.get(i));
+        }
+        return dictionary.array();
+    }
+
+    /**
+     * Registers a dictionary and returns its id.
+     *
+     * @param dictionary the dictionary
+     * @return the id of the dictionary
+     */
+    static int register(byte[] dictionary) {
+        CRC32 crc = new CRC32();
+        crc.update(dictionary);
+        int id = crc.getValue() == 0 ? 1 : (int) crc.getValue();
+        dictionaries.put(id, dictionary);
+        return id;
+    }
+
+    /**
+     * Uses a registered dictionary for new text, or disables compression with 0.
+     *
+     * @param id the id of the dictionary
+     */
+    static void use(int id) {
+        current = id;
+    }
+
+    /**
+     * Encodes text for storage: compressed bytes if compression is enabled and
+     * saves space, otherwise the text itself.
+     *
+     * @param text the text
+     * @return a byte array or the text
+     */
+    public static Object encode(String text) {
+        int id = current;
+        if (id == 0 || text == null || text.length() < LONG_TEXT) {
+            return text;
+        }
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setDictionary(dictionaries.get(id));
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[HEADER + raw.length];
+            int length = HEADER;
+            while (!deflater.finished() && length < out.length) {
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            if (!deflater.finished() || length >= raw.length) {
+                return text;
+            }
+            ByteBuffer.wrap(out).put(FORMAT).putInt(id).putInt(raw.length);
+            byte[] encoded = new byte[length];
+            System.arraycopy(out, 0, encoded, 0, length);
+            return encoded;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Sets a parameter of a statement to encoded text.
+     *
+     * @param s the statement
+     * @param index the index of the parameter
+     * @param text the text
+     * @throws SQLException if the parameter cannot be set
+     */
+    public static void bind(PreparedStatement s, int index, String text) throws SQLException {
+        Object value = encode(text);
+        if (value instanceof byte[]) {
+            s.setBytes(index, (byte[]) value);
+        } else {
+            s.setString(index, text);
+        }
+    }
+
+    /**
+     * Reads and decodes a text column.
+     *
+     * @param set the result set
+     * @param column the index of the column
+     * @return the text
+     * @throws SQLException if the column cannot be read or decoded
+     */
+    public static String read(ResultSet set, int column) throws SQLException {
+        return decode(raw(set, column));
+    }
+
+    /**
+     * Reads a text column without decoding it. Short strings are interned.
+     *
+     * @param set the result set
+     * @param column the index of the column
+     * @return compressed bytes or the text
+     * @throws SQLException if the column cannot be read
+     */
+    public static Object raw(ResultSet set, int column) throws SQLException {
+        Object value = set.getObject(column);
+        if (value instanceof byte[] || value == null) {
+            return value;
+        }
+        return intern(value.toString());
+    }
+
+    /**
+     * Returns the pooled copy of a short string.
+     *
+     * @param text the string
+     * @return an equal string shared by all its readers
+     */
+    public static String intern(String text) {
+        if (text.length() > SHORT_TEXT) {
+            return text;
+        }
+        String pooled = pool.get(text);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (pool.size() >= POOL_SIZE) {
+            return text;
+        }
+        pooled = pool.putIfAbsent(text, text);
+        return pooled != null ? pooled : text;
+    }
+
+    /**
+     * Decodes a value read from a text column.
+     *
+     * @param value compressed bytes or text
+     * @return the text
+     * @throws SQLException if the value is compressed with an unknown dictionary or damaged
+     */
+    public static String decode(Object value) throws SQLException {
+        if (!(value instanceof byte[])) {
+            return (String) value;
+        }
+        ByteBuffer data = ByteBuffer.wrap((byte[]) value);
+        if (data.remaining() < HEADER || data.get() != FORMAT) {
+            throw new SQLException("Unknown text format");
+        }
+        byte[] dictionary = dictionaries.get(data.getInt());
+        if (dictionary == null) {
+            throw new SQLException("Unknown text dictionary");
+        }
+        byte[] raw = new byte[data.getInt()];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(dictionary);
+            inflater.setInput(data.array(), HEADER, data.remaining());
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, length, raw.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != raw.length) {
+                throw new SQLException("Damaged compressed text");
+            }
+        } catch (DataFormatException e) {
+            throw new SQLException("Damaged compressed text", e);
+        } finally {
+            inflater.end();
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates loaded flashcards, putting the compressed ones into pages.
+     */
+    public static class PageBuilder {
+
+        /** The page being filled. */
+        private Page page;
+
+        /** The next free slot of the page. */
+        private int slot;
+
+        /**
+         * Creates a flashcard from stored values. A flashcard with compressed
+         * text is put into the current page and decoded with it on first use.
+         *
+         * @param question the stored question, compressed bytes or text
+         * @param answer the stored answer, compressed bytes or text
+         * @param number the number of the flashcard
+         * @param color the color of the flashcard
+         * @param attachment the content hash of the attachment, or null
+         * @param uid the uid of the flashcard
+         * @return the flashcard
+         */
+        public Flashcard add(Object question, Object answer, int number, Color color,
+                             String attachment, String uid) {
+            if (!(question instanceof byte[]) && !(answer instanceof byte[])) {
+                return new Flashcard((String) question, (String) answer, number, color, attachment, uid);
+            }
+            if (page == null || slot == page.values.length) {
+                page = new Page(new Object[2 * PAGE_SIZE]);
+                slot = 0;
+            }
+            page.values[slot] = question;
+            page.values[slot + 1] = answer;
+            slot += 2;
+            return new Flashcard(page, slot - 2, number, color, attachment, uid);
+        }
+    }
+
+    /**
+     * The texts of a page of loaded flashcards, decoded together on first use.
+     */
+    public static class Page {
+
+        /** The stored values, compressed bytes or text. */
+        private final Object[] values;
+
+        /** The decoded texts, or null while the page is not decoded. */
+        private String[] texts;
+
+        /**
+         * Creates a page over stored values.
+         *
+         * @param values the stored values, compressed bytes or text
+         */
+        public Page(Object[] values) {
+            this.values = values;
+        }
+
+        /**
+         * Returns the text of a slot, decoding the page if necessary.
+         *
+         * @param slot the index of the value
+         * @return the text
+         */
+        public String text(int slot) {
+            Object value = values[slot];
+            if (!(value instanceof byte[])) {
+                return (String) value;
+            }
+            String[] page;
+            synchronized (this) {
+                if (texts == null) {
+                    String[] decodedTexts = new String[values.length];
+                    for (int i = 0; i < values.length; i++) {
+                        try {
+                            decodedTexts[i] = values[i] == null ? null : decode(values[i]);
+                        } catch (SQLException e) {
+                            System.out.println(e.getMessage());
+                            decodedTexts[i] = "";
+                        }
+                    }
+                    texts = decodedTexts;
+                }
+                page = texts;
+            }
+            touch(this);
+            return page[slot];
+        }
+
+        /**
+         * Drops the decoded texts.
+         */
+        private synchronized void release() {
+            texts = null;
+        }
+    }
+
+    /**
+     * Marks a page as recently used and releases the least recently used pages.
+     */
+    private static void touch(Page page) {
+        synchronized (decoded) {
+            decoded.put(page, Boolean.TRUE);
+            if (decoded.size() > DECODED_PAGES) {
+                Page eldest = decoded.keySet().iterator().next();
+                decoded.remove(eldest);
+                eldest.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,407 @@
+/**
+ * Provides functionality for a flashcard study application.
+ *
+ * This package contains classes responsible for managing a flashcard database,
+ * creating a user interface, and handling user interactions with the database.
+ *
+ * MainApp class: Creates the user interface and handles user interaction with the database;
+ * DBConnection class: Manages communication with an SQLite database, including table creation,
+ * flashcard addition, removal, and loading;
+ * Flashcard class: Represents individual flashcards with question, answer, number, and color.
+ *
+ * UI divided into two modes:
+ * study mode (adding, removing, displaying flashcards);
+ * quiz mode (displaying flashcards, checking answers).
+ *
+ * @author Sofiia Riazhskykh
+ */
+package cz.cuni.mff.riazhsks;
+
+/**
+ * Import necessary Java libraries for file watching, file handling,
+ * and database access.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Imports flashcard files dropped into or appended to a watched directory.
+ *
+ * The files use the same "Question;Answer" format as the file import. For every file
+ * the ingestor remembers how many bytes it has already imported, together with a
+ * checksum of the bytes just before that offset, in the ingest_files table. The offset
+ * is committed in the same transaction as the imported flashcards, so every line is
+ * imported exactly once, even across restarts. A file whose remembered bytes have
+ * changed has been replaced and is imported again from the start.
+ *
+ * Bursts of file events are coalesced, and all files changed during a burst are
+ * imported in one transaction. The new flashcards are published in a
+ * BulkImportFinished event, so the user interface appends them to the shown deck
+ * without reloading it.
+ */
+public class WatchFolderIngestor implements Runnable {
+
+    /** Time to wait for further events after the first one of a burst, in milliseconds. */
+    private static final long COALESCE_MILLIS = 200;
+
+    /** Longest time a burst of events is collected before importing, in milliseconds. */
+    private static final long MAX_BATCH_MILLIS = 2000;
+
+    /** Time after which a last line without a line break is imported anyway, in milliseconds. */
+    private static final long SETTLE_MILLIS = 2000;
+
+    /** Largest part of a file imported in one transaction, in bytes. */
+    private static final int MAX_READ = 8 << 20;
+
+    /** Number of bytes before the offset covered by the checksum. */
+    private static final int CHECKSUM_WINDOW = 4096;
+
+    /** Time to wait before retrying a failed import for the first time, in milliseconds. */
+    private static final long RETRY_MILLIS = 500;
+
+    /** Longest time to wait before retrying a failed import, in milliseconds. */
+    private static final long MAX_RETRY_MILLIS = 30_000;
+
+    /** The watched directory. */
+    private final Path directory;
+
+    /** The watch service of the directory. */
+    private final WatchService watchService;
+
+    /** Files that end with a line that has no line break yet. */
+    private final Set<Path> pending = new LinkedHashSet<>();
+
+    /** Files with more new content than one transaction imports, or whose import failed. */
+    private final Set<Path> backlog = new LinkedHashSet<>();
+
+    /** Time to wait before importing the backlog, doubled after every failed import. */
+    private long retryDelay;
+
+    /**
+     * Creates an ingestor for the given directory.
+     *
+     * @param directory the directory to watch
+     * @throws IOException if the directory cannot be watched
+     */
+    public WatchFolderIngestor(Path directory) throws IOException {
+        this.directory = directory;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+    }
+
+    /**
+     * Starts watching the directory in a background daemon thread.
+     *
+     * @param directory the directory to watch
+     * @return the started ingestor
+     * @throws IOException if the directory cannot be watched
+     */
+    public static WatchFolderIngestor start(Path directory) throws IOException {
+        WatchFolderIngestor ingestor = new WatchFolderIngestor(directory);
+        Thread t = new Thread(ingestor, "watch-folder-ingestor");
+        t.setDaemon(true);
+        t.start();
+        return ingestor;
+    }
+
+    /**
+     * Stops watching the directory.
+     */
+    public void stop() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Imports the files already present in the directory, then imports
+     * every batch of changed files until the ingestor is stopped.
+     */
+    @Override
+    public void run() {
+        try (Connection c = DBconnection.openConnection()) {
+            createStateTable(c);
+            ingest(c, listFiles(), false);
+            while (true) {
+                if (!backlog.isEmpty()) {
+                    ingestBacklog(c);
+                    continue;
+                }
+                WatchKey key = pending.isEmpty()
+                        ? watchService.take()
+                        : watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    settle(c);
+                    continue;
+                }
+                Set<Path> changed = new LinkedHashSet<>();
+                long deadline = System.currentTimeMillis() + MAX_BATCH_MILLIS;
+                while (key != null) {
+                    if (collect(key, changed)) {
+                        changed.addAll(listFiles());
+                    }
+                    long left = Math.min(COALESCE_MILLIS, deadline - System.currentTimeMillis());
+                    key = left > 0 ? watchService.poll(left, TimeUnit.MILLISECONDS) : null;
+                }
+                ingest(c, changed, false);
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // stopped
+        } catch (IOException | SQLException e) {
+            System.out.println("Watch folder ingestion stopped: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Imports the files of the backlog. After a failed import, the ingestor first
+     * waits for the retry delay, collecting the files changed in the meantime.
+     *
+     * @param c the connection of the ingestor
+     */
+    void ingestBacklog(Connection c) throws IOException, SQLException, InterruptedException {
+        long deadline = System.currentTimeMillis() + retryDelay;
+        long left;
+        while ((left = deadline - System.currentTimeMillis()) > 0) {
+            WatchKey key = watchService.poll(left, TimeUnit.MILLISECONDS);
+            if (key != null && collect(key, backlog)) {
+                backlog.addAll(listFiles());
+            }
+        }
+        Set<Path> files = new LinkedHashSet<>(backlog);
+        backlog.clear();
+        ingest(c, files, false);
+    }
+
+    /**
+     * Imports the last lines without a line break of the files that have not
+     * changed for a while.
+     *
+     * @param c the connection of the ingestor
+     */
+    void settle(Connection c) throws SQLException {
+        ingest(c, new LinkedHashSet<>(pending), true);
+    }
+
+    /**
+     * Adds the files named by the events of a watch key to the set of changed files.
+     *
+     * @return true if events were lost and the whole directory has to be rescanned
+     */
+    private boolean collect(WatchKey key, Set<Path> changed) {
+        boolean overflow = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflow = true;
+            } else {
+                changed.add(directory.resolve((Path) event.context()));
+            }
+        }
+        key.reset();
+        return overflow;
+    }
+
+    /**
+     * Lists the regular files of the watched directory.
+     */
+    List<Path> listFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Creates the table remembering how far each file has been imported.
+     */
+    static void createStateTable(Connection c) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE IF NOT EXISTS ingest_files (" +
+                    "path TEXT PRIMARY KEY, " +
+                    "offset INTEGER NOT NULL, " +
+                    "checksum INTEGER NOT NULL)");
+        }
+    }
+
+    /**
+     * Imports the new content of the given files in one transaction
+     * and appends the new flashcards to the displayed deck. If the transaction
+     * fails, for example because another connection holds the database lock,
+     * the files are put into the backlog and retried with a growing delay.
+     *
+     * @param c the connection of the ingestor
+     * @param files the changed files
+     * @param settled if true, last lines without a line break are imported too
+     */
+    void ingest(Connection c, Iterable<Path> files, boolean settled) throws SQLException {
+        List<Flashcard> added = new ArrayList<>();
+        Set<Path> pendingBefore = new LinkedHashSet<>(pending);
+        c.setAutoCommit(false);
+        try {
+            int number = DBconnection.nextNumber(c);
+            for (Path file : files) {
+                if (!Files.isRegularFile(file) || Files.isHidden(file) || file.toString().endsWith(".gz")) {
+                    continue;
+                }
+                List<Flashcard> cards = ingestFile(c, file, number, settled);
+                number += cards.size();
+                added.addAll(cards);
+            }
+            DBconnection.addFlashcards(c, added);
+            c.commit();
+            DBconnection.addCount(added.size());
+            retryDelay = 0;
+        } catch (IOException | SQLException e) {
+            c.rollback();
+            pending.clear();
+            pending.addAll(pendingBefore);
+            for (Path file : files) {
+                backlog.add(file);
+            }
+            retryDelay = retryDelay == 0 ? RETRY_MILLIS : Math.min(MAX_RETRY_MILLIS, 2 * retryDelay);
+            System.out.println("Error importing watched files, retrying in " + retryDelay + " ms: " + e.getMessage());
+            return;
+        } finally {
+            c.setAutoCommit(true);
+        }
+        if (!added.isEmpty()) {
+            System.out.println(added.size() + " flashcards imported from " + directory);
+            DeckEvents.publish(new DeckEvents.BulkImportFinished(added.size(), added));
+        }
+    }
+
+    /**
+     * Reads the part of a file that has not been imported yet and stores the new offset.
+     *
+     * @param c the connection of the ingestor
+     * @param file the file to import
+     * @param number the number of the first new flashcard
+     * @param settled if true, a last line without a line break is imported too
+     * @return the flashcards read from the file
+     */
+    private List<Flashcard> ingestFile(Connection c, Path file, int number, boolean settled)
+            throws IOException, SQLException {
+        String key = file.toAbsolutePath().toString();
+        long offset = 0;
+        long checksum = 0;
+        try (PreparedStatement s = c.prepareStatement("SELECT offset, checksum FROM ingest_files WHERE path = ?")) {
+            s.setString(1, key);
+            try (ResultSet set = s.executeQuery()) {
+                if (set.next()) {
+                    offset = set.getLong(1);
+                    checksum = set.getLong(2);
+                }
+            }
+        }
+        List<Flashcard> cards = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (offset > size || (offset > 0 && windowChecksum(channel, offset) != checksum)) {
+                System.out.println(file + " was replaced, importing it again");
+                offset = 0;
+            }
+            if (size == offset) {
+                pending.remove(file);
+                return cards;
+            }
+            boolean truncated = size - offset > MAX_READ;
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(MAX_READ, size - offset));
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                // read the whole chunk
+            }
+            byte[] bytes = buffer.array();
+            int length = buffer.position();
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] == '\n') {
+                    parseLine(file, new String(bytes, start, i - start, StandardCharsets.UTF_8), number + cards.size(), cards);
+                    start = i + 1;
+                }
+            }
+            if (truncated) {
+                backlog.add(file);
+                if (start == 0) {
+                    System.out.println("Line too long in " + file + ", skipping " + length + " bytes");
+                    start = length;
+                }
+            } else if (start < length && settled) {
+                parseLine(file, new String(bytes, start, length - start, StandardCharsets.UTF_8), number + cards.size(), cards);
+                start = length;
+            }
+            if (start < length && !truncated) {
+                pending.add(file);
+            } else {
+                pending.remove(file);
+            }
+            offset += start;
+            checksum = windowChecksum(channel, offset);
+        }
+        try (PreparedStatement s = c.prepareStatement(
+                "INSERT OR REPLACE INTO ingest_files (path, offset, checksum) VALUES (?, ?, ?)")) {
+            s.setString(1, key);
+            s.setLong(2, offset);
+            s.setLong(3, checksum);
+            s.executeUpdate();
+        }
+        return cards;
+    }
+
+    /**
+     * Parses one "Question;Answer" line. Empty lines are ignored, and invalid
+     * lines are reported and skipped.
+     */
+    private static void parseLine(Path file, String line, int number, List<Flashcard> cards) {
+        if (line.endsWith("\r")) {
+            line = line.substring(0, line.length() - 1);
+        }
+        if (line.isEmpty()) {
+            return;
+        }
+        String[] fields = line.split(";");
+        if (fields.length != 2 || fields[0].isBlank() || fields[1].isBlank()) {
+            System.out.println("Invalid line in " + file + ": " + line);
+            return;
+        }
+        cards.add(new Flashcard(fields[0].trim(), fields[1].trim(), number, MainApp.generateRandomColor(),
+                null, DBconnection.newUid()));
+    }
+
+    /**
+     * Computes the checksum of the bytes just before the given offset.
+     */
+    private static long windowChecksum(FileChannel channel, long offset) throws IOException {
+        int length = (int) Math.min(CHECKSUM_WINDOW, offset);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.read(buffer, offset - length);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        return crc.getValue();
+    }
+}
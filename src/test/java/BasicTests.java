@@ -0,0 +1,130 @@
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import cz.cuni.mff.riazhsks.DBconnection;
+import cz.cuni.mff.riazhsks.Flashcard;
+import cz.cuni.mff.riazhsks.MainApp;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.awt.Color;
+import java.awt.GraphicsEnvironment;
+
+public class BasicTests {
+  
+    @Test
+    public void createFlashcard() {
+        Flashcard fc = new Flashcard("Question", "Answer", 1, Color.RED);
+        String q = fc.getQuestion();
+        String a = fc.getAnswer();
+        int n = fc.getNumber();
+        Color c = fc.getColor();
+        Assertions.assertEquals(q, "Question"); 
+        Assertions.assertEquals(a, "Answer"); 
+        Assertions.assertEquals(n, 1); 
+        Assertions.assertEquals(c, Color.RED); 
+
+    }
+
+    @Test
+    public void workWithDB() {
+        DBconnection.initializeDatabase();
+        DBconnection.createTable();
+        Assertions.assertEquals(DBconnection.count, 0); 
+        DBconnection.addFlashcard("Question1", "Answer1", 1, Color.RED);
+        DBconnection.addFlashcard("Question2", "Answer2", 2, Color.GREEN);
+        Assertions.assertEquals(DBconnection.count, 2); 
+        DBconnection.removeAll();
+        Assertions.assertEquals(DBconnection.count, 0); 
+    }
+
+    @Test
+    public void editByUid() throws Exception {
+        DBconnection.initializeDatabase();
+        DBconnection.createTable();
+        DBconnection.removeAll();
+        List<Flashcard> cards = new ArrayList<>();
+        cards.add(new Flashcard("Question1", "Answer1", 1, Color.RED, null, DBconnection.newUid()));
+        cards.add(new Flashcard("Question2", "Answer2", 1, Color.GREEN, null, DBconnection.newUid()));
+        cards.add(new Flashcard("Question3", "Answer3", 2, Color.BLUE, null, DBconnection.newUid()));
+        Map<String, String> questions = new HashMap<>();
+        try {
+            DBconnection.addFlashcards(cards);
+            Flashcard edited = DBconnection.updateFlashcard(cards.get(1), "Question4", "Answer4");
+            Assertions.assertEquals(edited.getUid(), cards.get(1).getUid());
+            Assertions.assertTrue(DBconnection.editFlashcards(List.of(new Flashcard("Question5", "Answer5", 1, null))).isEmpty());
+            Assertions.assertEquals(DBconnection.editFlashcards(List.of(new Flashcard("Question6", "Answer6", 2, null))).size(), 1);
+            for (Flashcard card : DBconnection.readDeck(DBconnection.getConnection())) {
+                questions.put(card.getUid(), card.getQuestion());
+            }
+        } finally {
+            DBconnection.removeAll();
+        }
+        Assertions.assertEquals(questions.get(cards.get(0).getUid()), "Question1");
+        Assertions.assertEquals(questions.get(cards.get(1).getUid()), "Question4");
+        Assertions.assertEquals(questions.get(cards.get(2).getUid()), "Question6");
+    }
+
+    @Test
+    public void moveRange() {
+        Assertions.assertEquals(DBconnection.movedNumber(7, 7, 9, 2), 2);
+        Assertions.assertEquals(DBconnection.movedNumber(9, 7, 9, 2), 4);
+        Assertions.assertEquals(DBconnection.movedNumber(2, 7, 9, 2), 5);
+        Assertions.assertEquals(DBconnection.movedNumber(6, 7, 9, 2), 9);
+        Assertions.assertEquals(DBconnection.movedNumber(10, 7, 9, 2), 10);
+        Assertions.assertEquals(DBconnection.movedNumber(2, 2, 3, 5), 5);
+        Assertions.assertEquals(DBconnection.movedNumber(5, 2, 3, 5), 3);
+        Assertions.assertEquals(DBconnection.movedNumber(1, 2, 3, 5), 1);
+    }
+
+    @Test
+    public void editFlashcard() {
+        Flashcard fc = new Flashcard("Question", "Answer", 1, Color.RED);
+        Flashcard edited = fc.withText("Question2", "Answer2").withColor(Color.GREEN).withNumber(3);
+        Assertions.assertEquals(edited.getQuestion(), "Question2");
+        Assertions.assertEquals(edited.getAnswer(), "Answer2");
+        Assertions.assertEquals(edited.getColor(), Color.GREEN);
+        Assertions.assertEquals(edited.getNumber(), 3);
+        Assertions.assertEquals(fc.getQuestion(), "Question");
+    }
+   
+    @Test
+    public void testNextButton() {
+        Assumptions.assumeFalse(GraphicsEnvironment.isHeadless(), "needs a display");
+        MainApp app = new MainApp();
+        List<Flashcard> Flashcards = new ArrayList<>();
+        Flashcards.add(new Flashcard("Question1", "Answer1", 1, Color.RED));
+        Flashcards.add(new Flashcard("Question2", "Answer2", 2, Color.GREEN));
+        app.flashcards = Flashcards;
+        app.currentCardIndex = 0;
+        app.nextButton.doClick();
+        Assertions.assertEquals(app.currentCardIndex,1);
+    }
+
+    @Test
+    public void testPrevButton() {
+        Assumptions.assumeFalse(GraphicsEnvironment.isHeadless(), "needs a display");
+        MainApp app = new MainApp();
+        List<Flashcard> Flashcards = new ArrayList<>();
+        Flashcards.add(new Flashcard("Question1", "Answer1", 1, Color.RED));
+        Flashcards.add(new Flashcard("Question2", "Answer2", 2, Color.GREEN));
+        app.flashcards = Flashcards;
+        app.currentCardIndex = 1;
+        app.prevButton.doClick();
+        Assertions.assertEquals(app.currentCardIndex,0);
+    }
+    
+    @Test
+    public void testFlipButton() {
+        Assumptions.assumeFalse(GraphicsEnvironment.isHeadless(), "needs a display");
+        MainApp app = new MainApp();
+        List<Flashcard> Flashcards = new ArrayList<>();
+        Flashcards.add(new Flashcard("Question1", "Answer1", 1, Color.RED));
+        app.flashcards = Flashcards;
+        app.showingQuestion = true;
+        app.flipButton.doClick();
+        Assertions.assertEquals(app.showingQuestion,false);
+    } 
+}
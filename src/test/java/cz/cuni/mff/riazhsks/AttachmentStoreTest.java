@@ -0,0 +1,147 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AttachmentStoreTest {
+
+    private Path file;
+
+    private Path directory;
+
+    private Connection c;
+
+    @BeforeEach
+    public void open() throws Exception {
+        file = Files.createTempFile("attachments", ".db");
+        directory = Files.createTempDirectory("attachments");
+        c = DBconnection.openConnection("jdbc:sqlite:" + file);
+        DBconnection.createTable(c);
+        AttachmentStore.createTable(c);
+        AttachmentStore.useRoot(directory.resolve("store"));
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        AttachmentStore.useRoot(AttachmentStore.DEFAULT_ROOT);
+        c.close();
+        Files.deleteIfExists(file);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private Path image(String name, int width, int height, Color color) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(color);
+            graphics.fillRect(0, 0, width, height);
+        } finally {
+            graphics.dispose();
+        }
+        Path path = directory.resolve(name);
+        ImageIO.write(image, "png", path.toFile());
+        return path;
+    }
+
+    private long query(String q) throws Exception {
+        try (Statement s = c.createStatement(); ResultSet set = s.executeQuery(q)) {
+            set.next();
+            return set.getLong(1);
+        }
+    }
+
+    private long storedFiles() throws Exception {
+        try (Stream<Path> paths = Files.walk(directory.resolve("store"))) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    public void sameContentIsStoredOnce() throws Exception {
+        Path original = image("a.png", 20, 10, Color.RED);
+        Path copy = Files.copy(original, directory.resolve("copy.png"));
+        String hash = AttachmentStore.store(c, original);
+        Assertions.assertEquals(hash, AttachmentStore.store(c, copy));
+        String other = AttachmentStore.store(c, image("b.png", 20, 10, Color.BLUE));
+        Assertions.assertNotEquals(hash, other);
+
+        Assertions.assertEquals(2, storedFiles());
+        Assertions.assertEquals(2, query("SELECT COUNT(*) FROM attachments"));
+        Assertions.assertEquals(Files.size(original), query("SELECT size FROM attachments WHERE hash = '" + hash + "'"));
+        Assertions.assertEquals(-1, Files.mismatch(original, AttachmentStore.pathOf(hash)));
+        Assertions.assertEquals("image/png", AttachmentStore.typeOf(c, hash));
+    }
+
+    @Test
+    public void unreferencedFilesArePurged() throws Exception {
+        String kept = AttachmentStore.store(c, image("a.png", 20, 10, Color.RED));
+        String unused = AttachmentStore.store(c, image("b.png", 20, 10, Color.BLUE));
+        DBconnection.addFlashcards(c, List.of(new Flashcard("q", "a", 1, Color.WHITE, kept, null)));
+        AttachmentStore.purgeUnreferenced(c);
+
+        Assertions.assertTrue(Files.exists(AttachmentStore.pathOf(kept)));
+        Assertions.assertFalse(Files.exists(AttachmentStore.pathOf(unused)));
+        Assertions.assertEquals(1, query("SELECT COUNT(*) FROM attachments"));
+    }
+
+    @Test
+    public void imagesAreDecodedOnlyWhenAskedAndAtShownSize() throws Exception {
+        String hash = AttachmentStore.store(c, image("large.png", 4000, 1000, Color.GREEN));
+        Assertions.assertFalse(AttachmentStore.isThumbnailCached(hash));
+        Assertions.assertFalse(AttachmentStore.isImageCached(hash));
+
+        AttachmentStore.warm(c, hash);
+        Assertions.assertTrue(AttachmentStore.isThumbnailCached(hash));
+        Assertions.assertFalse(AttachmentStore.isImageCached(hash));
+        ImageIcon thumbnail = AttachmentStore.thumbnail(hash);
+        Assertions.assertEquals(AttachmentStore.THUMBNAIL_SIZE, thumbnail.getIconWidth());
+        Assertions.assertEquals(AttachmentStore.THUMBNAIL_SIZE / 4, thumbnail.getIconHeight());
+
+        BufferedImage opened = AttachmentStore.image(hash);
+        Assertions.assertTrue(opened.getWidth() < 4000);
+        Assertions.assertTrue(opened.getWidth() <= 2 * AttachmentStore.VIEW_SIZE);
+        Assertions.assertSame(opened, AttachmentStore.image(hash));
+    }
+
+    @Test
+    public void imageCacheIsBoundedBySizeAndEvictsLeastRecentlyUsed() throws Exception {
+        int side = AttachmentStore.VIEW_SIZE;
+        long bytes = 4L * side * side;
+        int count = (int) (AttachmentStore.IMAGE_CACHE_BYTES / bytes) + 1;
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            hashes.add(AttachmentStore.store(c, image("i" + i + ".png", side, side, new Color(i * 20, 0, 0))));
+        }
+        for (int i = 0; i < count - 1; i++) {
+            AttachmentStore.image(hashes.get(i));
+        }
+        Assertions.assertEquals((count - 1) * bytes, AttachmentStore.cachedImageBytes());
+        AttachmentStore.image(hashes.get(0));
+        AttachmentStore.image(hashes.get(count - 1));
+
+        Assertions.assertTrue(AttachmentStore.cachedImageBytes() <= AttachmentStore.IMAGE_CACHE_BYTES);
+        Assertions.assertTrue(AttachmentStore.isImageCached(hashes.get(0)));
+        Assertions.assertFalse(AttachmentStore.isImageCached(hashes.get(1)));
+        Assertions.assertTrue(AttachmentStore.isImageCached(hashes.get(count - 1)));
+    }
+}
@@ -0,0 +1,78 @@
+package cz.cuni.mff.riazhsks;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures the throughput of batch grading against the number of threads.
+ *
+ * A generated deck (see DeckGenerator) is graded against a generated exam held
+ * in memory, so that only parsing and grading are measured. Every student answers
+ * random flashcards, correctly, with different case and whitespace, or wrongly.
+ *
+ * Run with the number of students, answers per student and deck size as arguments,
+ * 5000 students with 200 answers to a deck of 20000 flashcards by default.
+ */
+public class BatchGraderBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int students = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int answers = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        List<Flashcard> deck = new DeckGenerator().size(size).seed(1).generate();
+        BatchGrader.AnswerKey key = BatchGrader.AnswerKey.of(deck);
+
+        SplittableRandom random = new SplittableRandom(2);
+        StringBuilder exam = new StringBuilder();
+        long expectedCorrect = 0;
+        for (int student = 0; student < students; student++) {
+            for (int i = 0; i < answers; i++) {
+                Flashcard card = deck.get(random.nextInt(deck.size()));
+                String answer;
+                switch (random.nextInt(3)) {
+                    case 0 -> answer = card.getAnswer();
+                    case 1 -> answer = "  " + card.getAnswer().toUpperCase() + " ";
+                    default -> answer = "wrong answer";
+                }
+                if (Flashcard.answersMatch(answer, card.getAnswer())) {
+                    expectedCorrect++;
+                }
+                exam.append("student").append(student).append(';').append(card.getNumber())
+                        .append(';').append(answer).append('\n');
+            }
+        }
+        String text = exam.toString();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("Answers: " + (long) students * answers + ", cores: " + cores);
+        System.out.println("threads     ms          answers/s   speedup");
+        double single = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < 3; round++) {
+                StringWriter out = new StringWriter();
+                long start = System.nanoTime();
+                BatchGrader.grade(key, new BufferedReader(new StringReader(text)), out, pool);
+                best = Math.min(best, System.nanoTime() - start);
+                long correct = out.toString().lines().mapToLong(l -> Long.parseLong(l.split(";")[1])).sum();
+                if (correct != expectedCorrect) {
+                    throw new IllegalStateException("Graded " + correct + " correct answers, expected " + expectedCorrect);
+                }
+            }
+            pool.shutdown();
+            double perSecond = (double) students * answers / (best / 1e9);
+            if (threads == 1) {
+                single = perSecond;
+            }
+            System.out.printf("%-11d %-11d %-11.0f %.2f%n", threads, best / 1_000_000, perSecond, perSecond / single);
+            if (threads < cores && threads * 2 > cores) {
+                threads = cores / 2;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BatchGraderTest {
+
+    private static List<Flashcard> deck() {
+        List<Flashcard> deck = new ArrayList<>();
+        for (int number = 1; number <= 50; number++) {
+            deck.add(new Flashcard("Question " + number, "Answer " + number, number, Color.WHITE));
+        }
+        return deck;
+    }
+
+    @Test
+    public void matchesSequentialGrading() throws Exception {
+        List<Flashcard> deck = deck();
+        Random random = new Random(11);
+        StringBuilder exam = new StringBuilder();
+        Map<String, long[]> expected = new TreeMap<>();
+        long malformed = 0;
+        for (int i = 0; i < 100_000; i++) {
+            String student = "student" + random.nextInt(300);
+            int number = 1 + random.nextInt(60);
+            String answer;
+            switch (random.nextInt(5)) {
+                case 0 -> answer = "Answer " + number;
+                case 1 -> answer = "  answer " + number + " ";
+                case 2 -> answer = "ANSWER " + number + ";extra";
+                case 3 -> answer = "Answer " + (number + 1);
+                default -> answer = "";
+            }
+            if (random.nextInt(100) == 0) {
+                exam.append(student).append(";x;").append(answer).append('\n');
+                malformed++;
+                continue;
+            }
+            exam.append(student).append(';').append(number).append(';').append(answer).append('\n');
+            long[] score = expected.computeIfAbsent(student, k -> new long[3]);
+            if (number > deck.size()) {
+                score[2]++;
+            } else {
+                score[1]++;
+                if (Flashcard.answersMatch(answer, deck.get(number - 1).getAnswer())) {
+                    score[0]++;
+                }
+            }
+        }
+
+        StringWriter out = new StringWriter();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        BatchGrader.Summary summary;
+        try {
+            summary = BatchGrader.grade(BatchGrader.AnswerKey.of(deck),
+                    new BufferedReader(new StringReader(exam.toString())), out, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        StringBuilder results = new StringBuilder();
+        long graded = 0;
+        for (Map.Entry<String, long[]> entry : expected.entrySet()) {
+            long[] score = entry.getValue();
+            graded += score[1];
+            results.append(entry.getKey()).append(';').append(score[0]).append(';').append(score[1])
+                    .append(';').append(score[2]).append('\n');
+        }
+        Assertions.assertEquals(results.toString(), out.toString());
+        Assertions.assertEquals(graded, summary.getGraded());
+        Assertions.assertEquals(malformed, summary.getMalformed());
+        Assertions.assertEquals(expected.size(), summary.getStudents());
+    }
+
+    @Test
+    public void skipsBlankAndMalformedLines() throws Exception {
+        StringWriter out = new StringWriter();
+        BatchGrader.Summary summary = BatchGrader.grade(BatchGrader.AnswerKey.of(deck()),
+                new BufferedReader(new StringReader("\n;1;Answer 1\nalice;1\nalice;1;answer 1\n")),
+                out, ForkJoinPool.commonPool());
+        Assertions.assertEquals("alice;1;1;0\n", out.toString());
+        Assertions.assertEquals(2, summary.getMalformed());
+        Assertions.assertEquals(1, summary.getGraded());
+    }
+}
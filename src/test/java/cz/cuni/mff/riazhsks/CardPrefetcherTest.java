@@ -0,0 +1,101 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CardPrefetcherTest {
+
+    private static List<Flashcard> deck(int size) {
+        List<Flashcard> deck = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            deck.add(new Flashcard("q" + i, "a" + i, i, new Color(i * 2, 0, 0)));
+        }
+        return deck;
+    }
+
+    private static Set<Integer> range(int from, int to) {
+        Set<Integer> positions = new TreeSet<>();
+        for (int i = from; i <= to; i++) {
+            positions.add(i);
+        }
+        return positions;
+    }
+
+    @Test
+    public void preparesAheadAndBehind() throws Exception {
+        List<Flashcard> deck = deck(100);
+        CardPrefetcher prefetcher = new CardPrefetcher();
+        Set<Integer> picked = new TreeSet<>();
+        prefetcher.moved(10, deck.size(), i -> {
+            picked.add(i);
+            return deck.get(i);
+        });
+        prefetcher.awaitPrepared();
+
+        Assertions.assertFalse(picked.contains(10));
+        Assertions.assertEquals(range(9, 10 + CardPrefetcher.AHEAD), withCurrent(picked, 10));
+        for (int i : picked) {
+            Assertions.assertTrue(CardPrefetcher.isCached(deck.get(i)));
+        }
+        Assertions.assertFalse(CardPrefetcher.isCached(deck.get(10 + CardPrefetcher.AHEAD + 1)));
+    }
+
+    @Test
+    public void followsDirection() throws Exception {
+        List<Flashcard> deck = deck(100);
+        CardPrefetcher prefetcher = new CardPrefetcher();
+        prefetcher.moved(50, deck.size(), deck::get);
+        Set<Integer> picked = new TreeSet<>();
+        prefetcher.moved(49, deck.size(), i -> {
+            picked.add(i);
+            return deck.get(i);
+        });
+        prefetcher.awaitPrepared();
+        Assertions.assertEquals(range(49 - CardPrefetcher.AHEAD, 50), withCurrent(picked, 49));
+
+        prefetcher.cancel();
+        picked.clear();
+        prefetcher.moved(20, deck.size(), i -> {
+            picked.add(i);
+            return deck.get(i);
+        });
+        Assertions.assertEquals(range(19, 20 + CardPrefetcher.AHEAD), withCurrent(picked, 20));
+    }
+
+    @Test
+    public void staysInsideTheDeck() throws Exception {
+        List<Flashcard> deck = deck(100);
+        CardPrefetcher prefetcher = new CardPrefetcher();
+        Set<Integer> picked = new TreeSet<>();
+        prefetcher.moved(98, deck.size(), i -> {
+            picked.add(i);
+            return deck.get(i);
+        });
+        prefetcher.awaitPrepared();
+        Assertions.assertEquals(Set.of(97, 99), picked);
+
+        CardPrefetcher single = new CardPrefetcher();
+        single.moved(0, 1, i -> Assertions.fail("no other flashcard"));
+    }
+
+    @Test
+    public void renderedMatchesCard() {
+        Flashcard card = new Flashcard("Question", "Answer", 7, Color.BLACK);
+        CardPrefetcher.Rendered rendered = CardPrefetcher.rendered(card);
+        Assertions.assertSame(rendered, CardPrefetcher.rendered(card));
+        Assertions.assertTrue(rendered.getText(true).contains("Question"));
+        Assertions.assertTrue(rendered.getText(false).contains("Answer"));
+        Assertions.assertEquals(Color.WHITE, rendered.getForeground());
+    }
+
+    private static Set<Integer> withCurrent(Set<Integer> picked, int current) {
+        Set<Integer> positions = new TreeSet<>(picked);
+        positions.add(current);
+        return positions;
+    }
+}
@@ -0,0 +1,95 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DeckCompactorTest {
+
+    private Path file;
+
+    private Connection c;
+
+    @BeforeEach
+    public void open() throws Exception {
+        file = Files.createTempFile("compactor", ".db");
+        c = DBconnection.openConnection("jdbc:sqlite:" + file);
+        DBconnection.createTable(c);
+        List<Flashcard> cards = new ArrayList<>();
+        for (int number = 1; number <= 1500; number++) {
+            cards.add(new Flashcard("q" + number, "a" + number, number, Color.WHITE));
+        }
+        DBconnection.addFlashcards(c, cards);
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("UPDATE flashcards SET deleted = 1 WHERE number % 2 = 0");
+        }
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        c.close();
+        Files.deleteIfExists(file);
+    }
+
+    private long query(String q) throws Exception {
+        try (Statement s = c.createStatement(); ResultSet set = s.executeQuery(q)) {
+            set.next();
+            return set.getLong(1);
+        }
+    }
+
+    @Test
+    public void interruptedPurgeLeavesNumbersUnique() throws Exception {
+        int[] steps = {0};
+        DeckCompactor.compact(c, () -> steps[0]++ < 1);
+
+        Assertions.assertEquals(250, query("SELECT COUNT(*) FROM flashcards WHERE deleted = 1"));
+        Assertions.assertEquals(750, query("SELECT COUNT(*) FROM flashcards WHERE deleted = 0 AND number % 2 = 1"));
+        Assertions.assertEquals(query("SELECT COUNT(*) FROM flashcards"),
+                query("SELECT COUNT(DISTINCT number) FROM flashcards"));
+
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("UPDATE flashcards SET deleted = 0 WHERE deleted = 1");
+        }
+        Assertions.assertEquals(query("SELECT COUNT(*) FROM flashcards"),
+                query("SELECT COUNT(DISTINCT number) FROM flashcards"));
+    }
+
+    @Test
+    public void finishedPurgeRenumbers() throws Exception {
+        int[] steps = {0};
+        DeckCompactor.compact(c, () -> steps[0]++ < 1);
+        DeckCompactor.compact(c, () -> true);
+
+        Assertions.assertEquals(0, query("SELECT COUNT(*) FROM flashcards WHERE deleted = 1"));
+        Assertions.assertEquals(750, query("SELECT COUNT(*) FROM flashcards"));
+        Assertions.assertEquals(1, query("SELECT MIN(number) FROM flashcards"));
+        Assertions.assertEquals(750, query("SELECT MAX(number) FROM flashcards"));
+        Assertions.assertEquals(750, query("SELECT COUNT(DISTINCT number) FROM flashcards"));
+        Assertions.assertEquals(1, query("SELECT COUNT(*) FROM changelog WHERE op = '" + ChangeLog.RENUMBER + "'"));
+    }
+
+    @Test
+    public void renumberKeepsOrder() throws Exception {
+        DeckCompactor.compact(c, () -> true);
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT question, number FROM flashcards ORDER BY number")) {
+            int expected = 0;
+            while (set.next()) {
+                expected++;
+                Assertions.assertEquals(expected, set.getInt(2));
+                Assertions.assertEquals("q" + (2 * expected - 1), TextCodec.read(set, 1));
+            }
+            Assertions.assertEquals(750, expected);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DeckCursorTest {
+
+    private Path file;
+
+    private Connection c;
+
+    @BeforeEach
+    public void open() throws Exception {
+        file = Files.createTempFile("cursor", ".db");
+        c = DBconnection.openConnection("jdbc:sqlite:" + file);
+        DBconnection.createTable(c);
+        List<Flashcard> cards = new ArrayList<>();
+        for (int number = 3; number <= 300; number += 3) {
+            cards.add(new Flashcard("q" + number, "a" + number, number, new Color(number)));
+        }
+        DBconnection.addFlashcards(c, cards);
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("UPDATE flashcards SET deleted = 1 WHERE number % 15 = 0");
+        }
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        c.close();
+        Files.deleteIfExists(file);
+    }
+
+    private static List<Integer> expected() {
+        List<Integer> numbers = new ArrayList<>();
+        for (int number = 3; number <= 300; number += 3) {
+            if (number % 15 != 0) {
+                numbers.add(number);
+            }
+        }
+        return numbers;
+    }
+
+    private List<Flashcard> readPages(DeckCursor.Projection projection, int limit) throws Exception {
+        List<Flashcard> cards = new ArrayList<>();
+        List<Flashcard> page = DBconnection.readPage(c, projection, limit);
+        while (true) {
+            cards.addAll(page);
+            if (page.size() < limit) {
+                return cards;
+            }
+            Flashcard last = page.get(page.size() - 1);
+            page = DBconnection.readPage(c, projection, last.getNumber(), last.getUid(), limit);
+        }
+    }
+
+    private List<Integer> readPages(int limit) throws Exception {
+        List<Integer> numbers = new ArrayList<>();
+        for (Flashcard card : readPages(DeckCursor.Projection.FULL, limit)) {
+            numbers.add(card.getNumber());
+        }
+        return numbers;
+    }
+
+    @Test
+    public void pagesSkipNoRowsAndRepeatNone() throws Exception {
+        for (int limit : new int[] {1, 7, 80, 1000}) {
+            Assertions.assertEquals(expected(), readPages(limit), "page size " + limit);
+        }
+    }
+
+    @Test
+    public void cursorContinuesAfterItsLastNumber() throws Exception {
+        List<Integer> numbers = new ArrayList<>();
+        int after = Integer.MIN_VALUE;
+        String afterUid = "";
+        for (int part = 0; part < 3; part++) {
+            try (DeckCursor cursor = DBconnection.openCursor(c, DeckCursor.Projection.KEYS, after, afterUid, 4)) {
+                for (int i = 0; i < 30 && cursor.next(); i++) {
+                    numbers.add(cursor.getNumber());
+                }
+                after = cursor.getNumber();
+                afterUid = cursor.getUid();
+            }
+        }
+        try (DeckCursor cursor = DBconnection.openCursor(c, DeckCursor.Projection.KEYS, after, afterUid, 4)) {
+            while (cursor.next()) {
+                numbers.add(cursor.getNumber());
+            }
+        }
+        Assertions.assertEquals(expected(), numbers);
+    }
+
+    @Test
+    public void changesBetweenPagesAreSeenOnce() throws Exception {
+        List<Flashcard> first = DBconnection.readPage(c, DeckCursor.Projection.FULL, 20);
+        Flashcard last = first.get(first.size() - 1);
+        int after = last.getNumber();
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("UPDATE flashcards SET deleted = 1 WHERE number = " + (after + 3));
+        }
+        DBconnection.addFlashcards(c, List.of(new Flashcard("new", "new", after + 1, Color.WHITE),
+                new Flashcard("old", "old", 1, Color.WHITE)));
+
+        List<Integer> numbers = new ArrayList<>();
+        for (Flashcard card : first) {
+            numbers.add(card.getNumber());
+        }
+        for (Flashcard card : DBconnection.readPage(c, DeckCursor.Projection.FULL, after, last.getUid(), 1000)) {
+            numbers.add(card.getNumber());
+        }
+        List<Integer> expected = expected();
+        expected.add(expected.indexOf(after) + 1, after + 1);
+        expected.remove(Integer.valueOf(after + 3));
+        Assertions.assertEquals(expected, numbers);
+    }
+
+    @Test
+    public void flashcardsSharingANumberAreReadOnce() throws Exception {
+        List<Flashcard> shared = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            shared.add(new Flashcard("s" + i, "s" + i, 150, Color.WHITE));
+        }
+        DBconnection.addFlashcards(c, shared);
+        List<String> expected = new ArrayList<>();
+        for (Flashcard card : DBconnection.readDeck(c)) {
+            expected.add(card.getUid());
+        }
+        Assertions.assertEquals(expected().size() + shared.size(), expected.size());
+        Assertions.assertEquals(expected.size(), expected.stream().distinct().count());
+        for (int limit : new int[] {1, 3, 7, 1000}) {
+            List<String> uids = new ArrayList<>();
+            for (Flashcard card : readPages(DeckCursor.Projection.CONTENT, limit)) {
+                uids.add(card.getUid());
+            }
+            Assertions.assertEquals(expected, uids, "page size " + limit);
+        }
+    }
+
+    @Test
+    public void projectionReadsOnlyItsColumns() throws Exception {
+        try (DeckCursor cursor = DBconnection.openCursor(c, DeckCursor.Projection.KEYS, 10)) {
+            Assertions.assertTrue(cursor.next());
+            Flashcard card = cursor.get();
+            Assertions.assertEquals(3, card.getNumber());
+            Assertions.assertNotNull(card.getUid());
+            Assertions.assertNull(card.getColor());
+            Assertions.assertNull(cursor.getQuestion());
+        }
+        try (DeckCursor cursor = DBconnection.openCursor(c, DeckCursor.Projection.CONTENT, 10)) {
+            Assertions.assertTrue(cursor.next());
+            Assertions.assertEquals("q3", cursor.getQuestion());
+            Assertions.assertEquals("a3", cursor.getAnswer());
+            Assertions.assertEquals(new Color(3), cursor.getColor());
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DeckExporterTest {
+
+    private Path first;
+
+    private Path second;
+
+    private Path export;
+
+    private Connection a;
+
+    private Connection b;
+
+    @BeforeEach
+    public void open() throws Exception {
+        first = Files.createTempFile("export-a", ".db");
+        second = Files.createTempFile("export-b", ".db");
+        export = Files.createTempFile("export", ".tmp");
+        a = DBconnection.openConnection("jdbc:sqlite:" + first);
+        b = DBconnection.openConnection("jdbc:sqlite:" + second);
+        DBconnection.createTable(a);
+        DBconnection.createTable(b);
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        a.close();
+        b.close();
+        Files.deleteIfExists(first);
+        Files.deleteIfExists(second);
+        Files.deleteIfExists(export);
+    }
+
+    private static void add(Connection c, String... texts) throws Exception {
+        List<Flashcard> cards = new ArrayList<>();
+        for (int i = 0; i < texts.length; i += 2) {
+            cards.add(new Flashcard(texts[i], texts[i + 1], 2 * i + 5, new Color(i * 4099)));
+        }
+        DBconnection.addFlashcards(c, cards);
+    }
+
+    private void reimport(DeckExporter.Format format, boolean gzip) throws Exception {
+        InputStream in = Files.newInputStream(export);
+        if (gzip) {
+            in = new GZIPInputStream(in);
+        }
+        List<Flashcard> cards = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int number = DBconnection.nextNumber(b);
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                cards.add(DeckExporter.readCard(line, format, number++));
+            }
+        }
+        DBconnection.addFlashcards(b, cards);
+    }
+
+    private static void clear(Connection c) throws Exception {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("DELETE FROM flashcards");
+        }
+    }
+
+    private static List<String> deck(Connection c, boolean colors) throws Exception {
+        List<String> cards = new ArrayList<>();
+        for (Flashcard card : DBconnection.readDeck(c)) {
+            cards.add(card.getQuestion() + "|" + card.getAnswer() + (colors ? "|" + card.getColor() : ""));
+        }
+        return cards;
+    }
+
+    @Test
+    public void csvRoundTrips() throws Exception {
+        add(a, "What is the capital of Czech Republic?", "Prague", "Ünïcödé", "ответ", "x", "y");
+        for (boolean gzip : new boolean[] {false, true}) {
+            Assertions.assertEquals(3, DeckExporter.export(a, export, DeckExporter.Format.CSV, gzip));
+            reimport(DeckExporter.Format.CSV, gzip);
+            Assertions.assertEquals(deck(a, false), deck(b, false));
+            clear(b);
+        }
+    }
+
+    @Test
+    public void jsonRoundTripsEveryCard() throws Exception {
+        add(a, "a;b", "c\nd", " padded ", "\"quoted\" \\ back\tslash", "\u0001control", "č");
+        for (boolean gzip : new boolean[] {false, true}) {
+            Assertions.assertEquals(3, DeckExporter.export(a, export, DeckExporter.Format.JSON, gzip));
+            reimport(DeckExporter.Format.JSON, gzip);
+            Assertions.assertEquals(deck(a, true), deck(b, true));
+            clear(b);
+        }
+    }
+
+    @Test
+    public void csvExportFailsInsteadOfDroppingCards() throws Exception {
+        add(a, "fine", "card", "a;b", "c");
+        IOException e = Assertions.assertThrows(IOException.class,
+                () -> DeckExporter.export(a, export, DeckExporter.Format.CSV, false));
+        Assertions.assertTrue(e.getMessage().startsWith("Flashcard 9 "), e.getMessage());
+        Assertions.assertFalse(Files.exists(export));
+    }
+
+    @Test
+    public void formatFollowsFileName() {
+        Assertions.assertEquals(DeckExporter.Format.JSON, DeckExporter.formatOf("deck.jsonl.gz"));
+        Assertions.assertEquals(DeckExporter.Format.JSON, DeckExporter.formatOf("deck.json"));
+        Assertions.assertEquals(DeckExporter.Format.CSV, DeckExporter.formatOf("deck.txt.gz"));
+    }
+}
@@ -0,0 +1,174 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic decks for benchmarks and load tests.
+ *
+ * A deck is determined by its seed and settings, so the same arguments always
+ * produce the same flashcards. The length of a text in characters is drawn
+ * from a log-normal distribution around the median, capped at the maximum,
+ * which gives mostly short texts and a long tail of long ones, as in real decks.
+ * A share of the flashcards repeats an earlier flashcard, and a share of the
+ * words is taken from non-Latin scripts, combining characters and emoji.
+ * Texts never contain ';' or line breaks, so the deck can be written in the
+ * "Question;Answer" import format.
+ *
+ * Run with the output file and options, for example:
+ * DeckGenerator deck.txt --size 100000 --seed 7 --median 40 --max 2000 --duplicates 0.05 --unicode 0.2
+ */
+public class DeckGenerator {
+
+    /** Words of Latin text. */
+    private static final String[] LATIN = {
+        "the", "capital", "of", "what", "is", "river", "number", "year", "which", "element",
+        "author", "wrote", "largest", "country", "formula", "define", "term", "protein", "cell",
+        "theorem", "proof", "equation", "history", "battle", "language", "verb", "noun", "city"
+    };
+
+    /** Words of other scripts: Czech, Cyrillic, Greek, Arabic, Hebrew, CJK, Devanagari. */
+    private static final String[] UNICODE = {
+        "příliš", "žluťoučký", "kůň", "úpěl", "ďábelské", "ódy", "столица", "река", "год",
+        "λόγος", "θεώρημα", "عاصمة", "نهر", "עיר", "שפה", "首都", "河流", "定理", "東京", "한국어",
+        "नदी", "राजधानी", "école", "ñ", "😀", "🇨🇿",
+        "👨‍👩‍👧", "100\u00A0km"
+    };
+
+    /** Number of flashcards. */
+    private int size = 10_000;
+
+    /** Seed of the deck. */
+    private long seed = 1;
+
+    /** Median length of a question in characters. */
+    private int median = 40;
+
+    /** Maximum length of a text in characters. */
+    private int max = 2000;
+
+    /** Share of flashcards repeating an earlier one. */
+    private double duplicates = 0.05;
+
+    /** Share of words taken from other scripts. */
+    private double unicode = 0.2;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: DeckGenerator file [--size n] [--seed n] [--median n] [--max n] "
+                    + "[--duplicates share] [--unicode share]");
+            return;
+        }
+        DeckGenerator generator = new DeckGenerator().configure(args, 1);
+        List<Flashcard> deck = generator.generate();
+        try (BufferedWriter out = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            for (Flashcard flashcard : deck) {
+                out.write(flashcard.getQuestion() + ";" + flashcard.getAnswer());
+                out.newLine();
+            }
+        }
+        System.out.println("Wrote " + deck.size() + " flashcards to " + args[0]);
+    }
+
+    /**
+     * Reads the settings from "--name value" arguments.
+     *
+     * @param args the arguments
+     * @param from the index of the first option
+     * @return this generator
+     */
+    public DeckGenerator configure(String[] args, int from) {
+        for (int i = from; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--size" -> size = Integer.parseInt(value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--median" -> median = Integer.parseInt(value);
+                case "--max" -> max = Integer.parseInt(value);
+                case "--duplicates" -> duplicates = Double.parseDouble(value);
+                case "--unicode" -> unicode = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Sets the number of flashcards.
+     *
+     * @param size the number of flashcards
+     * @return this generator
+     */
+    public DeckGenerator size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Sets the seed of the deck.
+     *
+     * @param seed the seed
+     * @return this generator
+     */
+    public DeckGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Generates the deck. The flashcards are numbered from 1.
+     *
+     * @return the flashcards
+     */
+    public List<Flashcard> generate() {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Flashcard> deck = new ArrayList<>(size);
+        for (int number = 1; number <= size; number++) {
+            String question;
+            String answer;
+            if (!deck.isEmpty() && random.nextDouble() < duplicates) {
+                Flashcard original = deck.get(random.nextInt(deck.size()));
+                question = original.getQuestion();
+                answer = original.getAnswer();
+            } else {
+                question = text(random, median);
+                answer = text(random, Math.max(1, median / 3));
+            }
+            deck.add(new Flashcard(question, answer, number, new Color(random.nextInt(1 << 24))));
+        }
+        return deck;
+    }
+
+    /**
+     * Generates a text with a log-normal length around the given median.
+     */
+    private String text(SplittableRandom random, int median) {
+        int length = (int) Math.min(max, Math.max(1, Math.round(median * Math.exp(gaussian(random)))));
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            String[] words = random.nextDouble() < unicode ? UNICODE : LATIN;
+            text.append(words[random.nextInt(words.length)]);
+            if (random.nextInt(8) == 0) {
+                text.append(random.nextInt(10_000));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Draws a normally distributed value with mean 0 and deviation 1.
+     */
+    private static double gaussian(SplittableRandom random) {
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+}
@@ -0,0 +1,204 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DeckSyncTest {
+
+    private Path first;
+
+    private Path second;
+
+    private Connection a;
+
+    private Connection b;
+
+    @BeforeEach
+    public void open() throws Exception {
+        first = Files.createTempFile("sync-a", ".db");
+        second = Files.createTempFile("sync-b", ".db");
+        a = DBconnection.openConnection("jdbc:sqlite:" + first);
+        b = DBconnection.openConnection("jdbc:sqlite:" + second);
+        DBconnection.createTable(a);
+        DBconnection.createTable(b);
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        a.close();
+        b.close();
+        Files.deleteIfExists(first);
+        Files.deleteIfExists(second);
+    }
+
+    private static void add(Connection c, String... questions) throws Exception {
+        int number = DBconnection.nextNumber(c);
+        List<Flashcard> cards = new ArrayList<>();
+        for (String question : questions) {
+            cards.add(new Flashcard(question, "answer to " + question, number++, Color.WHITE));
+        }
+        DBconnection.addFlashcards(c, cards);
+    }
+
+    private static void change(Connection c, String question, String set) throws Exception {
+        try (PreparedStatement s = c.prepareStatement("UPDATE flashcards SET " + set + " WHERE question = ?")) {
+            s.setString(1, question);
+            Assertions.assertEquals(1, s.executeUpdate());
+        }
+        ChangeLog.recordCards(c, "question = ?", question);
+    }
+
+    private static void clear(Connection c) throws Exception {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("UPDATE flashcards SET deleted = 1 WHERE deleted = 0");
+        }
+        ChangeLog.record(c, ChangeLog.CLEAR);
+    }
+
+    private static List<String> live(Connection c) throws Exception {
+        List<String> cards = new ArrayList<>();
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT uid, question, answer, number, color FROM flashcards "
+                     + "WHERE deleted = 0 ORDER BY number, uid")) {
+            while (set.next()) {
+                cards.add(set.getString(1) + " " + TextCodec.read(set, 2) + " " + TextCodec.read(set, 3)
+                        + " " + set.getInt(4) + " " + set.getInt(5));
+            }
+        }
+        return cards;
+    }
+
+    private static List<String> questions(Connection c) throws Exception {
+        List<String> questions = new ArrayList<>();
+        for (String card : live(c)) {
+            questions.add(card.split(" ")[1]);
+        }
+        return questions;
+    }
+
+    @Test
+    public void convergesInBothDirections() throws Exception {
+        add(a, "a1", "a2", "a3");
+        add(b, "b1", "b2");
+        Assertions.assertEquals(5, DeckSync.sync(a, b));
+
+        Assertions.assertEquals(live(a), live(b));
+        Assertions.assertEquals(5, live(a).size());
+        Assertions.assertEquals(0, DeckSync.sync(a, b));
+        Assertions.assertEquals(0, DeckSync.sync(b, a));
+    }
+
+    @Test
+    public void editsAndRemovalsTravel() throws Exception {
+        add(a, "q1", "q2", "q3");
+        DeckSync.sync(a, b);
+        change(b, "q1", "answer = 'edited'");
+        change(a, "q2", "deleted = 1");
+        DeckSync.sync(a, b);
+
+        Assertions.assertEquals(live(a), live(b));
+        Assertions.assertEquals(List.of("q1", "q3"), questions(a));
+        Assertions.assertTrue(live(a).get(0).contains(" edited "));
+    }
+
+    @Test
+    public void concurrentEditsConverge() throws Exception {
+        add(a, "q1");
+        DeckSync.sync(a, b);
+        change(a, "q1", "answer = 'from a'");
+        change(b, "q1", "answer = 'from b'");
+        DeckSync.sync(a, b);
+        Assertions.assertEquals(live(a), live(b));
+
+        change(b, "q1", "color = 5");
+        DeckSync.sync(b, a);
+        Assertions.assertEquals(live(a), live(b));
+        Assertions.assertTrue(live(a).get(0).endsWith(" 5"));
+    }
+
+    @Test
+    public void clearConvergesInBothDirections() throws Exception {
+        add(a, "a1", "a2");
+        add(b, "b1");
+        DeckSync.sync(a, b);
+        clear(b);
+        DeckSync.sync(a, b);
+        Assertions.assertEquals(List.of(), live(a));
+        Assertions.assertEquals(List.of(), live(b));
+
+        add(a, "after");
+        DeckSync.sync(a, b);
+        Assertions.assertEquals(List.of("after"), questions(b));
+        Assertions.assertEquals(live(a), live(b));
+
+        clear(a);
+        add(b, "late");
+        DeckSync.sync(b, a);
+        Assertions.assertEquals(live(a), live(b));
+    }
+
+    private static List<Integer> numbers(Connection c) throws Exception {
+        List<Integer> numbers = new ArrayList<>();
+        for (String card : live(c)) {
+            String[] fields = card.split(" ");
+            numbers.add(Integer.parseInt(fields[fields.length - 2]));
+        }
+        return numbers;
+    }
+
+    private static long changes(Connection c) throws Exception {
+        try (Statement s = c.createStatement(); ResultSet set = s.executeQuery("SELECT COUNT(*) FROM changelog")) {
+            set.next();
+            return set.getLong(1);
+        }
+    }
+
+    @Test
+    public void applyingChangesDoesNotRenumber() throws Exception {
+        add(a, "a1", "a2");
+        add(b, "b1");
+        DeckSync.sync(a, b);
+        Assertions.assertEquals(live(a), live(b));
+        Assertions.assertEquals(List.of(1, 1, 2), numbers(a));
+
+        long logged = changes(b);
+        Assertions.assertEquals(0, DeckSync.sync(a, b));
+        Assertions.assertEquals(logged, changes(b));
+        Assertions.assertEquals(List.of(1, 1, 2), numbers(b));
+    }
+
+    @Test
+    public void renumberingTravelsAsChanges() throws Exception {
+        add(a, "a1", "a2");
+        add(b, "b1");
+        DeckSync.sync(a, b);
+        DeckCompactor.compact(a, () -> true);
+        Assertions.assertEquals(List.of(1, 2, 3), numbers(a));
+        DeckSync.sync(a, b);
+        Assertions.assertEquals(live(a), live(b));
+
+        change(b, "a1", "deleted = 1");
+        DeckSync.sync(a, b);
+        DeckCompactor.compact(a, () -> true);
+        DeckSync.sync(a, b);
+        Assertions.assertEquals(List.of(1, 2), numbers(a));
+        Assertions.assertEquals(live(a), live(b));
+
+        long logged = changes(b);
+        DeckCompactor.compact(b, () -> true);
+        Assertions.assertEquals(logged, changes(b));
+        Assertions.assertEquals(live(a), live(b));
+        Assertions.assertEquals(0, DeckSync.sync(a, b));
+    }
+}
@@ -0,0 +1,361 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Frame;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.Window;
+import java.awt.event.WindowEvent;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.AbstractButton;
+import javax.swing.JDialog;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs a scripted sequence of user actions against the application window
+ * and fails when their latency or the heap regresses against a baseline.
+ *
+ * The driver creates MainApp on a generated deck (see DeckGenerator) and clicks
+ * its buttons on the event dispatch thread. Dialogs opened by the actions are
+ * answered like a user would: new flashcards are typed in and saved, removals
+ * are confirmed, quiz answers are typed in and checked (alternately right and
+ * wrong) and message dialogs are closed. The latency of an action is the time
+ * from the click until all its dialogs are closed and the event queue has
+ * processed the resulting events. The used heap is sampled during the run and
+ * the retained heap is measured after a garbage collection at the end.
+ *
+ * A script has one action per line with an optional repeat count, for example
+ * "next 500"; lines starting with '#' are comments. Actions: next, prev, flip,
+ * add, delete, quiz, check, return (leaves the quiz).
+ *
+ * The first run writes the baseline file; later runs compare against it and
+ * exit with status 1 if the 95th percentile latency of an action or the retained
+ * heap grows over the tolerance. The window needs a display, so on a server the
+ * driver is run under a virtual one, for example with xvfb-run. It creates
+ * flashcards.db in the working directory, so it refuses to run where one exists.
+ *
+ * Run with options, for example:
+ * LoadDriver --size 20000 --seed 1 --script load.txt --baseline load-baseline.properties --tolerance 1.5
+ */
+public class LoadDriver {
+
+    /** The script run when no script file is given. */
+    private static final List<String> DEFAULT_SCRIPT = List.of(
+            "next 500", "flip 500", "prev 500", "add 50", "delete 50",
+            "quiz", "next 200", "check 100", "prev 100", "return");
+
+    /** Button clicked by each action. */
+    private static final Map<String, String> BUTTONS = Map.of(
+            "next", "Next", "prev", "Previous", "flip", "Flip", "add", "Add Question",
+            "delete", "Delete Question", "quiz", "Quiz Mode", "check", "Check Answer", "return", "Return");
+
+    /** Latency allowed over the baseline regardless of the tolerance, in microseconds. */
+    private static final long SLACK_MICROS = 2000;
+
+    /** Retained heap allowed over the baseline regardless of the tolerance, in bytes. */
+    private static final long SLACK_HEAP = 16L << 20;
+
+    /** Number of actions between two heap samples. */
+    private static final int HEAP_SAMPLE_EVERY = 100;
+
+    /** How long an action may take before the run is aborted, in milliseconds. */
+    private static final long ACTION_TIMEOUT_MILLIS = 30_000;
+
+    /** Files the application creates in the working directory. */
+    private static final Path[] CREATED = {Path.of("flashcards.db"), QuizJournal.DEFAULT_PATH};
+
+    /** Dialogs opened and not yet answered. */
+    private static final AtomicInteger pendingDialogs = new AtomicInteger();
+
+    /** Number of answered quiz questions, deciding whether the next answer is right. */
+    private static int checked;
+
+    /** Number of flashcards added by the script. */
+    private static int added;
+
+    public static void main(String[] args) throws Exception {
+        int size = 20_000;
+        long seed = 1;
+        Path script = null;
+        Path baseline = Path.of("load-baseline.properties");
+        double tolerance = 1.5;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--size" -> size = Integer.parseInt(args[i + 1]);
+                case "--seed" -> seed = Long.parseLong(args[i + 1]);
+                case "--script" -> script = Path.of(args[i + 1]);
+                case "--baseline" -> baseline = Path.of(args[i + 1]);
+                case "--tolerance" -> tolerance = Double.parseDouble(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("The load driver needs a display; run it under a virtual one, e.g. xvfb-run");
+            System.exit(2);
+        }
+        for (Path file : CREATED) {
+            if (Files.exists(file)) {
+                System.out.println(file + " exists; run the load driver in an empty directory");
+                System.exit(2);
+            }
+        }
+        List<String> lines = script != null ? Files.readAllLines(script, StandardCharsets.UTF_8) : DEFAULT_SCRIPT;
+
+        int status;
+        try {
+            Toolkit.getDefaultToolkit().addAWTEventListener(e -> {
+                if (e.getID() == WindowEvent.WINDOW_OPENED && e.getSource() instanceof JDialog) {
+                    pendingDialogs.incrementAndGet();
+                    SwingUtilities.invokeLater(() -> answer((JDialog) e.getSource()));
+                }
+            }, AWTEvent.WINDOW_EVENT_MASK);
+            MainApp[] app = new MainApp[1];
+            SwingUtilities.invokeAndWait(() -> app[0] = new MainApp());
+            MainApp.openDatabase().join();
+            long start = System.nanoTime();
+            List<Flashcard> deck = new DeckGenerator().size(size).seed(seed).generate();
+            for (int from = 0; from < deck.size(); from += 10_000) {
+                DBconnection.addFlashcards(deck.subList(from, Math.min(from + 10_000, deck.size())));
+            }
+            CompletableFuture<Void> loaded = new CompletableFuture<>();
+            SwingUtilities.invokeAndWait(() -> {
+                for (Frame frame : Frame.getFrames()) {
+                    if (frame.getTitle().equals("Flashcards App")) {
+                        frame.setVisible(true);
+                    }
+                }
+                app[0].loadDeck().thenRun(() -> loaded.complete(null));
+            });
+            loaded.join();
+            System.out.printf("Deck of %d flashcards loaded in %d ms%n", size, (System.nanoTime() - start) / 1_000_000);
+            status = run(lines, baseline, tolerance);
+        } finally {
+            for (Path file : CREATED) {
+                Files.deleteIfExists(file);
+            }
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Runs the script, reports the measurements and compares them with the baseline.
+     *
+     * @return the exit status, 1 if something regressed
+     */
+    private static int run(List<String> lines, Path baseline, double tolerance) throws Exception {
+        Map<String, List<Long>> latencies = new LinkedHashMap<>();
+        List<Long> heap = new ArrayList<>();
+        Runtime runtime = Runtime.getRuntime();
+        int actions = 0;
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            String button = BUTTONS.get(parts[0]);
+            if (button == null) {
+                throw new IllegalArgumentException("Unknown action " + parts[0]);
+            }
+            int repeat = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            List<Long> times = latencies.computeIfAbsent(parts[0], k -> new ArrayList<>());
+            for (int i = 0; i < repeat; i++) {
+                times.add(click(button));
+                if (++actions % HEAP_SAMPLE_EVERY == 0) {
+                    heap.add(runtime.totalMemory() - runtime.freeMemory());
+                }
+            }
+        }
+        System.gc();
+        long retained = runtime.totalMemory() - runtime.freeMemory();
+
+        Properties measured = new Properties();
+        System.out.println("action      count    p50 us      p95 us      max us");
+        for (Map.Entry<String, List<Long>> entry : latencies.entrySet()) {
+            long[] times = entry.getValue().stream().mapToLong(Long::longValue).sorted().toArray();
+            long p95 = percentile(times, 0.95);
+            System.out.printf("%-11s %-8d %-11d %-11d %d%n", entry.getKey(), times.length,
+                    percentile(times, 0.5), p95, times[times.length - 1]);
+            measured.setProperty(entry.getKey() + ".p95", Long.toString(p95));
+        }
+        StringBuilder samples = new StringBuilder();
+        for (long used : heap) {
+            samples.append(' ').append(used >> 20);
+        }
+        System.out.println("Heap used every " + HEAP_SAMPLE_EVERY + " actions (MB):" + samples);
+        System.out.println("Heap retained (MB): " + (retained >> 20));
+        measured.setProperty("heap.retained", Long.toString(retained));
+
+        if (!Files.exists(baseline)) {
+            try (Writer out = Files.newBufferedWriter(baseline, StandardCharsets.UTF_8)) {
+                measured.store(out, "LoadDriver baseline");
+            }
+            System.out.println("Baseline written to " + baseline);
+            return 0;
+        }
+        Properties expected = new Properties();
+        try (Reader in = Files.newBufferedReader(baseline, StandardCharsets.UTF_8)) {
+            expected.load(in);
+        }
+        List<String> regressions = new ArrayList<>();
+        for (String key : measured.stringPropertyNames()) {
+            String base = expected.getProperty(key);
+            if (base == null) {
+                continue;
+            }
+            long value = Long.parseLong(measured.getProperty(key));
+            long limit = (long) (Long.parseLong(base) * tolerance)
+                    + (key.equals("heap.retained") ? SLACK_HEAP : SLACK_MICROS);
+            if (value > limit) {
+                regressions.add(key + ": " + value + " > " + limit + " (baseline " + base + ")");
+            }
+        }
+        if (regressions.isEmpty()) {
+            System.out.println("No regressions against " + baseline);
+            return 0;
+        }
+        System.out.println("Regressions against " + baseline + ":");
+        regressions.forEach(r -> System.out.println("  " + r));
+        return 1;
+    }
+
+    /**
+     * Clicks the visible button with the given text and waits until the action
+     * and its dialogs are finished.
+     *
+     * @return the latency in microseconds
+     */
+    private static long click(String text) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + ACTION_TIMEOUT_MILLIS * 1_000_000;
+        SwingUtilities.invokeAndWait(() -> {
+            AbstractButton button = findButton(text);
+            if (button == null) {
+                throw new IllegalStateException("No visible button \"" + text + "\"");
+            }
+            button.doClick(0);
+        });
+        boolean[] busy = {true};
+        while (busy[0]) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("\"" + text + "\" did not finish in " + ACTION_TIMEOUT_MILLIS + " ms");
+            }
+            SwingUtilities.invokeAndWait(() -> busy[0] = pendingDialogs.get() > 0 || dialogShown());
+        }
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    /**
+     * Answers a dialog opened by an action and closes it.
+     */
+    private static void answer(JDialog dialog) {
+        try {
+            switch (dialog.getTitle()) {
+                case "Add Flashcard" -> {
+                    List<JTextField> fields = fields(dialog);
+                    added++;
+                    fields.get(0).setText("Load question " + added);
+                    fields.get(1).setText("Load answer " + added);
+                    buttonIn(dialog, "Save").doClick(0);
+                }
+                case "Confirm removal" -> buttonIn(dialog, "Yes").doClick(0);
+                case "Check Answer" -> {
+                    Flashcard card = MainApp.flashcards.get(MainApp.currentCardIndex);
+                    fields(dialog).get(0).setText(checked++ % 2 == 0 ? card.getAnswer() : "wrong");
+                    buttonIn(dialog, "Check").doClick(0);
+                    close(dialog);
+                }
+                default -> close(dialog);
+            }
+        } finally {
+            pendingDialogs.decrementAndGet();
+        }
+    }
+
+    /**
+     * Closes a dialog the way the window close button does.
+     */
+    private static void close(JDialog dialog) {
+        if (dialog.isDisplayable()) {
+            dialog.dispatchEvent(new WindowEvent(dialog, WindowEvent.WINDOW_CLOSING));
+            dialog.dispose();
+        }
+    }
+
+    /**
+     * Returns whether some dialog is shown.
+     */
+    private static boolean dialogShown() {
+        return Arrays.stream(Window.getWindows()).anyMatch(w -> w instanceof JDialog && w.isVisible());
+    }
+
+    /**
+     * Finds a button with the given text in the visible windows.
+     */
+    private static AbstractButton findButton(String text) {
+        for (Window window : Window.getWindows()) {
+            if (window.isVisible()) {
+                AbstractButton button = buttonIn(window, text);
+                if (button != null) {
+                    return button;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a button with the given text in a container.
+     */
+    private static AbstractButton buttonIn(Container container, String text) {
+        for (Component component : container.getComponents()) {
+            if (component instanceof AbstractButton && text.equals(((AbstractButton) component).getText())) {
+                return (AbstractButton) component;
+            }
+            if (component instanceof Container) {
+                AbstractButton button = buttonIn((Container) component, text);
+                if (button != null) {
+                    return button;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the text fields of a container in layout order.
+     */
+    private static List<JTextField> fields(Container container) {
+        List<JTextField> fields = new ArrayList<>();
+        for (Component component : container.getComponents()) {
+            if (component instanceof JTextField) {
+                fields.add((JTextField) component);
+            } else if (component instanceof Container) {
+                fields.addAll(fields((Container) component));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the percentile of sorted values.
+     */
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,76 @@
+package cz.cuni.mff.riazhsks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Measures the migration time against the size of the flashcards table.
+ *
+ * For every size a database with the schema of the first release is created
+ * and filled, then migrated to the current schema. The time of the schema steps
+ * is what startup waits for; the backfills run in the background in the application.
+ *
+ * Run with the sizes as arguments, for example: MigrationBenchmark 10000 100000 1000000
+ */
+public class MigrationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] {10_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.println("rows        schema ms   backfill ms");
+        for (int size : sizes) {
+            Path file = Files.createTempFile("flashcards-migration", ".db");
+            try (Connection c = DBconnection.openConnection("jdbc:sqlite:" + file)) {
+                createLegacyTable(c, size);
+                long start = System.nanoTime();
+                Migrations.migrate(c);
+                long schema = System.nanoTime();
+                Migrations.runBackfills(c);
+                long backfill = System.nanoTime();
+                System.out.printf("%-11d %-11d %d%n", size,
+                        (schema - start) / 1_000_000, (backfill - schema) / 1_000_000);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Creates the flashcards table of the first release with the given number of rows.
+     */
+    private static void createLegacyTable(Connection c, int size) throws SQLException {
+        try (Statement s = c.createStatement()) {
+            s.executeUpdate("CREATE TABLE flashcards (" +
+                    "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    "question TEXT NOT NULL, " +
+                    "answer TEXT NOT NULL, " +
+                    "number INTEGER NOT NULL, " +
+                    "color INTEGER NOT NULL)");
+        }
+        c.setAutoCommit(false);
+        try (PreparedStatement s = c.prepareStatement(
+                "INSERT INTO flashcards (question, answer, number, color) VALUES (?, ?, ?, ?)")) {
+            for (int i = 1; i <= size; i++) {
+                s.setString(1, "Question " + i);
+                s.setString(2, "Answer " + i);
+                s.setInt(3, i);
+                s.setInt(4, i * 7919);
+                s.addBatch();
+                if (i % 10_000 == 0) {
+                    s.executeBatch();
+                }
+            }
+            s.executeBatch();
+            c.commit();
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package cz.cuni.mff.riazhsks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MigrationsTest {
+
+    private static final int ROWS = 9000;
+
+    private Path file;
+
+    @BeforeEach
+    public void createLegacyDatabase() throws Exception {
+        file = Files.createTempFile("legacy", ".db");
+        try (Connection c = open()) {
+            try (Statement s = c.createStatement()) {
+                s.executeUpdate("CREATE TABLE flashcards (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + "question TEXT NOT NULL, answer TEXT NOT NULL, number INTEGER NOT NULL, "
+                        + "color INTEGER NOT NULL)");
+            }
+            c.setAutoCommit(false);
+            try (PreparedStatement s = c.prepareStatement(
+                    "INSERT INTO flashcards (question, answer, number, color) VALUES (?, ?, ?, 0)")) {
+                for (int number = 1; number <= ROWS; number++) {
+                    s.setString(1, "q" + number);
+                    s.setString(2, "a" + number);
+                    s.setInt(3, number);
+                    s.addBatch();
+                }
+                s.executeBatch();
+            }
+            c.commit();
+            c.setAutoCommit(true);
+        }
+    }
+
+    @AfterEach
+    public void delete() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private Connection open() throws Exception {
+        return DBconnection.openConnection("jdbc:sqlite:" + file);
+    }
+
+    private static long query(Connection c, String q) throws Exception {
+        try (Statement s = c.createStatement(); ResultSet set = s.executeQuery(q)) {
+            set.next();
+            return set.getLong(1);
+        }
+    }
+
+    private static Map<Long, String> uids(Connection c) throws Exception {
+        Map<Long, String> uids = new HashMap<>();
+        try (Statement s = c.createStatement();
+             ResultSet set = s.executeQuery("SELECT id, uid FROM flashcards WHERE uid IS NOT NULL")) {
+            while (set.next()) {
+                uids.put(set.getLong(1), set.getString(2));
+            }
+        }
+        return uids;
+    }
+
+    @Test
+    public void backfillResumesAfterInterruption() throws Exception {
+        Map<Long, String> filled;
+        try (Connection c = open()) {
+            Assertions.assertEquals(Migrations.latestVersion(), Migrations.migrate(c));
+            Assertions.assertTrue(Migrations.hasPendingBackfills(c));
+            int[] chunks = {0};
+            Assertions.assertFalse(Migrations.runBackfills(c, () -> chunks[0]++ < 2));
+            filled = uids(c);
+            Assertions.assertTrue(filled.size() > 0 && filled.size() < ROWS);
+            Assertions.assertEquals(filled.size(), query(c, "SELECT MAX(position) FROM migration_backfill"));
+        }
+
+        try (Connection c = open()) {
+            Assertions.assertEquals(0, Migrations.migrate(c));
+            Assertions.assertTrue(Migrations.hasPendingBackfills(c));
+            Assertions.assertTrue(Migrations.runBackfills(c, () -> true));
+            Assertions.assertFalse(Migrations.hasPendingBackfills(c));
+
+            Map<Long, String> uids = uids(c);
+            Assertions.assertEquals(ROWS, uids.size());
+            Assertions.assertEquals(ROWS, query(c, "SELECT COUNT(DISTINCT uid) FROM flashcards"));
+            for (Map.Entry<Long, String> entry : filled.entrySet()) {
+                Assertions.assertEquals(entry.getValue(), uids.get(entry.getKey()));
+            }
+            Assertions.assertEquals(ROWS, query(c, "SELECT COUNT(*) FROM changelog WHERE op = 'UPSERT'"));
+            Assertions.assertEquals(ROWS, query(c, "SELECT COUNT(DISTINCT uid) FROM changelog"));
+            Assertions.assertEquals(0, query(c, "SELECT COUNT(*) FROM changelog WHERE uid IS NULL"));
+        }
+    }
+
+    @Test
+    public void migratedDatabaseIsUsable() throws Exception {
+        try (Connection c = open()) {
+            DBconnection.createTable(c);
+            Assertions.assertEquals(Migrations.latestVersion(), Migrations.userVersion(c));
+            Assertions.assertFalse(Migrations.hasPendingBackfills(c));
+            Assertions.assertEquals(ROWS, DBconnection.readDeck(c).size());
+            Assertions.assertEquals(ROWS + 1, DBconnection.nextNumber(c));
+            Assertions.assertEquals(0, query(c, "SELECT COUNT(*) FROM flashcards WHERE deleted <> 0"));
+        }
+    }
+}
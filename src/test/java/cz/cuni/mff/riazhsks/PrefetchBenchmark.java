@@ -0,0 +1,83 @@
+package cz.cuni.mff.riazhsks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures the time a Next click spends preparing the flashcard it shows,
+ * with and without prefetching.
+ *
+ * A generated deck (see DeckGenerator) is compressed and split into pages the
+ * way the database loads it, and walked in a shuffled quiz order, so nearly
+ * every step lands on a page that is not decoded. Without prefetching, each
+ * step decodes and renders its flashcard on the calling thread. With prefetching,
+ * the prefetcher is told about each move and has the time of a reading pause to
+ * prepare the following flashcards, as between two clicks of a user.
+ *
+ * Run with the deck size, the number of steps and the pause in milliseconds as
+ * arguments, 20000 flashcards, 2000 steps and a pause of 5 ms by default.
+ */
+public class PrefetchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int pause = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        List<Flashcard> generated = new DeckGenerator().size(size).seed(1).generate();
+        List<String> samples = new ArrayList<>();
+        for (Flashcard flashcard : generated) {
+            samples.add(flashcard.getQuestion());
+            samples.add(flashcard.getAnswer());
+        }
+        TextCodec.use(TextCodec.register(TextCodec.train(samples)));
+
+        QuizSampler.Sequence order = new QuizSampler(3).sequence(QuizSampler.Mode.SHUFFLED, generated);
+        steps = Math.min(steps, order.size());
+        System.out.println("Flashcards: " + size + ", steps: " + steps + ", pause: " + pause + " ms");
+        System.out.println("mode         p50 us      p95 us      max us");
+        report("cold", walk(load(generated), order, steps, pause, null));
+        report("prefetched", walk(load(generated), order, steps, pause, new CardPrefetcher()));
+    }
+
+    /**
+     * Creates compressed, paged flashcards as loaded from the database.
+     */
+    private static List<Flashcard> load(List<Flashcard> generated) {
+        TextCodec.PageBuilder pages = new TextCodec.PageBuilder();
+        List<Flashcard> deck = new ArrayList<>(generated.size());
+        for (Flashcard flashcard : generated) {
+            deck.add(pages.add(TextCodec.encode(flashcard.getQuestion()), TextCodec.encode(flashcard.getAnswer()),
+                    flashcard.getNumber(), flashcard.getColor(), null, null));
+        }
+        return deck;
+    }
+
+    /**
+     * Walks the deck in quiz order and returns the time of each step in nanoseconds.
+     */
+    private static long[] walk(List<Flashcard> deck, QuizSampler.Sequence order, int steps, int pause,
+                               CardPrefetcher prefetcher) throws Exception {
+        long[] times = new long[steps];
+        for (int position = 0; position < steps; position++) {
+            long start = System.nanoTime();
+            CardPrefetcher.Rendered rendered = CardPrefetcher.rendered(deck.get(order.get(position)));
+            times[position] = System.nanoTime() - start;
+            if (rendered.getText(false).isEmpty()) {
+                throw new IllegalStateException();
+            }
+            if (prefetcher != null) {
+                prefetcher.moved(position, order.size(), i -> deck.get(order.get(i)));
+            }
+            Thread.sleep(pause);
+        }
+        return times;
+    }
+
+    private static void report(String mode, long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-12s %-11.1f %-11.1f %.1f%n", mode, sorted[sorted.length / 2] / 1e3,
+                sorted[(int) (sorted.length * 0.95)] / 1e3, sorted[sorted.length - 1] / 1e3);
+    }
+}
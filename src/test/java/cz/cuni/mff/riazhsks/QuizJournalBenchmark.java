@@ -0,0 +1,65 @@
+package cz.cuni.mff.riazhsks;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Measures the cost of appending quiz events to the session journal and checks
+ * that a session is rebuilt from it, also after the last record was torn.
+ *
+ * The append time is what the event dispatch thread pays per event; writing and
+ * fsync happen on the writer thread, which is waited for separately.
+ *
+ * Run with the number of answers as the argument, 100000 by default.
+ */
+public class QuizJournalBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int answers = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path file = Files.createTempFile("quiz", ".journal");
+        try {
+            QuizJournal journal = QuizJournal.open(file);
+            long start = System.nanoTime();
+            journal.start(42, QuizSampler.Mode.SHUFFLED, 7);
+            for (int i = 0; i < answers; i++) {
+                journal.move(i, i * 3);
+                journal.answer(i, i * 3, i % 4 != 0);
+            }
+            long appended = System.nanoTime() - start;
+            journal.awaitWritten(60_000);
+            long written = System.nanoTime() - start;
+            journal.close();
+            System.out.printf("Append:  %.2f us per event%n", appended / 1000.0 / (2 * answers + 1));
+            System.out.printf("Written: %d ms for %d bytes%n", written / 1_000_000, Files.size(file));
+
+            QuizJournal.Session session = QuizJournal.replay(file);
+            check(session != null && session.getSeed() == 42 && session.getMode() == QuizSampler.Mode.SHUFFLED,
+                    "session start");
+            check(session.getPosition() == answers - 1 && session.getCardIndex() == (answers - 1) * 3,
+                    "position");
+            check(session.getTotal() == answers && session.getScore() == answers - (answers + 3) / 4, "score");
+
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(raf.length() - 3);
+            }
+            session = QuizJournal.replay(file);
+            check(session != null && session.getTotal() == answers - 1, "torn record ignored");
+
+            journal = QuizJournal.open(file);
+            journal.resume(session);
+            journal.end();
+            journal.close();
+            check(QuizJournal.replay(file) == null && Files.size(file) == 0, "journal compacted on end");
+            System.out.println("Replay:  ok");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Replay failed: " + what);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class QuizJournalTest {
+
+    private Path file;
+
+    @BeforeEach
+    public void createFile() throws Exception {
+        file = Files.createTempFile("quiz", ".journal");
+    }
+
+    @AfterEach
+    public void deleteFile() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private static List<Flashcard> deck(int size) {
+        List<Flashcard> deck = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            deck.add(new Flashcard("q" + i, "a" + i, i, Color.WHITE, null, "uid-" + i));
+        }
+        return deck;
+    }
+
+    private QuizJournal.Session write(List<Flashcard> deck, QuizSampler.Sequence sequence, int answers)
+            throws Exception {
+        return write(deck, QuizSampler.Mode.SHUFFLED, sequence, answers);
+    }
+
+    private QuizJournal.Session write(List<Flashcard> deck, QuizSampler.Mode mode,
+            QuizSampler.Sequence sequence, int answers) throws Exception {
+        QuizJournal journal = QuizJournal.open(file);
+        journal.start(9, mode, QuizJournal.fingerprint(deck));
+        for (int i = 0; i < answers; i++) {
+            journal.move(i, sequence.get(i));
+            journal.answer(i, sequence.get(i), i % 2 == 0);
+        }
+        Assertions.assertTrue(journal.awaitWritten(10_000));
+        journal.close();
+        return QuizJournal.replay(file);
+    }
+
+    @Test
+    public void tornTailIsIgnored() throws Exception {
+        List<Flashcard> deck = deck(20);
+        QuizSampler.Sequence sequence = new QuizSampler(9).sequence(QuizSampler.Mode.SHUFFLED, deck);
+        QuizJournal.Session session = write(deck, sequence, 10);
+        Assertions.assertEquals(10, session.getTotal());
+        Assertions.assertEquals(5, session.getScore());
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+        session = QuizJournal.replay(file);
+        Assertions.assertEquals(9, session.getTotal());
+        Assertions.assertEquals(9, session.getPosition());
+        Assertions.assertEquals(sequence.get(9), session.getCardIndex());
+    }
+
+    @Test
+    public void damagedRecordStopsReplay() throws Exception {
+        List<Flashcard> deck = deck(20);
+        QuizSampler.Sequence sequence = new QuizSampler(9).sequence(QuizSampler.Mode.SHUFFLED, deck);
+        write(deck, sequence, 10);
+        // start record: 7 + 17 bytes, then a move (15 bytes) and an answer (16 bytes) per step
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long payload = 24 + 3 * 31 + 3;
+            raf.seek(payload);
+            int value = raf.read();
+            raf.seek(payload);
+            raf.write(value ^ 0xFF);
+        }
+        QuizJournal.Session session = QuizJournal.replay(file);
+        Assertions.assertEquals(3, session.getTotal());
+        Assertions.assertEquals(2, session.getPosition());
+    }
+
+    @Test
+    public void resumesOnlyTheSameSequence() throws Exception {
+        List<Flashcard> deck = deck(20);
+        QuizSampler.Sequence sequence = new QuizSampler(9).sequence(QuizSampler.Mode.SHUFFLED, deck);
+        QuizJournal.Session session = write(deck, sequence, 5);
+        Assertions.assertTrue(session.matches(
+                new QuizSampler(session.getSeed()).sequence(session.getMode(), deck), deck));
+
+        Assertions.assertFalse(session.matches(
+                new QuizSampler(10).sequence(session.getMode(), deck), deck));
+        List<Flashcard> removed = new ArrayList<>(deck);
+        removed.remove(7);
+        Assertions.assertFalse(session.matches(
+                new QuizSampler(session.getSeed()).sequence(session.getMode(), removed), removed));
+        List<Flashcard> renumbered = new ArrayList<>(deck);
+        renumbered.set(3, deck.get(3).withNumber(40));
+        Assertions.assertFalse(session.matches(
+                new QuizSampler(session.getSeed()).sequence(session.getMode(), renumbered), renumbered));
+        Assertions.assertFalse(session.matches(
+                new QuizSampler(session.getSeed()).sequence(session.getMode(), new ArrayList<>()), new ArrayList<>()));
+    }
+
+    @Test
+    public void weakestFirstResumesFromTheJournaledCards() throws Exception {
+        List<Flashcard> deck = deck(20);
+        double[] before = new double[deck.size()];
+        double[] after = new double[deck.size()];
+        for (int i = 0; i < deck.size(); i++) {
+            before[i] = i < 10 ? 0.9 : 0.0;
+            after[i] = i < 10 ? 0.0 : 0.9;
+        }
+        QuizSampler.Sequence sequence = new QuizSampler(9).weakestFirst(before, deck.size());
+        QuizJournal.Session session = write(deck, QuizSampler.Mode.WEAKEST_FIRST, sequence, 8);
+        journalMove(session, 8, sequence.get(8));
+        session = QuizJournal.replay(file);
+
+        QuizSampler.Sequence rebuilt = new QuizSampler(session.getSeed()).weakestFirst(after, deck.size());
+        Assertions.assertTrue(session.matches(rebuilt, deck));
+        QuizSampler.Sequence continued = session.continued(rebuilt);
+        Assertions.assertEquals(rebuilt.size(), continued.size());
+        for (int i = 0; i <= 8; i++) {
+            Assertions.assertEquals(sequence.get(i), continued.get(i));
+        }
+        for (int i = 9; i < continued.size(); i++) {
+            Assertions.assertEquals(rebuilt.get(i), continued.get(i));
+        }
+        Assertions.assertEquals(sequence.get(8), continued.get(session.getPosition()));
+        Assertions.assertEquals(session.getCardIndex(), continued.get(session.getPosition()));
+
+        List<Flashcard> removed = new ArrayList<>(deck);
+        removed.remove(7);
+        Assertions.assertFalse(session.matches(
+                new QuizSampler(session.getSeed()).weakestFirst(after, removed.size()), removed));
+    }
+
+    private void journalMove(QuizJournal.Session session, int position, int cardIndex) throws Exception {
+        QuizJournal journal = QuizJournal.open(file);
+        journal.resume(session);
+        journal.move(position, cardIndex);
+        Assertions.assertTrue(journal.awaitWritten(10_000));
+        journal.close();
+    }
+
+    @Test
+    public void resumedSessionKeepsScoreAndPositions() throws Exception {
+        List<Flashcard> deck = deck(20);
+        QuizSampler.Sequence sequence = new QuizSampler(9).sequence(QuizSampler.Mode.SHUFFLED, deck);
+        QuizJournal.Session session = write(deck, sequence, 6);
+
+        QuizJournal journal = QuizJournal.open(file);
+        journal.resume(session);
+        journal.answer(6, sequence.get(6), true);
+        Assertions.assertTrue(journal.awaitWritten(10_000));
+        journal.close();
+        QuizJournal.Session resumed = QuizJournal.replay(file);
+        Assertions.assertEquals(4, resumed.getScore());
+        Assertions.assertEquals(7, resumed.getTotal());
+        Assertions.assertEquals(6, resumed.getPosition());
+        Assertions.assertTrue(resumed.matches(sequence, deck));
+    }
+
+    @Test
+    public void restartKeepsScore() throws Exception {
+        QuizJournal journal = QuizJournal.open(file);
+        journal.start(1, QuizSampler.Mode.IN_ORDER, 0);
+        journal.answer(0, 0, true);
+        journal.start(1, QuizSampler.Mode.SHUFFLED, 0);
+        journal.score(1, 1);
+        Assertions.assertTrue(journal.awaitWritten(10_000));
+        journal.close();
+        QuizJournal.Session session = QuizJournal.replay(file);
+        Assertions.assertEquals(QuizSampler.Mode.SHUFFLED, session.getMode());
+        Assertions.assertEquals(1, session.getScore());
+        Assertions.assertEquals(1, session.getTotal());
+    }
+
+    @Test
+    public void endCompactsJournal() throws Exception {
+        QuizJournal journal = QuizJournal.open(file);
+        journal.start(1, QuizSampler.Mode.IN_ORDER, 0);
+        journal.move(1, 1);
+        journal.end();
+        Assertions.assertTrue(journal.awaitWritten(10_000));
+        journal.close();
+        Assertions.assertNull(QuizJournal.replay(file));
+        Assertions.assertEquals(0, Files.size(file));
+    }
+}
@@ -0,0 +1,170 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class QuizSamplerTest {
+
+    private static final Color[] COLORS = {Color.RED, Color.GREEN, Color.BLUE, Color.GRAY};
+
+    private static List<Flashcard> deck(int... sizes) {
+        List<Flashcard> cards = new ArrayList<>();
+        for (int group = 0; group < sizes.length; group++) {
+            for (int i = 0; i < sizes[group]; i++) {
+                cards.add(new Flashcard("q", "a", cards.size() + 1, COLORS[group]));
+            }
+        }
+        return cards;
+    }
+
+    private static int[] drain(QuizSampler.Sequence sequence) {
+        int[] indices = new int[sequence.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = sequence.get(i);
+        }
+        return indices;
+    }
+
+    private static void assertPermutation(int[] indices) {
+        int[] sorted = indices.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            Assertions.assertEquals(i, sorted[i]);
+        }
+    }
+
+    /** Checks that after every draw the groups not yet exhausted have been drawn equally often, up to one. */
+    private static void assertGroupsTakeTurns(int[] indices, int[] groupOf, int groups) {
+        int[] drawn = new int[groups];
+        int[] size = new int[groups];
+        for (int group : groupOf) {
+            size[group]++;
+        }
+        for (int position = 0; position < indices.length; position++) {
+            drawn[groupOf[indices[position]]]++;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int g = 0; g < groups; g++) {
+                if (drawn[g] < size[g]) {
+                    min = Math.min(min, drawn[g]);
+                    max = Math.max(max, drawn[g]);
+                }
+            }
+            Assertions.assertTrue(min == Integer.MAX_VALUE || max - min <= 1, "uneven at position " + position);
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameOrder() {
+        List<Flashcard> cards = deck(40, 25, 10, 5);
+        double[] rates = new double[cards.size()];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = (i % 7) / 7.0;
+        }
+        for (QuizSampler.Mode mode : new QuizSampler.Mode[] {QuizSampler.Mode.SHUFFLED, QuizSampler.Mode.BY_COLOR}) {
+            Assertions.assertArrayEquals(drain(new QuizSampler(42).sequence(mode, cards)),
+                    drain(new QuizSampler(42).sequence(mode, cards)), mode.toString());
+            Assertions.assertFalse(Arrays.equals(drain(new QuizSampler(42).sequence(mode, cards)),
+                    drain(new QuizSampler(43).sequence(mode, cards))), mode.toString());
+        }
+        Assertions.assertArrayEquals(drain(new QuizSampler(42).weakestFirst(rates, 500)),
+                drain(new QuizSampler(42).weakestFirst(rates, 500)));
+    }
+
+    @Test
+    public void positionsAreStableInAnyVisitingOrder() {
+        QuizSampler.Sequence forward = new QuizSampler(7).shuffle(1000);
+        QuizSampler.Sequence jumping = new QuizSampler(7).shuffle(1000);
+        int last = jumping.get(999);
+        int middle = jumping.get(500);
+        Assertions.assertEquals(jumping.get(0), forward.get(0));
+        Assertions.assertArrayEquals(drain(forward), drain(jumping));
+        Assertions.assertEquals(last, forward.get(999));
+        Assertions.assertEquals(middle, forward.get(500));
+    }
+
+    @Test
+    public void shuffleIsPermutation() {
+        for (int n : new int[] {1, 2, 17, 10_000}) {
+            assertPermutation(drain(new QuizSampler(n).shuffle(n)));
+        }
+        Assertions.assertArrayEquals(new int[] {0, 1, 2, 3}, drain(new QuizSampler(1).inOrder(4)));
+    }
+
+    @Test
+    public void drawFrequenciesFollowWeights() {
+        double[] weights = {1, 2, 3, 4, 0, 10};
+        int draws = 400_000;
+        int[] counts = new int[weights.length];
+        for (int index : drain(new QuizSampler(5).weighted(weights, draws))) {
+            counts[index]++;
+        }
+        double sum = Arrays.stream(weights).sum();
+        for (int i = 0; i < weights.length; i++) {
+            Assertions.assertEquals(weights[i] / sum, (double) counts[i] / draws, 0.005, "index " + i);
+        }
+        Assertions.assertEquals(0, counts[4]);
+    }
+
+    @Test
+    public void weakestFirstKeepsEveryCard() {
+        int[] counts = new int[3];
+        for (int index : drain(new QuizSampler(3).weakestFirst(new double[] {0, 0, 1}, 100_000))) {
+            counts[index]++;
+        }
+        Assertions.assertEquals(0.05 / 1.15, counts[0] / 100_000.0, 0.005);
+        Assertions.assertEquals(1.05 / 1.15, counts[2] / 100_000.0, 0.005);
+    }
+
+    @Test
+    public void colorsTakeTurns() {
+        List<Flashcard> cards = deck(40, 25, 10, 5);
+        int[] groupOf = new int[cards.size()];
+        for (int i = 0; i < groupOf.length; i++) {
+            groupOf[i] = Arrays.asList(COLORS).indexOf(cards.get(i).getColor());
+        }
+        for (long seed = 0; seed < 20; seed++) {
+            int[] indices = drain(new QuizSampler(seed).byColor(cards));
+            assertPermutation(indices);
+            assertGroupsTakeTurns(indices, groupOf, COLORS.length);
+        }
+        Assertions.assertEquals(12, QuizSampler.colorGroup(Color.GRAY));
+        Assertions.assertEquals(0, QuizSampler.colorGroup(Color.RED));
+        Assertions.assertNotEquals(QuizSampler.colorGroup(Color.GREEN), QuizSampler.colorGroup(Color.BLUE));
+    }
+
+    @Test
+    public void anyGroupingTakesTurns() {
+        List<Flashcard> cards = deck(60);
+        int[] groupOf = new int[cards.size()];
+        for (int i = 0; i < groupOf.length; i++) {
+            groupOf[i] = i < 30 ? 0 : i < 50 ? 1 : 2;
+        }
+        int[] indices = drain(new QuizSampler(9).stratified(cards, card -> (card.getNumber() - 1) < 30 ? 1000
+                : (card.getNumber() - 1) < 50 ? -5 : 7));
+        assertPermutation(indices);
+        assertGroupsTakeTurns(indices, groupOf, 3);
+    }
+
+    @Test
+    public void weightedOnEmptyDeck() {
+        QuizSampler sampler = new QuizSampler(1);
+        Assertions.assertEquals(0, sampler.weighted(new double[0], 0).size());
+        Assertions.assertEquals(0, sampler.weighted(new double[0], 5).size());
+        Assertions.assertEquals(0, sampler.weakestFirst(new double[0], 0).size());
+        Assertions.assertEquals(0, sampler.weighted(new double[] {1, 2}, 0).size());
+    }
+
+    @Test
+    public void sequencesOnEmptyDeck() {
+        QuizSampler sampler = new QuizSampler(1);
+        for (QuizSampler.Mode mode : new QuizSampler.Mode[] {QuizSampler.Mode.IN_ORDER,
+                QuizSampler.Mode.SHUFFLED, QuizSampler.Mode.BY_COLOR}) {
+            Assertions.assertEquals(0, sampler.sequence(mode, new ArrayList<>()).size());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the import throughput against the number of shards.
+ *
+ * For every shard count a fresh database is created in a temporary directory
+ * and the same flashcards are imported in batches; one shard is the plain
+ * single-file database written through one connection.
+ *
+ * Run with the number of flashcards and the shard counts as arguments,
+ * for example: ShardBenchmark 500000 1 2 4 8
+ */
+public class ShardBenchmark {
+
+    /** Number of flashcards per imported batch. */
+    private static final int BATCH_SIZE = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        Class.forName("org.sqlite.JDBC");
+        int cards = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int[] counts = args.length > 1 ? new int[args.length - 1] : new int[] {1, 2, 4, 8};
+        for (int i = 1; i < args.length; i++) {
+            counts[i - 1] = Integer.parseInt(args[i]);
+        }
+        System.out.println("shards      ms          cards/s");
+        for (int count : counts) {
+            Path dir = Files.createTempDirectory("flashcards-shards");
+            Path main = dir.resolve("flashcards.db");
+            try (Connection c = DBconnection.openConnection("jdbc:sqlite:" + main)) {
+                DBconnection.createTable(c);
+                long start = System.nanoTime();
+                if (count == 1) {
+                    for (int first = 1; first <= cards; first += BATCH_SIZE) {
+                        c.setAutoCommit(false);
+                        DBconnection.addFlashcards(c, batch(first, Math.min(BATCH_SIZE, cards - first + 1)));
+                        c.commit();
+                        c.setAutoCommit(true);
+                    }
+                } else {
+                    try (ShardedStore store = new ShardedStore(main, count)) {
+                        for (int first = 1; first <= cards; first += BATCH_SIZE) {
+                            store.addAll(batch(first, Math.min(BATCH_SIZE, cards - first + 1)));
+                        }
+                    }
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("%-11d %-11d %d%n", count, millis, cards * 1000L / Math.max(1, millis));
+            } finally {
+                try (Stream<Path> files = Files.walk(dir)) {
+                    for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a batch of flashcards numbered from first.
+     */
+    private static List<Flashcard> batch(int first, int size) {
+        List<Flashcard> batch = new ArrayList<>(size);
+        for (int number = first; number < first + size; number++) {
+            batch.add(new Flashcard("Question " + number, "Answer " + number, number, new Color(number * 7919)));
+        }
+        return batch;
+    }
+}
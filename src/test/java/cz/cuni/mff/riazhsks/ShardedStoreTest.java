@@ -0,0 +1,108 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ShardedStoreTest {
+
+    private Path directory;
+
+    private ShardedStore store;
+
+    private Connection main;
+
+    @BeforeEach
+    public void open() throws Exception {
+        directory = Files.createTempDirectory("shards");
+        Path file = directory.resolve("flashcards.db");
+        store = new ShardedStore(file, 3);
+        main = DBconnection.openConnection("jdbc:sqlite:" + file);
+        DBconnection.createTable(main);
+        store.attach(main);
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        main.close();
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static List<Flashcard> cards(int first, int size) {
+        List<Flashcard> cards = new ArrayList<>();
+        for (int number = first; number < first + size; number++) {
+            cards.add(new Flashcard("q" + number, "a" + number, number, Color.WHITE, null, DBconnection.newUid()));
+        }
+        return cards;
+    }
+
+    @Test
+    public void mergeReturnsNumberOrder() throws Exception {
+        List<Flashcard> cards = cards(1, 300);
+        Collections.shuffle(cards, new Random(4));
+        store.addAll(cards.subList(0, 150));
+        store.addAll(cards.subList(150, 300));
+
+        List<Flashcard> loaded = store.load(main);
+        Assertions.assertEquals(300, loaded.size());
+        for (int i = 0; i < loaded.size(); i++) {
+            Assertions.assertEquals(i + 1, loaded.get(i).getNumber());
+            Assertions.assertEquals("q" + (i + 1), loaded.get(i).getQuestion());
+        }
+    }
+
+    @Test
+    public void cardsAreWrittenToTheirShards() throws Exception {
+        List<Flashcard> cards = cards(1, 60);
+        store.addAll(cards);
+        for (int shard = 0; shard < store.size(); shard++) {
+            int index = shard;
+            long expected = cards.stream().filter(card -> store.shardOf(card.getUid()) == index).count();
+            try (Connection c = DBconnection.openConnection(store.urls()[shard]);
+                 Statement s = c.createStatement();
+                 ResultSet set = s.executeQuery("SELECT COUNT(*) FROM flashcards")) {
+                set.next();
+                Assertions.assertEquals(expected, set.getLong(1));
+            }
+        }
+    }
+
+    @Test
+    public void shardWritersDoNotCount() throws Exception {
+        int before = DBconnection.count;
+        store.addAll(cards(1, 100));
+        Assertions.assertEquals(before, DBconnection.count);
+    }
+
+    @Test
+    public void syncRefusesShardedDatabase() throws Exception {
+        Assertions.assertTrue(ShardedStore.isSharded(main));
+        Path other = directory.resolve("other.db");
+        try (Connection c = DBconnection.openConnection("jdbc:sqlite:" + other)) {
+            DBconnection.createTable(c);
+            Assertions.assertFalse(ShardedStore.isSharded(c));
+            Assertions.assertThrows(SQLException.class, () -> DeckSync.sync(c, main));
+        }
+        Assertions.assertThrows(SQLException.class,
+                () -> DeckSync.sync(directory.resolve("flashcards.db"), other));
+    }
+}
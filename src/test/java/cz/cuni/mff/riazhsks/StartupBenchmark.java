@@ -0,0 +1,138 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.GraphicsEnvironment;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time from the start of the JVM to the first flashcard shown,
+ * for decks of several sizes.
+ *
+ * For every size, a generated deck (see DeckGenerator) is stored in a database
+ * in a temporary directory by a child JVM. The application is then started in
+ * that directory several times with -Dflashcards.exitAfterStartup=true, so it
+ * reports the time to the first card and exits. The run takes the same path as
+ * a user: the window shows, the start-up questions are asked, and the existing
+ * deck is loaded behind them; the first card is shown without an answer. The
+ * reported times and the wall time of the whole process are printed. Extra JVM
+ * options, for example the AppCDS archive
+ * built by the appcds profile (-XX:SharedArchiveFile=target/flashcards.jsa) or
+ * -Xshare:off, are passed to the application after "--".
+ *
+ * Run with the deck sizes and the number of runs as arguments, e.g.
+ * StartupBenchmark 0,1000,100000 5 -- -XX:SharedArchiveFile=target/flashcards.jsa
+ * It needs a display, e.g. xvfb-run.
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--populate")) {
+            populate(Integer.parseInt(args[1]));
+            return;
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("The startup benchmark needs a display; run it under a virtual one, e.g. xvfb-run");
+            System.exit(2);
+        }
+        int[] sizes = args.length > 0 && !args[0].equals("--")
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{0, 1000, 10_000, 100_000};
+        int runs = args.length > 1 && !args[1].equals("--") ? Integer.parseInt(args[1]) : 5;
+        List<String> jvmOptions = new ArrayList<>();
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator >= 0) {
+            jvmOptions.addAll(Arrays.asList(args).subList(separator + 1, args.length));
+        }
+
+        System.out.println("JVM options: " + jvmOptions);
+        System.out.println("flashcards  first card ms (median/min)  process ms (median/min)");
+        for (int size : sizes) {
+            Path directory = Files.createTempDirectory("startup");
+            try {
+                run(directory, List.of(StartupBenchmark.class.getName(), "--populate", Integer.toString(size)),
+                        List.of());
+                long[] firstCard = new long[runs];
+                long[] process = new long[runs];
+                for (int i = 0; i < runs; i++) {
+                    long start = System.nanoTime();
+                    String output = run(directory, List.of(MainApp.class.getName()), jvmOptions);
+                    process[i] = (System.nanoTime() - start) / 1_000_000;
+                    firstCard[i] = reported(output);
+                }
+                Arrays.sort(firstCard);
+                Arrays.sort(process);
+                System.out.printf("%-11d %-9d %-27d %-9d %d%n", size, firstCard[runs / 2], firstCard[0],
+                        process[runs / 2], process[0]);
+            } finally {
+                try (Stream<Path> files = Files.walk(directory)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a generated deck in flashcards.db of the working directory.
+     */
+    private static void populate(int size) {
+        DBconnection.initializeDatabase();
+        List<Flashcard> deck = new DeckGenerator().size(size).seed(1).generate();
+        for (int from = 0; from < deck.size(); from += 10_000) {
+            DBconnection.addFlashcards(deck.subList(from, Math.min(from + 10_000, deck.size())));
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Runs a class in a child JVM with the classpath of this one and returns its output.
+     */
+    private static String run(Path directory, List<String> command, List<String> jvmOptions)
+            throws IOException, InterruptedException {
+        List<String> line = new ArrayList<>();
+        line.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        line.addAll(jvmOptions);
+        line.add("-D" + MainApp.EXIT_AFTER_STARTUP_PROPERTY + "=true");
+        line.add("-cp");
+        line.add(Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> Path.of(entry).toAbsolutePath().toString())
+                .reduce((a, b) -> a + File.pathSeparator + b).orElse("."));
+        line.addAll(command);
+        Process process = new ProcessBuilder(line).directory(directory.toFile()).redirectErrorStream(true).start();
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String text;
+            while ((text = in.readLine()) != null) {
+                output.append(text).append('\n');
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Child JVM failed:\n" + output);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Returns the time to the first card reported by the application.
+     */
+    private static long reported(String output) {
+        for (String text : output.split("\n")) {
+            if (text.startsWith("Startup: ")) {
+                return Long.parseLong(text.replaceAll(".* after (\\d+) ms", "$1"));
+            }
+        }
+        throw new IllegalStateException("The application did not report its startup:\n" + output);
+    }
+}
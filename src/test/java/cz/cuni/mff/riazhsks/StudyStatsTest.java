@@ -0,0 +1,200 @@
+package cz.cuni.mff.riazhsks;
+
+import java.awt.Color;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StudyStatsTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 3, 1);
+
+    private static final int DAYS = 40;
+
+    private Path file;
+
+    private Connection c;
+
+    private List<Flashcard> cards;
+
+    /** The raw answers: card index, correct, day. */
+    private final List<Object[]> answers = new ArrayList<>();
+
+    @BeforeEach
+    public void open() throws Exception {
+        file = Files.createTempFile("stats", ".db");
+        c = DBconnection.openConnection("jdbc:sqlite:" + file);
+        DBconnection.createTable(c);
+        cards = new ArrayList<>();
+        for (int number = 1; number <= 30; number++) {
+            cards.add(new Flashcard("q" + number, "a" + number, number, Color.WHITE, null, DBconnection.newUid()));
+        }
+        DBconnection.addFlashcards(c, cards);
+
+        Random random = new Random(17);
+        c.setAutoCommit(false);
+        for (int d = 0; d < DAYS; d++) {
+            if (random.nextInt(10) < 3) {
+                continue;
+            }
+            LocalDate day = FIRST_DAY.plusDays(d);
+            for (int i = random.nextInt(15) + 1; i > 0; i--) {
+                int card = random.nextInt(cards.size());
+                boolean correct = random.nextInt(100) < 40 + 2 * card;
+                answers.add(new Object[] {card, correct, day});
+                StudyStats.record(c, cards.get(card).getUid(), correct, day);
+            }
+        }
+        c.commit();
+        c.setAutoCommit(true);
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        c.close();
+        Files.deleteIfExists(file);
+    }
+
+    private LocalDate lastDay() {
+        return (LocalDate) answers.get(answers.size() - 1)[2];
+    }
+
+    @Test
+    public void cardCountsAndDifficultyMatchAnswers() throws Exception {
+        for (int card = 0; card < cards.size(); card++) {
+            int reviews = 0;
+            int correct = 0;
+            int streak = 0;
+            int bestStreak = 0;
+            for (Object[] answer : answers) {
+                if ((int) answer[0] != card) {
+                    continue;
+                }
+                reviews++;
+                if ((boolean) answer[1]) {
+                    correct++;
+                    streak++;
+                    bestStreak = Math.max(bestStreak, streak);
+                } else {
+                    streak = 0;
+                }
+            }
+            String uid = cards.get(card).getUid();
+            StudyStats.Counts counts = StudyStats.card(c, uid);
+            Assertions.assertEquals(reviews, counts.getReviews());
+            Assertions.assertEquals(correct, counts.getCorrect());
+            if (reviews == 0) {
+                continue;
+            }
+            try (PreparedStatement s = c.prepareStatement(
+                    "SELECT streak, best_streak, difficulty FROM card_stats WHERE uid = ?")) {
+                s.setString(1, uid);
+                try (ResultSet set = s.executeQuery()) {
+                    Assertions.assertTrue(set.next());
+                    Assertions.assertEquals(streak, set.getInt(1));
+                    Assertions.assertEquals(bestStreak, set.getInt(2));
+                    Assertions.assertEquals((reviews - correct + 1.0) / (reviews + 2.0), set.getDouble(3), 1e-12);
+                }
+            }
+            Assertions.assertEquals((double) (reviews - correct) / reviews,
+                    StudyStats.errorRates(c, cards)[card], 1e-12);
+        }
+    }
+
+    @Test
+    public void dailyCountsMatchAnswers() throws Exception {
+        Map<LocalDate, int[]> expected = new TreeMap<>();
+        for (Object[] answer : answers) {
+            int[] counts = expected.computeIfAbsent((LocalDate) answer[2], k -> new int[2]);
+            counts[0]++;
+            counts[1] += (boolean) answer[1] ? 1 : 0;
+        }
+        LocalDate today = FIRST_DAY.plusDays(DAYS + 2);
+        Map<LocalDate, StudyStats.Counts> daily = StudyStats.daily(c, today, DAYS + 5);
+        Assertions.assertEquals(DAYS + 5, daily.size());
+        Assertions.assertEquals(today, new ArrayList<>(daily.keySet()).get(DAYS + 4));
+        for (Map.Entry<LocalDate, StudyStats.Counts> day : daily.entrySet()) {
+            int[] counts = expected.getOrDefault(day.getKey(), new int[2]);
+            Assertions.assertEquals(counts[0], day.getValue().getReviews(), day.getKey().toString());
+            Assertions.assertEquals(counts[1], day.getValue().getCorrect(), day.getKey().toString());
+        }
+    }
+
+    @Test
+    public void summaryMatchesAnswers() throws Exception {
+        int correct = 0;
+        int streak = 0;
+        int bestStreak = 0;
+        int dayStreak = 0;
+        int bestDayStreak = 0;
+        LocalDate previous = null;
+        for (Object[] answer : answers) {
+            if ((boolean) answer[1]) {
+                correct++;
+                streak++;
+                bestStreak = Math.max(bestStreak, streak);
+            } else {
+                streak = 0;
+            }
+            LocalDate day = (LocalDate) answer[2];
+            if (!day.equals(previous)) {
+                dayStreak = previous != null && previous.plusDays(1).equals(day) ? dayStreak + 1 : 1;
+                bestDayStreak = Math.max(bestDayStreak, dayStreak);
+                previous = day;
+            }
+        }
+        StudyStats.Summary summary = StudyStats.summary(c, lastDay().plusDays(1));
+        Assertions.assertEquals(answers.size(), summary.getReviews());
+        Assertions.assertEquals(correct, summary.getCorrect());
+        Assertions.assertEquals((double) correct / answers.size(), summary.getAccuracy(), 1e-12);
+        Assertions.assertEquals(streak, summary.getStreak());
+        Assertions.assertEquals(bestStreak, summary.getBestStreak());
+        Assertions.assertEquals(dayStreak, summary.getDayStreak());
+        Assertions.assertEquals(bestDayStreak, summary.getBestDayStreak());
+
+        StudyStats.Summary later = StudyStats.summary(c, lastDay().plusDays(2));
+        Assertions.assertEquals(0, later.getDayStreak());
+        Assertions.assertEquals(bestDayStreak, later.getBestDayStreak());
+    }
+
+    @Test
+    public void hardestAreRankedBySmoothedErrorRate() throws Exception {
+        Map<String, int[]> counts = new HashMap<>();
+        for (Object[] answer : answers) {
+            int[] card = counts.computeIfAbsent(cards.get((int) answer[0]).getQuestion(), k -> new int[2]);
+            card[0]++;
+            card[1] += (boolean) answer[1] ? 1 : 0;
+        }
+        List<Double> expected = new ArrayList<>();
+        for (int[] card : counts.values()) {
+            if (card[1] < card[0]) {
+                expected.add((card[0] - card[1] + 1.0) / (card[0] + 2.0));
+            }
+        }
+        expected.sort((x, y) -> Double.compare(y, x));
+
+        List<StudyStats.CardStats> hardest = StudyStats.hardest(c, StudyStats.HARDEST_COUNT);
+        Assertions.assertEquals(Math.min(StudyStats.HARDEST_COUNT, expected.size()), hardest.size());
+        for (int i = 0; i < hardest.size(); i++) {
+            StudyStats.CardStats card = hardest.get(i);
+            int[] raw = counts.get(card.getQuestion());
+            Assertions.assertEquals(raw[0], card.getReviews());
+            Assertions.assertEquals(raw[1], card.getCorrect());
+            Assertions.assertEquals(expected.get(i), (card.getReviews() - card.getCorrect() + 1.0) / (card.getReviews() + 2.0),
+                    1e-12);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package cz.cuni.mff.riazhsks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports what text compression saves on a deck and what decoding costs.
+ *
+ * The deck is read from "Question;Answer" files, a dictionary is trained on it
+ * and every text is encoded as it would be stored. The report shows the size of
+ * the text on disk, an estimate of the heap taken by the loaded text with and
+ * without interning and compression, and the time to decode one text and one page.
+ *
+ * Run with the deck files as arguments; without arguments sampleInput.txt is used.
+ */
+public class TextCodecReport {
+
+    /** Estimated heap size of a String object without its characters, in bytes. */
+    private static final int STRING_OVERHEAD = 24 + 16;
+
+    /** Estimated heap size of an array object without its elements, in bytes. */
+    private static final int ARRAY_OVERHEAD = 16;
+
+    public static void main(String[] args) throws Exception {
+        List<String> texts = new ArrayList<>();
+        String[] files = args.length > 0 ? args : new String[] {"sampleInput.txt"};
+        for (String file : files) {
+            for (String line : Files.readAllLines(Path.of(file), StandardCharsets.UTF_8)) {
+                String[] fields = line.split(";");
+                if (fields.length == 2) {
+                    texts.add(fields[0].trim());
+                    texts.add(fields[1].trim());
+                }
+            }
+        }
+        byte[] dictionary = TextCodec.train(texts);
+        if (dictionary != null) {
+            TextCodec.use(TextCodec.register(dictionary));
+        }
+
+        long rawBytes = 0;
+        long storedBytes = 0;
+        long plainHeap = 0;
+        long codecHeap = 0;
+        int compressed = 0;
+        Set<String> interned = new HashSet<>();
+        List<byte[]> encoded = new ArrayList<>();
+        for (String text : texts) {
+            int length = text.getBytes(StandardCharsets.UTF_8).length;
+            rawBytes += length;
+            plainHeap += STRING_OVERHEAD + length;
+            Object value = TextCodec.encode(text);
+            if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                storedBytes += bytes.length;
+                codecHeap += ARRAY_OVERHEAD + bytes.length;
+                encoded.add(bytes);
+                compressed++;
+            } else {
+                storedBytes += length;
+                if (text.length() > TextCodec.SHORT_TEXT || interned.add(text)) {
+                    codecHeap += STRING_OVERHEAD + length;
+                }
+            }
+        }
+
+        System.out.println("Texts:            " + texts.size() + " (" + compressed + " compressed)");
+        System.out.println("Dictionary:       " + (dictionary == null ? "not trained, too few long texts"
+                : dictionary.length + " bytes"));
+        System.out.printf("On disk:          %d -> %d bytes (%.1f%% saved)%n",
+                rawBytes, storedBytes, percent(rawBytes, storedBytes));
+        System.out.printf("Heap (estimate):  %d -> %d bytes (%.1f%% saved)%n",
+                plainHeap, codecHeap, percent(plainHeap, codecHeap));
+        if (encoded.isEmpty()) {
+            return;
+        }
+        long start = 0;
+        int rounds = Math.max(1, 200_000 / encoded.size());
+        for (int round = 0; round <= rounds; round++) {
+            if (round == 1) {
+                start = System.nanoTime();
+            }
+            for (byte[] bytes : encoded) {
+                TextCodec.decode(bytes);
+            }
+        }
+        double perText = (System.nanoTime() - start) / (double) rounds / encoded.size();
+        System.out.printf("Decode:           %.0f ns per text, %.1f us per page of %d flashcards%n",
+                perText, perText * 2 * TextCodec.PAGE_SIZE / 1000, TextCodec.PAGE_SIZE);
+    }
+
+    private static double percent(long before, long after) {
+        return before == 0 ? 0 : 100.0 * (before - after) / before;
+    }
+}
@@ -0,0 +1,92 @@
+package cz.cuni.mff.riazhsks;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TextCodecTest {
+
+    private static final String STEM = "What is the capital city of the country ";
+
+    @BeforeEach
+    public void useDictionary() {
+        List<String> samples = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            samples.add(STEM + "number " + i + " in the list?");
+        }
+        TextCodec.use(TextCodec.register(TextCodec.train(samples)));
+    }
+
+    @AfterEach
+    public void disableCompression() {
+        TextCodec.use(0);
+    }
+
+    private static String text(int length) {
+        StringBuilder text = new StringBuilder(STEM);
+        while (text.length() < length) {
+            text.append(STEM);
+        }
+        return text.substring(0, length);
+    }
+
+    @Test
+    public void roundTripsAroundLongTextBoundary() throws SQLException {
+        for (int length = 30; length <= 34; length++) {
+            String text = text(length);
+            Object encoded = TextCodec.encode(text);
+            if (length < 32) {
+                Assertions.assertSame(text, encoded);
+            } else {
+                Assertions.assertTrue(encoded instanceof byte[], "compressed at " + length);
+            }
+            Assertions.assertEquals(text, TextCodec.decode(encoded));
+        }
+    }
+
+    @Test
+    public void roundTripsMultiByteText() throws SQLException {
+        for (int length : new int[] {16, 31, 32, 33, 200}) {
+            String text = "č".repeat(length);
+            Assertions.assertEquals(text, TextCodec.decode(TextCodec.encode(text)));
+        }
+        Assertions.assertNull(TextCodec.decode(TextCodec.encode(null)));
+        Assertions.assertEquals("", TextCodec.decode(TextCodec.encode("")));
+    }
+
+    @Test
+    public void internsUpToShortTextBoundary() {
+        String sixteen = text(TextCodec.SHORT_TEXT);
+        Assertions.assertSame(TextCodec.intern(sixteen), TextCodec.intern(new String(sixteen)));
+        String seventeen = text(TextCodec.SHORT_TEXT + 1);
+        String copy = new String(seventeen);
+        Assertions.assertSame(copy, TextCodec.intern(copy));
+    }
+
+    @Test
+    public void unknownDictionaryIsReported() {
+        byte[] encoded = (byte[]) TextCodec.encode(text(100));
+        int id = ByteBuffer.wrap(encoded, 1, 4).getInt();
+        ByteBuffer.wrap(encoded).putInt(1, id == 7 ? 8 : 7);
+        SQLException e = Assertions.assertThrows(SQLException.class, () -> TextCodec.decode(encoded));
+        Assertions.assertEquals("Unknown text dictionary", e.getMessage());
+
+        TextCodec.Page page = new TextCodec.Page(new Object[] {encoded, "answer"});
+        Assertions.assertEquals("", page.text(0));
+        Assertions.assertEquals("answer", page.text(1));
+    }
+
+    @Test
+    public void compressedTextStaysReadableWithoutCompression() throws SQLException {
+        String text = text(100);
+        Object encoded = TextCodec.encode(text);
+        TextCodec.use(0);
+        Assertions.assertSame(text, TextCodec.encode(text));
+        Assertions.assertEquals(text, TextCodec.decode(encoded));
+    }
+}
@@ -0,0 +1,157 @@
+package cz.cuni.mff.riazhsks;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class WatchFolderIngestorTest {
+
+    private Path file;
+
+    private Path directory;
+
+    private Connection c;
+
+    private WatchFolderIngestor ingestor;
+
+    @BeforeEach
+    public void open() throws Exception {
+        file = Files.createTempFile("ingest", ".db");
+        directory = Files.createTempDirectory("watched");
+        c = DBconnection.openConnection("jdbc:sqlite:" + file);
+        DBconnection.createTable(c);
+        WatchFolderIngestor.createStateTable(c);
+        ingestor = new WatchFolderIngestor(directory);
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        ingestor.stop();
+        c.close();
+        Files.deleteIfExists(file);
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void append(Path path, String text) throws Exception {
+        Files.writeString(path, text, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void scan(boolean settled) throws Exception {
+        ingestor.ingest(c, ingestor.listFiles(), settled);
+    }
+
+    private List<String> questions() throws Exception {
+        List<String> questions = new ArrayList<>();
+        for (Flashcard card : DBconnection.readDeck(c)) {
+            questions.add(card.getQuestion());
+        }
+        return questions;
+    }
+
+    @Test
+    public void appendedLinesAreImportedOnce() throws Exception {
+        Path cards = directory.resolve("cards.txt");
+        append(cards, "q1;a1\nq2;a2\n");
+        scan(false);
+        scan(false);
+        Assertions.assertEquals(List.of("q1", "q2"), questions());
+
+        append(cards, "q3;a3\n\ninvalid\n");
+        scan(false);
+        Assertions.assertEquals(List.of("q1", "q2", "q3"), questions());
+        List<Integer> numbers = new ArrayList<>();
+        for (Flashcard card : DBconnection.readDeck(c)) {
+            numbers.add(card.getNumber());
+        }
+        Assertions.assertEquals(List.of(1, 2, 3), numbers);
+    }
+
+    @Test
+    public void offsetsSurviveRestart() throws Exception {
+        Path cards = directory.resolve("cards.txt");
+        append(cards, "q1;a1\n");
+        scan(false);
+        ingestor.stop();
+        ingestor = new WatchFolderIngestor(directory);
+        append(cards, "q2;a2\n");
+        scan(false);
+        Assertions.assertEquals(List.of("q1", "q2"), questions());
+    }
+
+    @Test
+    public void partialLastLineWaitsUntilSettled() throws Exception {
+        Path cards = directory.resolve("cards.txt");
+        append(cards, "q1;a1\nq2;a");
+        scan(false);
+        Assertions.assertEquals(List.of("q1"), questions());
+
+        append(cards, "2\nq3;a3");
+        scan(false);
+        Assertions.assertEquals(List.of("q1", "q2"), questions());
+        Assertions.assertEquals("a2", DBconnection.readDeck(c).get(1).getAnswer());
+
+        scan(true);
+        scan(true);
+        Assertions.assertEquals(List.of("q1", "q2", "q3"), questions());
+    }
+
+    @Test
+    public void replacedFileIsImportedAgain() throws Exception {
+        Path cards = directory.resolve("cards.txt");
+        append(cards, "q1;a1\n");
+        scan(false);
+        Files.writeString(cards, "r1;b1\n", StandardCharsets.UTF_8);
+        scan(false);
+        Assertions.assertEquals(List.of("q1", "r1"), questions());
+    }
+
+    @Test
+    public void hiddenAndCompressedFilesAreSkipped() throws Exception {
+        append(directory.resolve(".hidden.txt"), "h;h\n");
+        append(directory.resolve("cards.gz"), "g;g\n");
+        Files.createDirectory(directory.resolve("nested"));
+        append(directory.resolve("cards.txt"), "q1;a1\n");
+        scan(false);
+        Assertions.assertEquals(List.of("q1"), questions());
+    }
+
+    @Test
+    public void failedImportIsRetried() throws Exception {
+        Path partial = directory.resolve("partial.txt");
+        append(partial, "p1;b1\np2;b2");
+        scan(false);
+        try (Statement s = c.createStatement()) {
+            s.execute("PRAGMA busy_timeout = 50");
+        }
+        Path cards = directory.resolve("cards.txt");
+        try (Connection other = DBconnection.openConnection("jdbc:sqlite:" + file);
+             Statement s = other.createStatement()) {
+            s.execute("BEGIN IMMEDIATE");
+            s.executeUpdate("UPDATE flashcards SET color = 0");
+            append(cards, "q1;a1\n");
+            scan(false);
+            Assertions.assertEquals(List.of("p1"), questions());
+            s.execute("ROLLBACK");
+        }
+        ingestor.ingestBacklog(c);
+        Assertions.assertEquals(List.of("p1", "q1"), questions());
+        ingestor.settle(c);
+        Assertions.assertEquals(List.of("p1", "q1", "p2"), questions());
+    }
+}